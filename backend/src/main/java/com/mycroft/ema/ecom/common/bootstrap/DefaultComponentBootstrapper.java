@@ -127,6 +127,7 @@ public class DefaultComponentBootstrapper implements ApplicationRunner {
       log.warn("Failed to bootstrap default orders component: {}", ex.getMessage());
     }
     domainImportService.cleanupLegacyPermissions("orders");
+    domainImportService.ensureQueryIndexes("orders");
     seedOrdersSample();
   }
 
@@ -154,6 +155,7 @@ public class DefaultComponentBootstrapper implements ApplicationRunner {
       log.warn("Failed to bootstrap default advertising component: {}", ex.getMessage());
     }
     domainImportService.cleanupLegacyPermissions("ads");
+    domainImportService.ensureQueryIndexes("ads");
     seedAdsSample();
   }
 
@@ -0,0 +1,19 @@
+package com.mycroft.ema.ecom.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides the in-memory meter registry behind the application's Micrometer metrics without exposing any endpoints.
+ */
+@Configuration
+public class MetricsConfig {
+  @Bean
+  @ConditionalOnMissingBean
+  MeterRegistry meterRegistry(){
+    return new SimpleMeterRegistry();
+  }
+}
@@ -0,0 +1,29 @@
+package com.mycroft.ema.ecom.common.error;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Runtime exception for requests refused because a dependency is throttled or temporarily unavailable. The request
+ * itself is valid and may be retried after {@link #getRetryAfter()}; maps to a 429 or 503 with a Retry-After header.
+ */
+public class RetryLaterException extends RuntimeException {
+
+  private final HttpStatus status;
+  private final Duration retryAfter;
+
+  public RetryLaterException(HttpStatus status, String message, Duration retryAfter) {
+    super(message);
+    this.status = status;
+    this.retryAfter = retryAfter;
+  }
+
+  public HttpStatus getStatus() {
+    return status;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,30 @@
+package com.mycroft.ema.ecom.common.events;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published after rows of a dynamic domain table are written. Single-row writers name the rows they touched; bulk
+ * loads, table swaps and reconfigurations set {@code allRows} so listeners refresh everything derived from the table.
+ */
+public record DomainDataChangedEvent(String domain, Set<UUID> rowIds, boolean allRows) {
+
+  public DomainDataChangedEvent {
+    domain = domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT);
+    rowIds = rowIds == null ? Set.of() : Set.copyOf(rowIds);
+  }
+
+  public static DomainDataChangedEvent rows(String domain, Collection<UUID> rowIds) {
+    return new DomainDataChangedEvent(domain, rowIds == null ? Set.of() : Set.copyOf(rowIds), false);
+  }
+
+  public static DomainDataChangedEvent row(String domain, UUID rowId) {
+    return new DomainDataChangedEvent(domain, rowId == null ? Set.of() : Set.of(rowId), rowId == null);
+  }
+
+  public static DomainDataChangedEvent all(String domain) {
+    return new DomainDataChangedEvent(domain, Set.of(), true);
+  }
+}
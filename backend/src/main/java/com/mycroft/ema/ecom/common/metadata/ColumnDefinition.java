@@ -0,0 +1,6 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+/**
+ * Physical column of a dynamic table as reported by {@code information_schema.columns}.
+ */
+public record ColumnDefinition(String name, String dataType, boolean nullable) {}
@@ -0,0 +1,19 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+/**
+ * Converts a raw cell or payload value into the JDBC value expected by one column type. Implementations return
+ * {@code null} for null or blank input and throw {@link IllegalArgumentException} when the value cannot be converted.
+ */
+@FunctionalInterface
+public interface ColumnValueConverter {
+
+  Object convert(Object value);
+
+  /**
+   * Returns the converter to use for one import or sync session. Stateless converters return themselves; converters
+   * that learn from the values they see (such as date formats) return a fresh copy.
+   */
+  default ColumnValueConverter forSession() {
+    return this;
+  }
+}
@@ -0,0 +1,225 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.util.PGobject;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Registry of the value converters used by every ingestion path (template imports, Google Sheet sync and hybrid
+ * entity writes), keyed by PostgreSQL {@code information_schema} data type.
+ */
+public final class ColumnValueConverters {
+
+  private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+  private static final Set<String> TRUE_VALUES = Set.of("true", "t", "yes", "y", "1");
+  private static final Set<String> FALSE_VALUES = Set.of("false", "f", "no", "n", "0");
+  public static final ColumnValueConverter TEXT = nullSafe("text", ColumnValueConverters::toText);
+  public static final ColumnValueConverter UUID_VALUE = nullSafe("uuid", ColumnValueConverters::toUuid);
+  public static final ColumnValueConverter BOOLEAN = nullSafe("boolean", ColumnValueConverters::toBoolean);
+  public static final ColumnValueConverter INTEGER = nullSafe("integer", ColumnValueConverters::toLong);
+  public static final ColumnValueConverter DECIMAL = nullSafe("decimal", ColumnValueConverters::toBigDecimal);
+  public static final ColumnValueConverter TIMESTAMP = new TemporalColumnConverter(false, DateTimeSniffer.shared());
+  public static final ColumnValueConverter DATE = new TemporalColumnConverter(true, DateTimeSniffer.shared());
+  public static final ColumnValueConverter JSON = nullSafe("json", ColumnValueConverters::toJsonb);
+
+  private ColumnValueConverters() {
+  }
+
+  public static ColumnValueConverter forDataType(String dataType) {
+    String type = dataType == null ? "" : dataType.trim().toLowerCase(Locale.ROOT);
+    if (type.startsWith("timestamp")) {
+      return TIMESTAMP;
+    }
+    return switch (type) {
+      case "uuid" -> UUID_VALUE;
+      case "boolean" -> BOOLEAN;
+      case "smallint", "integer", "bigint" -> INTEGER;
+      case "numeric", "decimal", "double precision", "real" -> DECIMAL;
+      case "date" -> DATE;
+      case "json", "jsonb" -> JSON;
+      default -> TEXT;
+    };
+  }
+
+  /**
+   * Parses a date/time value in any of the formats accepted by imports, sync and the entity API, interpreting
+   * zoned values in the system time zone.
+   */
+  public static LocalDateTime toLocalDateTime(Object value) {
+    return toLocalDateTime(value, DateTimeSniffer.shared());
+  }
+
+  static LocalDateTime toLocalDateTime(Object value, DateTimeSniffer sniffer) {
+    if (value instanceof LocalDateTime ldt) {
+      return ldt;
+    }
+    if (value instanceof Timestamp ts) {
+      return ts.toLocalDateTime();
+    }
+    if (value instanceof Date date) {
+      return date.toLocalDate().atStartOfDay();
+    }
+    if (value instanceof LocalDate ld) {
+      return ld.atStartOfDay();
+    }
+    if (value instanceof Instant instant) {
+      return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+    if (value instanceof OffsetDateTime odt) {
+      return LocalDateTime.ofInstant(odt.toInstant(), ZoneId.systemDefault());
+    }
+    if (value instanceof java.util.Date date) {
+      return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+    if (value instanceof Number number) {
+      return DateTimeSniffer.fromNumber(number.doubleValue());
+    }
+    LocalDateTime parsed = sniffer.parse(value.toString());
+    if (parsed == null) {
+      throw new IllegalArgumentException("Cannot convert value '" + value + "' to a date/time");
+    }
+    return parsed;
+  }
+
+  private static ColumnValueConverter nullSafe(String typeName, ColumnValueConverter delegate) {
+    return value -> {
+      if (value == null) {
+        return null;
+      }
+      if (value instanceof CharSequence cs && cs.toString().isBlank()) {
+        return null;
+      }
+      try {
+        return delegate.convert(value);
+      } catch (IllegalArgumentException ex) {
+        throw ex;
+      } catch (DateTimeException | ArithmeticException ex) {
+        throw new IllegalArgumentException("Cannot convert value '" + value + "' to " + typeName, ex);
+      }
+    };
+  }
+
+  private static Object toText(Object value) {
+    if (value instanceof String s) {
+      return s;
+    }
+    if (value instanceof Map<?, ?> || value instanceof Collection<?>) {
+      return writeJson(value);
+    }
+    return value.toString();
+  }
+
+  private static Object toUuid(Object value) {
+    if (value instanceof UUID uuid) {
+      return uuid;
+    }
+    return UUID.fromString(value.toString().trim());
+  }
+
+  private static Object toBoolean(Object value) {
+    if (value instanceof Boolean b) {
+      return b;
+    }
+    if (value instanceof Number number) {
+      return number.intValue() != 0;
+    }
+    String s = value.toString().trim().toLowerCase(Locale.ROOT);
+    if (TRUE_VALUES.contains(s)) {
+      return Boolean.TRUE;
+    }
+    if (FALSE_VALUES.contains(s)) {
+      return Boolean.FALSE;
+    }
+    throw new IllegalArgumentException("Cannot convert value '" + value + "' to boolean");
+  }
+
+  private static Object toLong(Object value) {
+    if (value instanceof Number number) {
+      return number.longValue();
+    }
+    String s = value.toString().trim();
+    try {
+      return Long.parseLong(s);
+    } catch (NumberFormatException ex) {
+      // Accept integral decimals such as "12.0" that spreadsheets commonly produce
+      return normalizeDecimal(s).longValueExact();
+    }
+  }
+
+  private static Object toBigDecimal(Object value) {
+    if (value instanceof BigDecimal bd) {
+      return bd;
+    }
+    if (value instanceof Number number) {
+      return new BigDecimal(number.toString());
+    }
+    return normalizeDecimal(value.toString().trim());
+  }
+
+  private static BigDecimal normalizeDecimal(String raw) {
+    String s = raw;
+    // Localized decimal separators ("1,25") and grouping spaces are common in sheets
+    if (s.indexOf(',') >= 0 && s.indexOf('.') < 0) {
+      s = s.replace(',', '.');
+    }
+    s = s.replace("\u00A0", "").replace(" ", "");
+    return new BigDecimal(s);
+  }
+
+  private static Object toJsonb(Object value) {
+    String json;
+    if (value instanceof PGobject pg) {
+      return pg;
+    }
+    if (value instanceof CharSequence cs) {
+      String text = cs.toString().trim();
+      json = looksLikeJson(text) ? text : writeJson(text);
+    } else {
+      json = writeJson(value);
+    }
+    try {
+      PGobject obj = new PGobject();
+      obj.setType("jsonb");
+      obj.setValue(json);
+      return obj;
+    } catch (SQLException ex) {
+      throw new IllegalArgumentException("Cannot convert value to jsonb", ex);
+    }
+  }
+
+  private static boolean looksLikeJson(String text) {
+    if (!(text.startsWith("{") || text.startsWith("["))) {
+      return false;
+    }
+    try {
+      JSON_MAPPER.readTree(text);
+      return true;
+    } catch (JsonProcessingException ex) {
+      return false;
+    }
+  }
+
+  private static String writeJson(Object value) {
+    try {
+      return JSON_MAPPER.writeValueAsString(value);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalArgumentException("Unable to serialize value as JSON", ex);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converters of one table for the duration of a single import, resync or sync call. Per-column state such as the
+ * learned date format is kept for the whole session and discarded with it. Not thread-safe.
+ */
+public final class ConversionSession {
+
+  private final TableSchema schema;
+  private final Map<String, ColumnValueConverter> converters = new HashMap<>();
+  private final Map<List<String>, RowConverter> rowConverters = new HashMap<>();
+
+  ConversionSession(TableSchema schema) {
+    this.schema = schema;
+  }
+
+  public TableSchema schema() {
+    return schema;
+  }
+
+  /**
+   * Returns the session's converter for {@code column}, sharing learned state with every row converter that
+   * includes it.
+   */
+  public ColumnValueConverter converter(String column) {
+    return converters.computeIfAbsent(column == null ? "" : column.toLowerCase(Locale.ROOT),
+        key -> schema.converter(key).forSession());
+  }
+
+  /**
+   * Returns a converter for the given ordered column list, compiled once per session for up to
+   * {@link TableSchema#MAX_CACHED_ROW_CONVERTERS} distinct lists. Rows whose columns vary should use
+   * {@link #converter(String)} instead.
+   */
+  public RowConverter rowConverter(List<String> columnNames) {
+    RowConverter cached = rowConverters.get(columnNames);
+    if (cached != null) {
+      return cached;
+    }
+    List<String> names = List.copyOf(columnNames);
+    ColumnValueConverter[] compiled = new ColumnValueConverter[names.size()];
+    for (int i = 0; i < names.size(); i++) {
+      compiled[i] = converter(names.get(i));
+    }
+    RowConverter converter = new RowConverter(names, compiled);
+    if (rowConverters.size() < TableSchema.MAX_CACHED_ROW_CONVERTERS) {
+      rowConverters.put(names, converter);
+    }
+    return converter;
+  }
+}
@@ -0,0 +1,326 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Parses the date/time shapes accepted by imports and sheet sync in a single scan of the text, returning {@code null}
+ * instead of throwing when nothing matches. A learning instance remembers the day/month order seen in unambiguous
+ * values of its column and applies it to ambiguous ones such as {@code 03/04/2024}, switching only when a later value
+ * contradicts it.
+ *
+ * <p>Accepted shapes: ISO dates and date-times (optionally with fraction and {@code Z}/offset), {@code yyyy/MM/dd},
+ * {@code dd/MM/yyyy}, {@code MM/dd/yyyy} and their {@code -} or {@code .} separated forms with an optional
+ * {@code HH:mm[:ss[.SSS]]} time, Excel serial dates and epoch milliseconds.
+ */
+public final class DateTimeSniffer {
+
+  /** Order of the date fields in a value. */
+  public enum FieldOrder { YMD, DMY, MDY }
+
+  /** Excel serial numbers up to 9999-12-31; larger numbers are treated as epoch milliseconds. */
+  private static final double MAX_EXCEL_SERIAL = 2_958_465d;
+  private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+
+  private static final DateTimeSniffer SHARED = new DateTimeSniffer(false);
+
+  private final boolean learning;
+  private volatile FieldOrder learnedOrder;
+
+  private DateTimeSniffer(boolean learning) {
+    this.learning = learning;
+  }
+
+  /**
+   * Stateless instance for one-off values; ambiguous dates use the separator default.
+   */
+  public static DateTimeSniffer shared() {
+    return SHARED;
+  }
+
+  /**
+   * New instance that learns the field order of one column for the duration of an import or sync session.
+   */
+  public static DateTimeSniffer learning() {
+    return new DateTimeSniffer(true);
+  }
+
+  public FieldOrder learnedOrder() {
+    return learnedOrder;
+  }
+
+  /**
+   * Returns the parsed value in the system time zone, or {@code null} when {@code text} is not a recognised date.
+   */
+  public LocalDateTime parse(CharSequence text) {
+    if (text == null) {
+      return null;
+    }
+    String s = text.toString().trim();
+    if (s.isEmpty()) {
+      return null;
+    }
+    if (isNumeric(s)) {
+      return fromNumber(Double.parseDouble(s));
+    }
+    return parseDateTime(s);
+  }
+
+  /**
+   * Converts an Excel serial date or epoch milliseconds to a local date-time.
+   */
+  public static LocalDateTime fromNumber(double number) {
+    if (number > 0 && number <= MAX_EXCEL_SERIAL) {
+      // Excel counts the non-existent 1900-02-29 (serial 60), so later serials are offset from 1899-12-30
+      LocalDate base = number >= 60 ? LocalDate.of(1899, 12, 30) : LocalDate.of(1899, 12, 31);
+      long wholeDays = (long) Math.floor(number);
+      long seconds = Math.round((number - wholeDays) * 24 * 60 * 60);
+      return base.plusDays(wholeDays).atStartOfDay().plusSeconds(seconds);
+    }
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli((long) number), ZoneId.systemDefault());
+  }
+
+  private LocalDateTime parseDateTime(String s) {
+    int len = s.length();
+    int[] pos = {0};
+    int n1Start = pos[0];
+    int n1 = readNumber(s, pos, 4);
+    int n1Digits = pos[0] - n1Start;
+    if (n1Digits == 0 || pos[0] >= len) {
+      return null;
+    }
+    char sep1 = s.charAt(pos[0]);
+    if (!isDateSeparator(sep1)) {
+      return null;
+    }
+    pos[0]++;
+    int n2Start = pos[0];
+    int n2 = readNumber(s, pos, 2);
+    if (pos[0] == n2Start || pos[0] >= len) {
+      return null;
+    }
+    char sep2 = s.charAt(pos[0]);
+    if (!isDateSeparator(sep2)) {
+      return null;
+    }
+    pos[0]++;
+    int n3Start = pos[0];
+    int n3 = readNumber(s, pos, 4);
+    int n3Digits = pos[0] - n3Start;
+    if (n3Digits == 0) {
+      return null;
+    }
+
+    int year;
+    int month;
+    int day;
+    if (n1Digits == 4) {
+      if (n3Digits > 2) {
+        return null;
+      }
+      year = n1;
+      month = n2;
+      day = n3;
+    } else if (n3Digits == 4 && n1Digits <= 2) {
+      year = n3;
+      FieldOrder order = resolveOrder(n1, n2, sep1);
+      if (order == null) {
+        return null;
+      }
+      day = order == FieldOrder.DMY ? n1 : n2;
+      month = order == FieldOrder.DMY ? n2 : n1;
+    } else {
+      return null;
+    }
+    if (!isValidDate(year, month, day)) {
+      return null;
+    }
+
+    int hour = 0;
+    int minute = 0;
+    int second = 0;
+    int nanos = 0;
+    int offsetSeconds = 0;
+    boolean zoned = false;
+    if (pos[0] < len) {
+      char c = s.charAt(pos[0]);
+      if (c != 'T' && c != 't' && c != ' ') {
+        return null;
+      }
+      while (pos[0] < len && (s.charAt(pos[0]) == ' ' || s.charAt(pos[0]) == 'T' || s.charAt(pos[0]) == 't')) {
+        pos[0]++;
+      }
+      int hStart = pos[0];
+      hour = readNumber(s, pos, 2);
+      if (pos[0] == hStart || pos[0] >= len || s.charAt(pos[0]) != ':') {
+        return null;
+      }
+      pos[0]++;
+      int mStart = pos[0];
+      minute = readNumber(s, pos, 2);
+      if (pos[0] - mStart != 2) {
+        return null;
+      }
+      if (pos[0] < len && s.charAt(pos[0]) == ':') {
+        pos[0]++;
+        int sStart = pos[0];
+        second = readNumber(s, pos, 2);
+        if (pos[0] - sStart != 2) {
+          return null;
+        }
+        if (pos[0] < len && (s.charAt(pos[0]) == '.' || s.charAt(pos[0]) == ',')) {
+          pos[0]++;
+          int fStart = pos[0];
+          int fraction = readNumber(s, pos, 9);
+          int fDigits = pos[0] - fStart;
+          if (fDigits == 0) {
+            return null;
+          }
+          nanos = fraction;
+          for (int i = fDigits; i < 9; i++) {
+            nanos *= 10;
+          }
+          // Ignore precision beyond nanoseconds
+          while (pos[0] < len && Character.isDigit(s.charAt(pos[0]))) {
+            pos[0]++;
+          }
+        }
+      }
+      if (hour > 23 || minute > 59 || second > 59) {
+        return null;
+      }
+      if (pos[0] < len) {
+        while (pos[0] < len && s.charAt(pos[0]) == ' ') {
+          pos[0]++;
+        }
+        Integer offset = readOffset(s, pos);
+        if (offset == null || pos[0] != len) {
+          return null;
+        }
+        offsetSeconds = offset;
+        zoned = true;
+      }
+    }
+
+    LocalDateTime local = LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+    if (!zoned) {
+      return local;
+    }
+    return LocalDateTime.ofInstant(local.toInstant(ZoneOffset.ofTotalSeconds(offsetSeconds)), ZoneId.systemDefault());
+  }
+
+  private FieldOrder resolveOrder(int a, int b, char separator) {
+    FieldOrder detected = null;
+    if (a > 12 && b <= 12) {
+      detected = FieldOrder.DMY;
+    } else if (b > 12 && a <= 12) {
+      detected = FieldOrder.MDY;
+    } else if (a > 12) {
+      return null;
+    }
+    if (detected != null) {
+      if (learning && learnedOrder != detected) {
+        learnedOrder = detected;
+      }
+      return detected;
+    }
+    FieldOrder learned = learnedOrder;
+    if (learned != null) {
+      return learned;
+    }
+    // Defaults mirror the previous formatter order: dd/MM/yyyy before MM/dd/yyyy, MM-dd-yyyy for dashes
+    return separator == '-' ? FieldOrder.MDY : FieldOrder.DMY;
+  }
+
+  private static Integer readOffset(String s, int[] pos) {
+    int len = s.length();
+    char c = s.charAt(pos[0]);
+    if (c == 'Z' || c == 'z') {
+      pos[0]++;
+      return 0;
+    }
+    if (c != '+' && c != '-') {
+      return null;
+    }
+    int sign = c == '-' ? -1 : 1;
+    pos[0]++;
+    int hStart = pos[0];
+    int hours = readNumber(s, pos, 2);
+    if (pos[0] - hStart != 2) {
+      return null;
+    }
+    int minutes = 0;
+    if (pos[0] < len) {
+      if (s.charAt(pos[0]) == ':') {
+        pos[0]++;
+      }
+      int mStart = pos[0];
+      minutes = readNumber(s, pos, 2);
+      if (pos[0] - mStart != 2) {
+        return null;
+      }
+    }
+    int total = hours * 3600 + minutes * 60;
+    if (minutes > 59 || total > MAX_OFFSET_SECONDS) {
+      return null;
+    }
+    return sign * total;
+  }
+
+  private static int readNumber(String s, int[] pos, int maxDigits) {
+    int value = 0;
+    int digits = 0;
+    int i = pos[0];
+    while (i < s.length() && digits < maxDigits) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') {
+        break;
+      }
+      value = value * 10 + (c - '0');
+      digits++;
+      i++;
+    }
+    pos[0] = i;
+    return value;
+  }
+
+  private static boolean isDateSeparator(char c) {
+    return c == '-' || c == '/' || c == '.';
+  }
+
+  private static boolean isValidDate(int year, int month, int day) {
+    if (year < 1 || month < 1 || month > 12 || day < 1) {
+      return false;
+    }
+    int maxDay = switch (month) {
+      case 2 -> Year.isLeap(year) ? 29 : 28;
+      case 4, 6, 9, 11 -> 30;
+      default -> 31;
+    };
+    return day <= maxDay;
+  }
+
+  private static boolean isNumeric(String s) {
+    int i = 0;
+    if (s.charAt(0) == '-' || s.charAt(0) == '+') {
+      i++;
+    }
+    boolean digits = false;
+    boolean dot = false;
+    for (; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits = true;
+      } else if (c == '.' && !dot) {
+        dot = true;
+      } else {
+        return false;
+      }
+    }
+    return digits;
+  }
+}
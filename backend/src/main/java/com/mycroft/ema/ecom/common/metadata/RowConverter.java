@@ -0,0 +1,55 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import java.util.List;
+
+/**
+ * Converter compiled for a fixed, ordered list of columns so rows can be converted with an indexed loop instead of
+ * per-value type lookups.
+ */
+public final class RowConverter {
+
+  private final String[] columns;
+  private final ColumnValueConverter[] converters;
+
+  RowConverter(List<String> columns, ColumnValueConverter[] converters) {
+    this.columns = columns.toArray(String[]::new);
+    this.converters = converters;
+  }
+
+  public int size() {
+    return columns.length;
+  }
+
+  public String column(int index) {
+    return columns[index];
+  }
+
+  public Object convert(int index, Object value) {
+    return converters[index].convert(value);
+  }
+
+  /**
+   * Converts {@code raw} positionally. Values that fail conversion are passed to {@code onFailure}, which either
+   * returns a replacement or rethrows.
+   */
+  public Object[] convertRow(Object[] raw, FailureHandler onFailure) {
+    Object[] converted = new Object[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      Object value = i < raw.length ? raw[i] : null;
+      try {
+        converted[i] = converters[i].convert(value);
+      } catch (IllegalArgumentException ex) {
+        converted[i] = onFailure.handle(i, value, ex);
+      }
+    }
+    return converted;
+  }
+
+  /**
+   * Per-path policy applied when a value cannot be converted.
+   */
+  @FunctionalInterface
+  public interface FailureHandler {
+    Object handle(int index, Object raw, IllegalArgumentException error);
+  }
+}
@@ -0,0 +1,105 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of a table's columns with one compiled {@link ColumnValueConverter} per column. A new snapshot
+ * (and therefore a new set of converters) is produced whenever the table's schema is invalidated.
+ */
+public final class TableSchema {
+
+  /** Distinct column lists kept compiled per snapshot; further lists are compiled on every call. */
+  static final int MAX_CACHED_ROW_CONVERTERS = 32;
+
+  private final String table;
+  private final long version;
+  private final long loadedAtNanos;
+  private final List<ColumnDefinition> columns;
+  private final Map<String, Integer> indexByName;
+  private final ColumnValueConverter[] converters;
+  private final Map<List<String>, RowConverter> rowConverters = new ConcurrentHashMap<>();
+
+  TableSchema(String table, long version, long loadedAtNanos, List<ColumnDefinition> columns) {
+    this.table = table;
+    this.version = version;
+    this.loadedAtNanos = loadedAtNanos;
+    this.columns = List.copyOf(columns);
+    this.indexByName = new HashMap<>();
+    this.converters = new ColumnValueConverter[columns.size()];
+    for (int i = 0; i < columns.size(); i++) {
+      ColumnDefinition column = columns.get(i);
+      indexByName.put(column.name().toLowerCase(Locale.ROOT), i);
+      converters[i] = ColumnValueConverters.forDataType(column.dataType());
+    }
+  }
+
+  public String table() {
+    return table;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  long loadedAtNanos() {
+    return loadedAtNanos;
+  }
+
+  public boolean exists() {
+    return !columns.isEmpty();
+  }
+
+  public List<ColumnDefinition> columns() {
+    return columns;
+  }
+
+  public Set<String> columnNames() {
+    return Collections.unmodifiableSet(indexByName.keySet());
+  }
+
+  public boolean hasColumn(String column) {
+    return column != null && indexByName.containsKey(column.toLowerCase(Locale.ROOT));
+  }
+
+  public Optional<ColumnDefinition> column(String column) {
+    Integer index = column == null ? null : indexByName.get(column.toLowerCase(Locale.ROOT));
+    return index == null ? Optional.empty() : Optional.of(columns.get(index));
+  }
+
+  /**
+   * Returns the converter for {@code column}, or the text converter when the column is unknown.
+   */
+  public ColumnValueConverter converter(String column) {
+    Integer index = column == null ? null : indexByName.get(column.toLowerCase(Locale.ROOT));
+    return index == null ? ColumnValueConverters.TEXT : converters[index];
+  }
+
+  /**
+   * Starts a conversion session whose converters may learn per-column formats from the values they convert.
+   */
+  public ConversionSession newSession() {
+    return new ConversionSession(this);
+  }
+
+  /**
+   * Returns a stateless converter for the given ordered column list, compiled once per schema snapshot for up to
+   * {@link #MAX_CACHED_ROW_CONVERTERS} distinct lists.
+   */
+  public RowConverter rowConverter(List<String> columnNames) {
+    List<String> names = List.copyOf(columnNames);
+    RowConverter cached = rowConverters.get(names);
+    if (cached != null) {
+      return cached;
+    }
+    ColumnValueConverter[] compiled = new ColumnValueConverter[names.size()];
+    for (int i = 0; i < names.size(); i++) {
+      compiled[i] = converter(names.get(i));
+    }
+    RowConverter converter = new RowConverter(names, compiled);
+    if (rowConverters.size() < MAX_CACHED_ROW_CONVERTERS) {
+      rowConverters.putIfAbsent(names, converter);
+    }
+    return converter;
+  }
+}
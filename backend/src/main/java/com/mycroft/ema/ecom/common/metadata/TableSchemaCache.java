@@ -0,0 +1,81 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches {@link TableSchema} snapshots of dynamic tables so column lookups and value conversion do not query
+ * {@code information_schema} on every request. Code that alters a table must call {@link #invalidate(String)}; a short
+ * maximum age covers DDL applied outside the application.
+ */
+@Component
+public class TableSchemaCache {
+
+  private static final long MAX_AGE_NANOS = Duration.ofMinutes(5).toNanos();
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<String, TableSchema> schemas = new ConcurrentHashMap<>();
+  private final AtomicLong versions = new AtomicLong();
+
+  public TableSchemaCache(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public TableSchema get(String table) {
+    String key = normalize(table);
+    TableSchema schema = schemas.get(key);
+    if (schema == null || System.nanoTime() - schema.loadedAtNanos() > MAX_AGE_NANOS) {
+      schema = load(key);
+      if (schema.exists()) {
+        // Missing tables are not cached so a table created outside the import flow is seen immediately
+        schemas.put(key, schema);
+      } else {
+        schemas.remove(key);
+      }
+    }
+    return schema;
+  }
+
+  public void invalidate(String table) {
+    schemas.remove(normalize(table));
+  }
+
+  public void invalidateAll() {
+    schemas.clear();
+  }
+
+  private TableSchema load(String table) {
+    List<ColumnDefinition> columns = new ArrayList<>();
+    jdbcTemplate.query(
+        """
+          select column_name, data_type, is_nullable
+          from information_schema.columns
+          where table_schema = current_schema()
+            and table_name = ?
+          order by ordinal_position
+        """,
+        rs -> {
+          String name = rs.getString("column_name");
+          if (name != null) {
+            columns.add(new ColumnDefinition(
+                name,
+                rs.getString("data_type"),
+                "YES".equalsIgnoreCase(rs.getString("is_nullable"))));
+          }
+        },
+        table);
+    return new TableSchema(table, versions.incrementAndGet(), System.nanoTime(), columns);
+  }
+
+  private String normalize(String table) {
+    return table == null ? "" : table.trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,59 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Converter for {@code date} and {@code timestamp} columns. The shared instances parse statelessly; the copies
+ * returned by {@link #forSession()} learn the column's day/month order through their own {@link DateTimeSniffer}.
+ */
+final class TemporalColumnConverter implements ColumnValueConverter {
+
+  private final boolean dateOnly;
+  private final DateTimeSniffer sniffer;
+
+  TemporalColumnConverter(boolean dateOnly, DateTimeSniffer sniffer) {
+    this.dateOnly = dateOnly;
+    this.sniffer = sniffer;
+  }
+
+  @Override
+  public Object convert(Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof CharSequence cs && cs.toString().isBlank()) {
+      return null;
+    }
+    try {
+      if (dateOnly) {
+        if (value instanceof Date date) {
+          return date;
+        }
+        if (value instanceof LocalDate localDate) {
+          return Date.valueOf(localDate);
+        }
+        return Date.valueOf(ColumnValueConverters.toLocalDateTime(value, sniffer).toLocalDate());
+      }
+      if (value instanceof Timestamp ts) {
+        return ts;
+      }
+      if (value instanceof Instant instant) {
+        return Timestamp.from(instant);
+      }
+      LocalDateTime parsed = ColumnValueConverters.toLocalDateTime(value, sniffer);
+      return Timestamp.valueOf(parsed);
+    } catch (DateTimeException ex) {
+      throw new IllegalArgumentException("Cannot convert value '" + value + "' to " + (dateOnly ? "date" : "timestamp"), ex);
+    }
+  }
+
+  @Override
+  public ColumnValueConverter forSession() {
+    return new TemporalColumnConverter(dateOnly, DateTimeSniffer.learning());
+  }
+}
@@ -0,0 +1,12 @@
+package com.mycroft.ema.ecom.domains.dashboard.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the dashboard settings.
+ */
+@Configuration
+@EnableConfigurationProperties({DashboardRollupProperties.class, DashboardKpiCacheProperties.class})
+public class DashboardConfig {
+}
@@ -0,0 +1,26 @@
+package com.mycroft.ema.ecom.domains.dashboard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Cache of computed dashboard KPIs: how long a result is reused for the same filters and how many filter combinations
+ * are kept at once.
+ */
+@ConfigurationProperties(prefix = "app.dashboard.kpi-cache")
+public record DashboardKpiCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("30s") Duration ttl,
+    @DefaultValue("500") int maxEntries
+) {
+  public DashboardKpiCacheProperties {
+    if (ttl.isNegative() || ttl.isZero()) {
+      throw new IllegalStateException("app.dashboard.kpi-cache.ttl must be positive");
+    }
+    if (maxEntries < 1) {
+      throw new IllegalStateException("app.dashboard.kpi-cache.max-entries must be at least 1");
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.mycroft.ema.ecom.domains.dashboard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Daily dashboard rollups: whether the dashboard reads them, how often pending row changes are folded in and when
+ * the full rebuild that repairs any drift runs.
+ */
+@ConfigurationProperties(prefix = "app.dashboard.rollups")
+public record DashboardRollupProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("PT5S") Duration flushInterval,
+    @DefaultValue("0 30 3 * * *") String rebuildCron
+) {
+  public DashboardRollupProperties {
+    if (flushInterval.isNegative() || flushInterval.isZero()) {
+      throw new IllegalStateException("app.dashboard.rollups.flush-interval must be positive");
+    }
+  }
+}
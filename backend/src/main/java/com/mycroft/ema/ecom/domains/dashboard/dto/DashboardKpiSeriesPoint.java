@@ -0,0 +1,19 @@
+package com.mycroft.ema.ecom.domains.dashboard.dto;
+
+import java.time.LocalDate;
+
+/**
+ * KPIs of one bucket of a dashboard time series; buckets without data carry zeros.
+ */
+public record DashboardKpiSeriesPoint(
+    LocalDate bucketStart,
+    long totalLeads,
+    long totalConfirmedLeads,
+    long totalDeliveredLeads,
+    double totalDeliveredAmount,
+    double totalAdsCost,
+    double totalCpl,
+    double confirmationRate,
+    double deliveryRate
+) {
+}
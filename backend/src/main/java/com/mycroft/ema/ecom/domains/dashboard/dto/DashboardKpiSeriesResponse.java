@@ -0,0 +1,15 @@
+package com.mycroft.ema.ecom.domains.dashboard.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Time series payload for dashboard trend charts: one point per bucket from {@code fromDate} to {@code toDate}.
+ */
+public record DashboardKpiSeriesResponse(
+    KpiSeriesGranularity granularity,
+    LocalDate fromDate,
+    LocalDate toDate,
+    List<DashboardKpiSeriesPoint> points
+) {
+}
@@ -0,0 +1,64 @@
+package com.mycroft.ema.ecom.domains.dashboard.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Bucket size of a KPI time series. Weeks start on Monday, as with PostgreSQL {@code date_trunc('week', ...)}.
+ */
+public enum KpiSeriesGranularity {
+  DAY("day", ChronoUnit.DAYS, 30),
+  WEEK("week", ChronoUnit.WEEKS, 12),
+  MONTH("month", ChronoUnit.MONTHS, 12);
+
+  private final String unit;
+  private final ChronoUnit chronoUnit;
+  private final int defaultBuckets;
+
+  KpiSeriesGranularity(String unit, ChronoUnit chronoUnit, int defaultBuckets) {
+    this.unit = unit;
+    this.chronoUnit = chronoUnit;
+    this.defaultBuckets = defaultBuckets;
+  }
+
+  /** The {@code date_trunc} field, also used as the {@code generate_series} step. */
+  public String unit() {
+    return unit;
+  }
+
+  /** Start of the range shown when the request names no start date. */
+  public LocalDate defaultFrom(LocalDate to) {
+    return to.minus(defaultBuckets - 1L, chronoUnit);
+  }
+
+  /** First day of the bucket containing {@code date}. */
+  public LocalDate truncate(LocalDate date) {
+    return switch (this) {
+      case DAY -> date;
+      case WEEK -> date.with(DayOfWeek.MONDAY);
+      case MONTH -> date.withDayOfMonth(1);
+    };
+  }
+
+  public LocalDate next(LocalDate bucketStart) {
+    return bucketStart.plus(1, chronoUnit);
+  }
+
+  /** Buckets from the one containing {@code from} to the one containing {@code to}, both included. */
+  public long bucketsBetween(LocalDate from, LocalDate to) {
+    return chronoUnit.between(truncate(from), truncate(to)) + 1;
+  }
+
+  public static KpiSeriesGranularity resolve(String granularity) {
+    if (granularity == null || granularity.isBlank()) {
+      return DAY;
+    }
+    try {
+      return valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unsupported granularity: " + granularity + ". Use day, week or month");
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.mycroft.ema.ecom.domains.dashboard.service;
+
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
+import com.mycroft.ema.ecom.domains.dashboard.config.DashboardKpiCacheProperties;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiFilters;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiResponse;
+import com.mycroft.ema.ecom.domains.imports.service.DomainImportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of dashboard KPIs per normalized filter set, so dashboards refreshed by several supervisors share
+ * one computation; concurrent misses for the same filters wait on the computation already in flight. Committed
+ * writes to orders or ads, including rows pushed by sheet sync, clear it before the TTL.
+ */
+@Component
+public class DashboardKpiCache {
+
+  private static final Set<String> KPI_DOMAINS = Set.of("orders", "ads");
+
+  private record Entry(CompletableFuture<DashboardKpiResponse> response, long loadedAtNanos) {
+
+    boolean usableAt(long now, long ttlNanos) {
+      if (!response.isDone()) {
+        return true;
+      }
+      return !response.isCompletedExceptionally() && now - loadedAtNanos < ttlNanos;
+    }
+  }
+
+  private final DashboardKpiCacheProperties properties;
+  private final DomainImportService domainImportService;
+  private final LongSupplier nanoClock;
+  private final Map<DashboardKpiFilters, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final Counter hits;
+  private final Counter misses;
+  private final Timer computeTimer;
+
+  @Autowired
+  public DashboardKpiCache(DashboardKpiCacheProperties properties, DomainImportService domainImportService,
+                           MeterRegistry meterRegistry) {
+    this(properties, domainImportService, meterRegistry, System::nanoTime);
+  }
+
+  DashboardKpiCache(DashboardKpiCacheProperties properties, DomainImportService domainImportService,
+                    MeterRegistry meterRegistry, LongSupplier nanoClock) {
+    this.properties = properties;
+    this.domainImportService = domainImportService;
+    this.nanoClock = nanoClock;
+    this.hits = Counter.builder("dashboard.kpi.cache.requests")
+        .tag("result", "hit")
+        .description("KPI requests answered from the cache")
+        .register(meterRegistry);
+    this.misses = Counter.builder("dashboard.kpi.cache.requests")
+        .tag("result", "miss")
+        .description("KPI requests that computed the KPIs")
+        .register(meterRegistry);
+    this.computeTimer = Timer.builder("dashboard.kpi.compute")
+        .description("Time spent computing dashboard KPIs on a cache miss")
+        .register(meterRegistry);
+    Gauge.builder("dashboard.kpi.cache.hit.ratio", this, DashboardKpiCache::hitRatio)
+        .description("Share of KPI requests answered from the cache")
+        .register(meterRegistry);
+    Gauge.builder("dashboard.kpi.cache.size", entries, Map::size)
+        .description("Filter combinations currently cached")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the cached KPIs for {@code filters}, computing them with {@code loader} when absent or expired. Callers
+   * arriving while the same filters are being computed share that computation. A result computed while an
+   * invalidation happened is returned but not cached, and a failed computation is not cached either.
+   */
+  public DashboardKpiResponse get(DashboardKpiFilters filters, Supplier<DashboardKpiResponse> loader) {
+    if (!properties.enabled()) {
+      return loader.get();
+    }
+    DashboardKpiFilters key = normalize(filters);
+    long ttl = properties.ttl().toNanos();
+    long started = nanoClock.getAsLong();
+    Entry entry = entries.get(key);
+    if (entry != null && entry.usableAt(started, ttl)) {
+      hits.increment();
+      return await(entry.response());
+    }
+    if (entries.size() >= properties.maxEntries()) {
+      evictExpired(started);
+    }
+    long observed = generation.get();
+    Entry mine = new Entry(new CompletableFuture<>(), started);
+    Entry winner = entries.compute(key,
+        (k, existing) -> existing != null && existing.usableAt(started, ttl) ? existing : mine);
+    if (winner != mine) {
+      hits.increment();
+      return await(winner.response());
+    }
+    misses.increment();
+    try {
+      DashboardKpiResponse response = loader.get();
+      mine.response().complete(response);
+      if (generation.get() != observed || entries.size() > properties.maxEntries()) {
+        entries.remove(key, mine);
+      }
+      return response;
+    } catch (RuntimeException | Error ex) {
+      entries.remove(key, mine);
+      mine.response().completeExceptionally(ex);
+      throw ex;
+    } finally {
+      computeTimer.record(nanoClock.getAsLong() - started, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+    entries.clear();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDomainDataChanged(DomainDataChangedEvent event) {
+    if (affectsKpis(event.domain())) {
+      invalidate();
+    }
+  }
+
+  double hitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0d : hits.count() / total;
+  }
+
+  private boolean affectsKpis(String domain) {
+    try {
+      String table = domainImportService.tableForDomain(domain);
+      return KPI_DOMAINS.stream().anyMatch(kpiDomain -> domainImportService.tableForDomain(kpiDomain).equals(table));
+    } catch (IllegalArgumentException ex) {
+      return false;
+    }
+  }
+
+  private void evictExpired(long now) {
+    long ttl = properties.ttl().toNanos();
+    entries.values().removeIf(entry -> !entry.usableAt(now, ttl));
+  }
+
+  private DashboardKpiResponse await(CompletableFuture<DashboardKpiResponse> response) {
+    try {
+      return response.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (ex.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Filters differing only in case or surrounding blanks select the same rows, so they share an entry.
+   */
+  static DashboardKpiFilters normalize(DashboardKpiFilters filters) {
+    if (filters == null) {
+      return new DashboardKpiFilters(null, null, null, null, null);
+    }
+    return new DashboardKpiFilters(filters.fromDate(), filters.toDate(),
+        normalizeText(filters.agent()), normalizeText(filters.mediaBuyer()), normalizeText(filters.product()));
+  }
+
+  private static String normalizeText(String value) {
+    return StringUtils.hasText(value) ? value.trim().toLowerCase(Locale.ROOT) : null;
+  }
+}
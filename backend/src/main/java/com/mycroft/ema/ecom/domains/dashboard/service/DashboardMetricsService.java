@@ -1,7 +1,12 @@
 package com.mycroft.ema.ecom.domains.dashboard.service;
 
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
 import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiFilters;
 import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiResponse;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiSeriesPoint;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiSeriesResponse;
+import com.mycroft.ema.ecom.domains.dashboard.dto.KpiSeriesGranularity;
 import com.mycroft.ema.ecom.domains.imports.service.DomainImportService;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -24,25 +29,43 @@ public class DashboardMetricsService {
       "confirmed", "shipped", "delivered"
   );
   private static final List<String> DELIVERED_STATUSES = List.of("livrer", "delivered");
+  private static final int MAX_SERIES_BUCKETS = 1000;
 
   private final DomainImportService domainImportService;
   private final JdbcTemplate jdbcTemplate;
+  private final TableSchemaCache schemaCache;
+  private final DashboardRollupService rollupService;
+  private final DashboardKpiCache kpiCache;
 
-  public DashboardMetricsService(DomainImportService domainImportService, JdbcTemplate jdbcTemplate) {
+  public DashboardMetricsService(DomainImportService domainImportService, JdbcTemplate jdbcTemplate,
+                                 TableSchemaCache schemaCache, DashboardRollupService rollupService,
+                                 DashboardKpiCache kpiCache) {
     this.domainImportService = domainImportService;
     this.jdbcTemplate = jdbcTemplate;
+    this.schemaCache = schemaCache;
+    this.rollupService = rollupService;
+    this.kpiCache = kpiCache;
   }
 
   public DashboardKpiResponse loadKpis(DashboardKpiFilters filters) {
-    Optional<String> ordersTable = tableForDomain("orders");
-    if (ordersTable.isEmpty()) {
+    return kpiCache.get(filters, () -> computeKpis(filters));
+  }
+
+  /**
+   * Computes the KPIs with one aggregate query on the orders data and one on the ads data, reading the daily rollups
+   * when they are up to date and the source tables otherwise; column checks come from the cached table schemas.
+   */
+  private DashboardKpiResponse computeKpis(DashboardKpiFilters filters) {
+    Optional<TableSchema> orders = schemaForDomain("orders");
+    if (orders.isEmpty()) {
       return DashboardKpiResponse.empty();
     }
-    Optional<String> adsTable = tableForDomain("ads");
+    Optional<TableSchema> ads = schemaForDomain("ads");
 
-    OrderMetrics orderMetrics = loadOrderMetrics(ordersTable.get(), filters);
-    BigDecimal adSpend = adsTable.map(table -> loadAdSpend(table, filters)).orElse(BigDecimal.ZERO);
-    BigDecimal totalCpl = adsTable.map(table -> loadTotalCpl(table, filters)).orElse(BigDecimal.ZERO);
+    OrderMetrics orderMetrics = loadOrderMetrics(orders.get(), filters);
+    AdMetrics adMetrics = ads.map(schema -> loadAdMetrics(schema, filters)).orElse(AdMetrics.empty());
+    BigDecimal adSpend = adMetrics.adSpend();
+    BigDecimal totalCpl = adMetrics.totalCpl();
 
     BigDecimal costPerDelivered = orderMetrics.deliveredOrders() > 0
         ? adSpend.divide(BigDecimal.valueOf(orderMetrics.deliveredOrders()), 2, RoundingMode.HALF_UP)
@@ -51,12 +74,8 @@ public class DashboardMetricsService {
         ? orderMetrics.deliveredRevenue().divide(BigDecimal.valueOf(orderMetrics.deliveredOrders()), 2, RoundingMode.HALF_UP)
         : BigDecimal.ZERO;
 
-    double confirmationRate = orderMetrics.totalOrders() > 0
-        ? (double) orderMetrics.confirmedOrders() / (double) orderMetrics.totalOrders()
-        : 0d;
-    double deliveryRate = orderMetrics.confirmedOrders() > 0
-        ? (double) orderMetrics.deliveredOrders() / (double) orderMetrics.confirmedOrders()
-        : 0d;
+    double confirmationRate = rate(orderMetrics.confirmedOrders(), orderMetrics.totalOrders());
+    double deliveryRate = rate(orderMetrics.deliveredOrders(), orderMetrics.confirmedOrders());
 
     return new DashboardKpiResponse(
         orderMetrics.totalOrders(),
@@ -73,169 +92,276 @@ public class DashboardMetricsService {
     );
   }
 
-  private OrderMetrics loadOrderMetrics(String table, DashboardKpiFilters filters) {
-    SqlClause base = buildOrdersWhere(table, filters);
-    long totalOrders = queryForLong("select count(*) from " + table + base.where(), base.args());
-    long confirmed = hasColumn(table, "status") ? countStatuses(table, base, CONFIRMED_STATUSES) : 0L;
-    long delivered = hasColumn(table, "status") ? countStatuses(table, base, DELIVERED_STATUSES) : 0L;
+  /**
+   * KPIs per day, week or month in one grouped query: {@code generate_series} lists every bucket of the range and the
+   * orders and ads aggregates are left-joined onto it, so buckets without data come back as zeros. The range defaults
+   * to the last 30 days, 12 weeks or 12 months ending today.
+   */
+  public DashboardKpiSeriesResponse loadSeries(DashboardKpiFilters filters, KpiSeriesGranularity granularity) {
+    LocalDate to = filters.toDate() != null ? filters.toDate() : LocalDate.now();
+    LocalDate from = filters.fromDate() != null ? filters.fromDate() : granularity.defaultFrom(to);
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("fromDate must not be after toDate");
+    }
+    if (granularity.bucketsBetween(from, to) > MAX_SERIES_BUCKETS) {
+      throw new IllegalArgumentException("The range spans more than " + MAX_SERIES_BUCKETS + " "
+          + granularity.unit() + " buckets; use a coarser granularity or a shorter range");
+    }
+    DashboardKpiFilters bounded = new DashboardKpiFilters(from, to, filters.agent(), filters.mediaBuyer(),
+        filters.product());
+    LocalDate first = granularity.truncate(from);
+    LocalDate last = granularity.truncate(to);
+
+    List<Object> args = new ArrayList<>(List.of(first, last));
+    String unit = granularity.unit();
+    String sql = "with buckets as (select generate_series(?::date, ?::date, interval '1 " + unit + "')::date as bucket)"
+        + ", orders (bucket, total, confirmed, delivered, revenue, cost_of_goods) as ("
+        + schemaForDomain("orders").map(schema -> orderSeriesQuery(schema, bounded, unit, args))
+            .orElse("select null::date, 0, 0, 0, 0, 0 where false") + ")"
+        + ", ads (bucket, ad_spend, cpl) as ("
+        + schemaForDomain("ads").map(schema -> adSeriesQuery(schema, bounded, unit, args))
+            .orElse("select null::date, 0, 0 where false") + ")"
+        + " select b.bucket, coalesce(o.total, 0), coalesce(o.confirmed, 0), coalesce(o.delivered, 0)"
+        + ", coalesce(o.revenue, 0), coalesce(a.ad_spend, 0), coalesce(a.cpl, 0)"
+        + " from buckets b"
+        + " left join orders o on o.bucket = b.bucket"
+        + " left join ads a on a.bucket = b.bucket"
+        + " order by b.bucket";
+    List<DashboardKpiSeriesPoint> points;
+    try {
+      points = jdbcTemplate.query(sql, (rs, rowNum) -> seriesPoint(
+          rs.getObject(1, LocalDate.class),
+          rs.getLong(2),
+          rs.getLong(3),
+          rs.getLong(4),
+          orZero(rs.getBigDecimal(5)),
+          orZero(rs.getBigDecimal(6)),
+          orZero(rs.getBigDecimal(7))), args.toArray());
+    } catch (Exception ex) {
+      points = new ArrayList<>();
+      for (LocalDate bucket = first; !bucket.isAfter(last); bucket = granularity.next(bucket)) {
+        points.add(seriesPoint(bucket, 0, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+      }
+    }
+    return new DashboardKpiSeriesResponse(granularity, from, to, points);
+  }
+
+  private String orderSeriesQuery(TableSchema schema, DashboardKpiFilters filters, String unit, List<Object> args) {
+    if (!schema.hasColumn("created_at")) {
+      return "select null::date, 0, 0, 0, 0, 0 where false";
+    }
+    boolean rollup = rollupService.prepareForRead(schema.table());
+    SqlClause base = buildOrdersWhere(schema, filters, rollup);
+    String sql = "select " + bucketExpression(unit, rollup ? "day" : "created_at::date")
+        + ", " + orderMeasures(schema, rollup, args)
+        + " from " + orderSource(schema, rollup) + base.where() + " group by 1";
+    args.addAll(base.args());
+    return sql;
+  }
+
+  private String adSeriesQuery(TableSchema schema, DashboardKpiFilters filters, String unit, List<Object> args) {
+    if (!schema.hasColumn("spend_date")) {
+      return "select null::date, 0, 0 where false";
+    }
+    boolean rollup = rollupService.prepareForRead(schema.table());
+    SqlClause base = buildAdsWhere(schema, filters, rollup);
+    String sql = "select " + bucketExpression(unit, rollup ? "day" : "spend_date::date")
+        + ", " + adMeasures(schema, rollup)
+        + " from " + adSource(schema, rollup) + base.where() + " group by 1";
+    args.addAll(base.args());
+    return sql;
+  }
+
+  private String bucketExpression(String unit, String day) {
+    return "date_trunc('" + unit + "', " + day + "::timestamp)::date";
+  }
 
-    BigDecimal deliveredRevenue = sumStatusColumn(table, base, "total_price", DELIVERED_STATUSES);
-    BigDecimal costOfGoods = sumStatusColumn(table, base, resolveCostOfGoodsColumn(table), DELIVERED_STATUSES);
+  private DashboardKpiSeriesPoint seriesPoint(LocalDate bucket, long total, long confirmed, long delivered,
+                                              BigDecimal revenue, BigDecimal adSpend, BigDecimal cpl) {
+    return new DashboardKpiSeriesPoint(bucket, total, confirmed, delivered, revenue.doubleValue(),
+        adSpend.doubleValue(), cpl.doubleValue(), rate(confirmed, total), rate(delivered, confirmed));
+  }
 
-    return new OrderMetrics(totalOrders, confirmed, delivered, deliveredRevenue, costOfGoods);
+  private double rate(long count, long outOf) {
+    return outOf > 0 ? (double) count / (double) outOf : 0d;
+  }
+
+  /**
+   * Counts and delivered sums in a single scan, each metric restricted by its own {@code FILTER} clause.
+   */
+  private OrderMetrics loadOrderMetrics(TableSchema schema, DashboardKpiFilters filters) {
+    boolean rollup = rollupService.prepareForRead(schema.table());
+    SqlClause base = buildOrdersWhere(schema, filters, rollup);
+    List<Object> args = new ArrayList<>();
+    String sql = "select " + orderMeasures(schema, rollup, args) + " from " + orderSource(schema, rollup) + base.where();
+    args.addAll(base.args());
+    try {
+      OrderMetrics metrics = jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new OrderMetrics(
+          rs.getLong(1),
+          rs.getLong(2),
+          rs.getLong(3),
+          orZero(rs.getBigDecimal(4)),
+          orZero(rs.getBigDecimal(5))), args.toArray());
+      return metrics == null ? OrderMetrics.empty() : metrics;
+    } catch (Exception ex) {
+      return OrderMetrics.empty();
+    }
   }
 
-  private BigDecimal loadAdSpend(String table, DashboardKpiFilters filters) {
-    if (!hasColumn(table, "ad_spend")) {
-      return BigDecimal.ZERO;
+  /**
+   * Total, confirmed and delivered counts followed by delivered revenue and cost of goods. The daily rollup holds
+   * lower-cased statuses and nulls or zeros for missing source columns, so it yields the same values.
+   */
+  private String orderMeasures(TableSchema schema, boolean rollup, List<Object> args) {
+    if (rollup) {
+      return "coalesce(sum(order_count), 0)"
+          + ", coalesce(sum(order_count) filter (where " + statusIn(CONFIRMED_STATUSES, args) + "), 0)"
+          + ", coalesce(sum(order_count) filter (where " + statusIn(DELIVERED_STATUSES, args) + "), 0)"
+          + ", coalesce(sum(total_price) filter (where " + statusIn(DELIVERED_STATUSES, args) + "), 0)"
+          + ", coalesce(sum(cost_of_goods) filter (where " + statusIn(DELIVERED_STATUSES, args) + "), 0)";
     }
-    SqlClause base = buildAdsWhere(table, filters);
-    return queryForBigDecimal("select coalesce(sum(ad_spend), 0) from " + table + base.where(), base.args());
+    boolean hasStatus = schema.hasColumn("status");
+    String costOfGoods = resolveCostOfGoodsColumn(schema);
+    return "count(*)"
+        + ", " + (hasStatus ? "count(*) filter (where " + statusIn(CONFIRMED_STATUSES, args) + ")" : "0")
+        + ", " + (hasStatus ? "count(*) filter (where " + statusIn(DELIVERED_STATUSES, args) + ")" : "0")
+        + ", " + deliveredSum(schema, "total_price", args)
+        + ", " + deliveredSum(schema, costOfGoods, args);
+  }
+
+  private String orderSource(TableSchema schema, boolean rollup) {
+    return rollup ? DashboardRollupService.ORDERS.table() : schema.table();
   }
 
-  private BigDecimal loadTotalCpl(String table, DashboardKpiFilters filters) {
-    if (!hasColumn(table, "cpl")) {
-      return BigDecimal.ZERO;
+  private AdMetrics loadAdMetrics(TableSchema schema, DashboardKpiFilters filters) {
+    if (!schema.hasColumn("ad_spend") && !schema.hasColumn("cpl")) {
+      return AdMetrics.empty();
+    }
+    boolean rollup = rollupService.prepareForRead(schema.table());
+    SqlClause base = buildAdsWhere(schema, filters, rollup);
+    String sql = "select " + adMeasures(schema, rollup) + " from " + adSource(schema, rollup) + base.where();
+    try {
+      AdMetrics metrics = jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new AdMetrics(
+          orZero(rs.getBigDecimal(1)),
+          orZero(rs.getBigDecimal(2))), base.args().toArray());
+      return metrics == null ? AdMetrics.empty() : metrics;
+    } catch (Exception ex) {
+      return AdMetrics.empty();
     }
-    SqlClause base = buildAdsWhere(table, filters);
-    return queryForBigDecimal("select coalesce(sum(cpl), 0) from " + table + base.where(), base.args());
   }
 
-  private SqlClause buildOrdersWhere(String table, DashboardKpiFilters filters) {
+  private String adMeasures(TableSchema schema, boolean rollup) {
+    if (rollup) {
+      return "coalesce(sum(ad_spend), 0), coalesce(sum(cpl), 0)";
+    }
+    return (schema.hasColumn("ad_spend") ? "coalesce(sum(ad_spend), 0)" : "0")
+        + ", " + (schema.hasColumn("cpl") ? "coalesce(sum(cpl), 0)" : "0");
+  }
+
+  private String adSource(TableSchema schema, boolean rollup) {
+    return rollup ? DashboardRollupService.ADS.table() : schema.table();
+  }
+
+  /**
+   * Filters on the orders table or, with {@code rollup}, on its daily rollup; a filter applies only when the source
+   * table has the column, so both read paths answer the same question.
+   */
+  private SqlClause buildOrdersWhere(TableSchema schema, DashboardKpiFilters filters, boolean rollup) {
     StringBuilder where = new StringBuilder(" where 1=1");
     List<Object> args = new ArrayList<>();
-    appendDateRange(where, args, table, "created_at", filters.fromDate(), filters.toDate());
+    appendDateRange(where, args, schema, "created_at", rollup, filters.fromDate(), filters.toDate());
 
-    if (StringUtils.hasText(filters.agent()) && hasColumn(table, "assigned_agent")) {
+    if (StringUtils.hasText(filters.agent()) && schema.hasColumn("assigned_agent")) {
       where.append(" and lower(assigned_agent) like ?");
       args.add(like(filters.agent()));
     }
-    if (StringUtils.hasText(filters.product()) && hasColumn(table, "product_summary")) {
-      where.append(" and lower(product_summary) like ?");
+    if (StringUtils.hasText(filters.product()) && schema.hasColumn("product_summary")) {
+      where.append(rollup ? " and lower(product) like ?" : " and lower(product_summary) like ?");
       args.add(like(filters.product()));
     }
     return new SqlClause(where.toString(), args);
   }
 
-  private SqlClause buildAdsWhere(String table, DashboardKpiFilters filters) {
+  private SqlClause buildAdsWhere(TableSchema schema, DashboardKpiFilters filters, boolean rollup) {
     StringBuilder where = new StringBuilder(" where 1=1");
     List<Object> args = new ArrayList<>();
-    appendDateRange(where, args, table, "spend_date", filters.fromDate(), filters.toDate());
+    appendDateRange(where, args, schema, "spend_date", rollup, filters.fromDate(), filters.toDate());
 
-    if (StringUtils.hasText(filters.mediaBuyer()) && hasColumn(table, "media_buyer")) {
+    if (StringUtils.hasText(filters.mediaBuyer()) && schema.hasColumn("media_buyer")) {
       where.append(" and lower(media_buyer) like ?");
       args.add(like(filters.mediaBuyer()));
     }
-    if (StringUtils.hasText(filters.product()) && hasColumn(table, "product_reference")) {
+    if (StringUtils.hasText(filters.product()) && schema.hasColumn("product_reference")) {
       where.append(" and lower(product_reference) like ?");
       args.add(like(filters.product()));
     }
     return new SqlClause(where.toString(), args);
   }
 
-  private void appendDateRange(StringBuilder where, List<Object> args, String table, String column, LocalDate from, LocalDate to) {
-    if (!StringUtils.hasText(column) || !hasColumn(table, column)) {
+  /**
+   * Half-open range {@code [from, to + 1 day)} on the bare column, so the btree index on it can be used; date and
+   * timestamp columns compare with a date bound as its midnight. Columns holding dates as text still need the cast.
+   */
+  private void appendDateRange(StringBuilder where, List<Object> args, TableSchema schema, String column,
+                               boolean rollup, LocalDate from, LocalDate to) {
+    if (!StringUtils.hasText(column) || !schema.hasColumn(column)) {
       return;
     }
+    String day = rollup ? "day" : isTemporal(schema, column) ? column : column + "::date";
     if (from != null) {
-      where.append(" and ").append(column).append("::date >= ?");
+      where.append(" and ").append(day).append(" >= ?");
       args.add(from);
     }
     if (to != null) {
-      where.append(" and ").append(column).append("::date <= ?");
-      args.add(to);
+      where.append(" and ").append(day).append(" < ?");
+      args.add(to.plusDays(1));
     }
   }
 
-  private long countStatuses(String table, SqlClause base, List<String> statuses) {
-    if (statuses == null || statuses.isEmpty()) {
-      return 0L;
-    }
-    String placeholders = String.join(", ", statuses.stream().map(s -> "?").toList());
-    String sql = "select count(*) from " + table + base.where() + " and lower(status) in (" + placeholders + ")";
-    List<Object> args = new ArrayList<>(base.args());
-    statuses.stream()
-        .map(status -> status == null ? "" : status.toLowerCase(Locale.ROOT))
-        .forEach(args::add);
-    return queryForLong(sql, args);
+  private boolean isTemporal(TableSchema schema, String column) {
+    return schema.column(column)
+        .map(definition -> definition.dataType() == null ? "" : definition.dataType().toLowerCase(Locale.ROOT))
+        .map(type -> type.equals("date") || type.startsWith("timestamp"))
+        .orElse(false);
   }
 
-  private BigDecimal sumStatusColumn(String table, SqlClause base, String column, List<String> statuses) {
-    if (!StringUtils.hasText(column)
-        || !hasColumn(table, column)
-        || !hasColumn(table, "status")
-        || statuses == null
-        || statuses.isEmpty()) {
-      return BigDecimal.ZERO;
-    }
-    String placeholders = String.join(", ", statuses.stream().map(s -> "?").toList());
-    String sql = "select coalesce(sum(" + column + "), 0) from " + table + base.where() + " and lower(status) in (" + placeholders + ")";
-    List<Object> args = new ArrayList<>(base.args());
+  /**
+   * {@code lower(status) in (...)} with the statuses appended to {@code args}.
+   */
+  private String statusIn(List<String> statuses, List<Object> args) {
     statuses.stream()
         .map(status -> status == null ? "" : status.toLowerCase(Locale.ROOT))
         .forEach(args::add);
-    return queryForBigDecimal(sql, args);
+    return "lower(status) in (" + String.join(", ", statuses.stream().map(s -> "?").toList()) + ")";
   }
 
-  private BigDecimal queryForBigDecimal(String sql, List<Object> args) {
-    try {
-      BigDecimal result = jdbcTemplate.queryForObject(sql, args.toArray(), BigDecimal.class);
-      return result == null ? BigDecimal.ZERO : result;
-    } catch (Exception ex) {
-      return BigDecimal.ZERO;
+  private String deliveredSum(TableSchema schema, String column, List<Object> args) {
+    if (!StringUtils.hasText(column) || !schema.hasColumn(column) || !schema.hasColumn("status")) {
+      return "0";
     }
+    return "coalesce(sum(" + column + ") filter (where " + statusIn(DELIVERED_STATUSES, args) + "), 0)";
   }
 
-  private long queryForLong(String sql, List<Object> args) {
-    try {
-      Long result = jdbcTemplate.queryForObject(sql, args.toArray(), Long.class);
-      return result == null ? 0L : result;
-    } catch (Exception ex) {
-      return 0L;
-    }
+  private BigDecimal orZero(BigDecimal value) {
+    return value == null ? BigDecimal.ZERO : value;
   }
 
-  private Optional<String> tableForDomain(String domain) {
+  private Optional<TableSchema> schemaForDomain(String domain) {
     try {
-      return Optional.ofNullable(domainImportService.tableForDomain(domain));
+      TableSchema schema = schemaCache.get(domainImportService.tableForDomain(domain));
+      return schema.exists() ? Optional.of(schema) : Optional.empty();
     } catch (Exception ex) {
       return Optional.empty();
     }
   }
 
-  private boolean hasColumn(String table, String column) {
-    if (!StringUtils.hasText(table) || !StringUtils.hasText(column)) {
-      return false;
-    }
-    try {
-      Boolean exists = jdbcTemplate.queryForObject("""
-          select exists (
-            select 1 from information_schema.columns 
-            where table_schema = current_schema() and table_name = ? and column_name = ?
-          )
-          """, Boolean.class, table, column);
-      return Boolean.TRUE.equals(exists);
-    } catch (Exception ex) {
-      return false;
-    }
-  }
-
-  private String firstExistingColumn(String table, String... candidates) {
-    if (candidates == null || candidates.length == 0) {
-      return null;
-    }
-    return Arrays.stream(candidates)
-        .filter(StringUtils::hasText)
-        .map(name -> name.trim().toLowerCase(Locale.ROOT))
-        .filter(name -> hasColumn(table, name))
+  private String resolveCostOfGoodsColumn(TableSchema schema) {
+    return Arrays.stream(new String[]{"cost_of_goods", "cost_product", "product_cost", "cogs", "cost_goods"})
+        .filter(schema::hasColumn)
         .findFirst()
         .orElse(null);
   }
 
-  private String resolveCostOfGoodsColumn(String table) {
-    return firstExistingColumn(table, "cost_of_goods", "cost_product", "product_cost", "cogs", "cost_goods");
-  }
-
   private String like(String value) {
     return "%" + value.trim().toLowerCase(Locale.ROOT) + "%";
   }
@@ -252,4 +378,10 @@ public class DashboardMetricsService {
       return new OrderMetrics(0L, 0L, 0L, BigDecimal.ZERO, BigDecimal.ZERO);
     }
   }
+
+  private record AdMetrics(BigDecimal adSpend, BigDecimal totalCpl) {
+    public static AdMetrics empty() {
+      return new AdMetrics(BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+  }
 }
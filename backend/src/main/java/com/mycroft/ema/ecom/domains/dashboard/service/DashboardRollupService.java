@@ -0,0 +1,345 @@
+package com.mycroft.ema.ecom.domains.dashboard.service;
+
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
+import com.mycroft.ema.ecom.domains.dashboard.config.DashboardRollupProperties;
+import com.mycroft.ema.ecom.domains.imports.service.DomainImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maintains daily rollups of the orders and ads tables for the dashboard. Row changes arrive as
+ * {@link DomainDataChangedEvent}s after their transaction commits and are folded in by recomputing only the days the
+ * changed rows belong to, or belonged to before the change; bulk changes rebuild the domain's rollup. A nightly full
+ * rebuild repairs drift from writes made outside the application.
+ *
+ * <p>Rollups live in shared tables and every instance folds in its own writes; rebuilds and refreshes of one domain
+ * are serialized across instances with an advisory lock.
+ */
+@Service
+public class DashboardRollupService {
+
+  private static final Logger log = LoggerFactory.getLogger(DashboardRollupService.class);
+  private static final int ID_BATCH = 500;
+
+  /**
+   * Grouping column of a rollup and the source column it is taken from.
+   */
+  private record Dimension(String name, String sourceColumn, boolean lowercase) {}
+
+  /**
+   * Aggregated column of a rollup: {@code count(*)} or the sum of the first existing source column.
+   */
+  private record Measure(String name, boolean count, List<String> sourceColumns) {}
+
+  /**
+   * Shape of one rollup: its table, the ledger of rolled-up rows and how each column is computed from the source.
+   */
+  record Rollup(String domain, String sourceTable, String table, String ledger, String dateColumn,
+                List<Dimension> dimensions, List<Measure> measures) {}
+
+  static final Rollup ORDERS = new Rollup("orders", "orders_config", "orders_daily_rollup", "orders_rollup_rows",
+      "created_at",
+      List.of(new Dimension("store_name", "store_name", false),
+          new Dimension("assigned_agent", "assigned_agent", false),
+          new Dimension("product", "product_summary", false),
+          new Dimension("status", "status", true)),
+      List.of(new Measure("order_count", true, List.of()),
+          new Measure("total_price", false, List.of("total_price")),
+          new Measure("cost_of_goods", false,
+              List.of("cost_of_goods", "cost_product", "product_cost", "cogs", "cost_goods"))));
+
+  static final Rollup ADS = new Rollup("ads", "ads_config", "ads_daily_rollup", "ads_rollup_rows", "spend_date",
+      List.of(new Dimension("media_buyer", "media_buyer", false),
+          new Dimension("product_reference", "product_reference", false),
+          new Dimension("platform", "platform", false)),
+      List.of(new Measure("row_count", true, List.of()),
+          new Measure("ad_spend", false, List.of("ad_spend")),
+          new Measure("cpl", false, List.of("cpl")),
+          new Measure("confirmed_orders", false, List.of("confirmed_orders"))));
+
+  private static final List<Rollup> ROLLUPS = List.of(ORDERS, ADS);
+
+  /**
+   * Changes not yet folded into a rollup.
+   */
+  private record Pending(boolean all, Set<UUID> rowIds) {
+    Pending merge(Pending other) {
+      if (all || other.all) {
+        return new Pending(true, Set.of());
+      }
+      Set<UUID> merged = new HashSet<>(rowIds);
+      merged.addAll(other.rowIds);
+      return new Pending(false, merged);
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TableSchemaCache schemaCache;
+  private final DomainImportService domainImportService;
+  private final DashboardRollupProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+  private final Set<String> ready = ConcurrentHashMap.newKeySet();
+
+  public DashboardRollupService(JdbcTemplate jdbcTemplate,
+                                TableSchemaCache schemaCache,
+                                DomainImportService domainImportService,
+                                DashboardRollupProperties properties,
+                                PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schemaCache = schemaCache;
+    this.domainImportService = domainImportService;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Loads which rollups were built earlier and queues a build of the others.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    if (!properties.enabled()) {
+      return;
+    }
+    ready.addAll(jdbcTemplate.queryForList("select domain from dashboard_rollup_state", String.class));
+    ROLLUPS.stream()
+        .filter(rollup -> !ready.contains(rollup.domain()))
+        .forEach(rollup -> enqueue(rollup, new Pending(true, Set.of())));
+  }
+
+  /**
+   * Runs before the KPI cache is cleared, so a dashboard read after the clear folds the change in first.
+   */
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDomainDataChanged(DomainDataChangedEvent event) {
+    if (!properties.enabled()) {
+      return;
+    }
+    rollupFor(event.domain()).ifPresent(rollup -> enqueue(rollup,
+        new Pending(event.allRows() || event.rowIds().isEmpty(), event.rowIds())));
+  }
+
+  /**
+   * Whether the dashboard can answer from the rollup of {@code sourceTable}. Pending row changes are folded in first;
+   * while a full rebuild is outstanding the caller should read the source table instead.
+   */
+  public boolean prepareForRead(String sourceTable) {
+    if (!properties.enabled()) {
+      return false;
+    }
+    Rollup rollup = ROLLUPS.stream().filter(r -> r.sourceTable().equals(sourceTable)).findFirst().orElse(null);
+    if (rollup == null || !ready.contains(rollup.domain())) {
+      return false;
+    }
+    Pending queued = pending.get(rollup.domain());
+    if (queued != null) {
+      if (queued.all()) {
+        return false;
+      }
+      flush(rollup);
+    }
+    return ready.contains(rollup.domain()) && !pending.containsKey(rollup.domain());
+  }
+
+  @Scheduled(fixedDelayString = "${app.dashboard.rollups.flush-interval:PT5S}")
+  public void flushPending() {
+    ROLLUPS.stream().filter(rollup -> pending.containsKey(rollup.domain())).forEach(this::flush);
+  }
+
+  @Scheduled(cron = "${app.dashboard.rollups.rebuild-cron:0 30 3 * * *}")
+  public void rebuildAll() {
+    if (!properties.enabled()) {
+      return;
+    }
+    ROLLUPS.forEach(rollup -> enqueue(rollup, new Pending(true, Set.of())));
+    flushPending();
+  }
+
+  /**
+   * Rebuilds the rollup of {@code domain} now, or of every domain when it is blank.
+   */
+  public void rebuild(String domain) {
+    if (!properties.enabled()) {
+      throw new IllegalArgumentException("Dashboard rollups are disabled");
+    }
+    if (domain == null || domain.isBlank()) {
+      rebuildAll();
+      return;
+    }
+    Rollup rollup = rollupFor(domain)
+        .orElseThrow(() -> new IllegalArgumentException("No dashboard rollup for domain: " + domain));
+    enqueue(rollup, new Pending(true, Set.of()));
+    flush(rollup);
+  }
+
+  private void enqueue(Rollup rollup, Pending change) {
+    pending.merge(rollup.domain(), change, Pending::merge);
+  }
+
+  private synchronized void flush(Rollup rollup) {
+    Pending work = pending.remove(rollup.domain());
+    if (work == null) {
+      return;
+    }
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        jdbcTemplate.queryForList("select pg_advisory_xact_lock(hashtext(?))", "dashboard_rollup:" + rollup.domain());
+        if (work.all()) {
+          rebuildRollup(rollup);
+        } else {
+          refreshRows(rollup, work.rowIds());
+        }
+      });
+      if (work.all()) {
+        ready.add(rollup.domain());
+      }
+    } catch (RuntimeException ex) {
+      // A partial refresh leaves the rollup unreliable until a full rebuild succeeds
+      log.warn("Failed to refresh the {} dashboard rollup; rebuilding it: {}", rollup.domain(), ex.getMessage());
+      ready.remove(rollup.domain());
+      enqueue(rollup, new Pending(true, Set.of()));
+    }
+  }
+
+  private void rebuildRollup(Rollup rollup) {
+    jdbcTemplate.update("delete from " + rollup.table());
+    jdbcTemplate.update("delete from " + rollup.ledger());
+    TableSchema source = schemaCache.get(rollup.sourceTable());
+    if (source.exists()) {
+      jdbcTemplate.update(aggregateInsert(rollup, source, ""));
+      if (source.hasColumn("id")) {
+        jdbcTemplate.update("insert into " + rollup.ledger() + " (id, day) select id, " + dayExpression(rollup, source)
+            + " from " + rollup.sourceTable());
+      }
+    }
+    jdbcTemplate.update("insert into dashboard_rollup_state (domain, built_at) values (?, now())"
+        + " on conflict (domain) do update set built_at = excluded.built_at", rollup.domain());
+    log.info("Rebuilt the {} dashboard rollup", rollup.domain());
+  }
+
+  /**
+   * Recomputes the days the given rows belonged to before and after their change.
+   */
+  private void refreshRows(Rollup rollup, Set<UUID> rowIds) {
+    TableSchema source = schemaCache.get(rollup.sourceTable());
+    if (!source.exists() || !source.hasColumn("id")) {
+      rebuildRollup(rollup);
+      return;
+    }
+    Set<LocalDate> days = new HashSet<>();
+    boolean[] undated = {false};
+    List<UUID> ids = new ArrayList<>(rowIds);
+    for (int from = 0; from < ids.size(); from += ID_BATCH) {
+      UUID[] chunk = ids.subList(from, Math.min(from + ID_BATCH, ids.size())).toArray(UUID[]::new);
+      collectDays(days, undated, "delete from " + rollup.ledger() + " where id = any(?) returning day", chunk);
+      collectDays(days, undated, "insert into " + rollup.ledger() + " (id, day) select id, "
+          + dayExpression(rollup, source) + " from " + rollup.sourceTable() + " where id = any(?) returning day", chunk);
+    }
+    if (!days.isEmpty()) {
+      Date[] dates = days.stream().map(Date::valueOf).toArray(Date[]::new);
+      jdbcTemplate.update(connection -> {
+        var ps = connection.prepareStatement("delete from " + rollup.table() + " where day = any(?)");
+        ps.setArray(1, connection.createArrayOf("date", dates));
+        return ps;
+      });
+      jdbcTemplate.update(connection -> {
+        var ps = connection.prepareStatement(aggregateInsert(rollup, source,
+            " where " + dayExpression(rollup, source) + " = any(?)"));
+        ps.setArray(1, connection.createArrayOf("date", dates));
+        return ps;
+      });
+    }
+    if (undated[0]) {
+      jdbcTemplate.update("delete from " + rollup.table() + " where day is null");
+      jdbcTemplate.update(aggregateInsert(rollup, source, " where " + dayExpression(rollup, source) + " is null"));
+    }
+  }
+
+  private void collectDays(Set<LocalDate> days, boolean[] undated, String sql, UUID[] ids) {
+    jdbcTemplate.query(connection -> {
+      var ps = connection.prepareStatement(sql);
+      ps.setArray(1, connection.createArrayOf("uuid", ids));
+      return ps;
+    }, rs -> {
+      Date day = rs.getDate(1);
+      if (day == null) {
+        undated[0] = true;
+      } else {
+        days.add(day.toLocalDate());
+      }
+    });
+  }
+
+  private String aggregateInsert(Rollup rollup, TableSchema source, String where) {
+    List<String> columns = Stream.concat(Stream.of("day"),
+        Stream.concat(rollup.dimensions().stream().map(Dimension::name), rollup.measures().stream().map(Measure::name)))
+        .toList();
+    List<String> dimensions = Stream.concat(Stream.of(dayExpression(rollup, source)),
+        rollup.dimensions().stream().map(dimension -> dimensionExpression(dimension, source))).toList();
+    List<String> measures = rollup.measures().stream().map(measure -> measureExpression(measure, source)).toList();
+    return "insert into " + rollup.table() + " (" + String.join(", ", columns) + ")"
+        + " select " + String.join(", ", dimensions) + ", " + String.join(", ", measures)
+        + " from " + rollup.sourceTable() + where
+        + " group by " + Stream.iterate(1, i -> i + 1).limit(dimensions.size()).map(String::valueOf)
+        .collect(Collectors.joining(", "));
+  }
+
+  private String dayExpression(Rollup rollup, TableSchema source) {
+    return source.hasColumn(rollup.dateColumn()) ? rollup.dateColumn() + "::date" : "null::date";
+  }
+
+  private String dimensionExpression(Dimension dimension, TableSchema source) {
+    if (!source.hasColumn(dimension.sourceColumn())) {
+      return "null::text";
+    }
+    return dimension.lowercase()
+        ? "lower(" + dimension.sourceColumn() + "::text)"
+        : dimension.sourceColumn() + "::text";
+  }
+
+  private String measureExpression(Measure measure, TableSchema source) {
+    if (measure.count()) {
+      return "count(*)";
+    }
+    return measure.sourceColumns().stream()
+        .filter(source::hasColumn)
+        .findFirst()
+        .map(column -> "coalesce(sum(" + column + "), 0)")
+        .orElse("0");
+  }
+
+  private Optional<Rollup> rollupFor(String domain) {
+    try {
+      String table = domainImportService.tableForDomain(domain);
+      return ROLLUPS.stream().filter(rollup -> rollup.sourceTable().equals(table)).findFirst();
+    } catch (IllegalArgumentException ex) {
+      return Optional.empty();
+    }
+  }
+}
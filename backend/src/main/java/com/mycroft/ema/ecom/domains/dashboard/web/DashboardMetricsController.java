@@ -2,12 +2,17 @@ package com.mycroft.ema.ecom.domains.dashboard.web;
 
 import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiFilters;
 import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiResponse;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiSeriesResponse;
+import com.mycroft.ema.ecom.domains.dashboard.dto.KpiSeriesGranularity;
 import com.mycroft.ema.ecom.domains.dashboard.service.DashboardMetricsService;
+import com.mycroft.ema.ecom.domains.dashboard.service.DashboardRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,9 +25,11 @@ import java.time.LocalDate;
 public class DashboardMetricsController {
 
   private final DashboardMetricsService metricsService;
+  private final DashboardRollupService rollupService;
 
-  public DashboardMetricsController(DashboardMetricsService metricsService) {
+  public DashboardMetricsController(DashboardMetricsService metricsService, DashboardRollupService rollupService) {
     this.metricsService = metricsService;
+    this.rollupService = rollupService;
   }
 
   @GetMapping("/kpis")
@@ -37,4 +44,27 @@ public class DashboardMetricsController {
   ) {
     return metricsService.loadKpis(new DashboardKpiFilters(fromDate, toDate, agent, mediaBuyer, product));
   }
+
+  @GetMapping("/kpis/series")
+  @PreAuthorize("hasAuthority('dashboard:view')")
+  @Operation(summary = "Calculate dashboard KPIs per day, week or month for trend charts")
+  public DashboardKpiSeriesResponse kpiSeries(
+      @RequestParam(required = false) String granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      @RequestParam(required = false) String agent,
+      @RequestParam(required = false) String mediaBuyer,
+      @RequestParam(required = false) String product
+  ) {
+    return metricsService.loadSeries(new DashboardKpiFilters(fromDate, toDate, agent, mediaBuyer, product),
+        KpiSeriesGranularity.resolve(granularity));
+  }
+
+  @PostMapping("/rollups/rebuild")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Rebuild the daily KPI rollups of one domain, or of all when none is given")
+  public ResponseEntity<Void> rebuildRollups(@RequestParam(required = false) String domain) {
+    rollupService.rebuild(domain);
+    return ResponseEntity.noContent().build();
+  }
 }
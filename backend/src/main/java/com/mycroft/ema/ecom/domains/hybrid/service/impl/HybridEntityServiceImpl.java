@@ -5,12 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycroft.ema.ecom.auth.domain.User;
 import com.mycroft.ema.ecom.auth.service.CurrentUserService;
 import com.mycroft.ema.ecom.common.error.BadRequestException;
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
 import com.mycroft.ema.ecom.common.error.NotFoundException;
 import com.mycroft.ema.ecom.common.files.MinioFileStorageService;
 import com.mycroft.ema.ecom.common.files.MinioImagePayload;
 import com.mycroft.ema.ecom.common.files.MinioProperties;
+import com.mycroft.ema.ecom.common.metadata.ColumnDefinition;
 import com.mycroft.ema.ecom.common.metadata.ColumnSemantics;
 import com.mycroft.ema.ecom.common.metadata.ColumnSemanticsService;
+import com.mycroft.ema.ecom.common.metadata.ColumnValueConverter;
+import com.mycroft.ema.ecom.common.metadata.ColumnValueConverters;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
 import com.mycroft.ema.ecom.domains.hybrid.dto.HybridCreateDto;
 import com.mycroft.ema.ecom.domains.hybrid.dto.HybridResponseDto;
 import com.mycroft.ema.ecom.domains.hybrid.dto.HybridUpdateDto;
@@ -21,6 +26,7 @@ import com.mycroft.ema.ecom.auth.service.PermissionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -40,7 +46,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.Locale;
@@ -64,6 +69,8 @@ public class HybridEntityServiceImpl implements HybridEntityService {
   private final MinioProperties minioProperties;
   private final CurrentUserService currentUserService;
   private final PermissionService permissionService;
+  private final TableSchemaCache schemaCache;
+  private final ApplicationEventPublisher eventPublisher;
 
   public HybridEntityServiceImpl(JdbcTemplate jdbc,
                                  DomainImportService domainImportService,
@@ -71,7 +78,9 @@ public class HybridEntityServiceImpl implements HybridEntityService {
                                  ObjectProvider<MinioFileStorageService> minioProvider,
                                  MinioProperties minioProperties,
                                  CurrentUserService currentUserService,
-                                 PermissionService permissionService) {
+                                 PermissionService permissionService,
+                                 TableSchemaCache schemaCache,
+                                 ApplicationEventPublisher eventPublisher) {
     this.jdbc = jdbc;
     this.domainImportService = domainImportService;
     this.semanticsService = semanticsService;
@@ -79,6 +88,8 @@ public class HybridEntityServiceImpl implements HybridEntityService {
     this.minioProperties = minioProperties;
     this.currentUserService = currentUserService;
     this.permissionService = permissionService;
+    this.schemaCache = schemaCache;
+    this.eventPublisher = eventPublisher;
   }
 
   @Override
@@ -192,6 +203,7 @@ public class HybridEntityServiceImpl implements HybridEntityService {
       String sql = "insert into " + table + " (" + columns + ") values (" + placeholders + ") returning id";
       id = jdbc.queryForObject(sql, vals.toArray(), UUID.class);
     }
+    eventPublisher.publishEvent(DomainDataChangedEvent.row(entityType, id));
     return get(entityType, id);
   }
 
@@ -238,6 +250,7 @@ public class HybridEntityServiceImpl implements HybridEntityService {
       String sql = "update " + table + " set " + String.join(", ", sets) + " where id = ?";
       vals.add(id);
       jdbc.update(sql, vals.toArray());
+      eventPublisher.publishEvent(DomainDataChangedEvent.row(entityType, id));
     }
     return get(entityType, id);
   }
@@ -250,6 +263,7 @@ public class HybridEntityServiceImpl implements HybridEntityService {
     if (updated == 0) {
       throw new NotFoundException("Entity not found");
     }
+    eventPublisher.publishEvent(DomainDataChangedEvent.row(entityType, id));
   }
 
   @Override
@@ -414,22 +428,11 @@ public class HybridEntityServiceImpl implements HybridEntityService {
             (first, second) -> first));
 
     Map<String, ColumnMeta> map = new HashMap<>();
-    jdbc.query(
-        """
-          select column_name, data_type
-          from information_schema.columns
-          where table_schema = current_schema()
-            and table_name = ?
-        """,
-        rs -> {
-          String name = rs.getString("column_name");
-          String type = rs.getString("data_type");
-          if (name != null) {
-            ColumnSemantics semantic = semantics.get(name.toLowerCase(Locale.ROOT));
-            map.put(name.toLowerCase(Locale.ROOT), new ColumnMeta(name, type, semantic));
-          }
-        },
-        table);
+    for (ColumnDefinition column : schemaCache.get(table).columns()) {
+      String key = column.name().toLowerCase(Locale.ROOT);
+      map.put(key, new ColumnMeta(column.name(), column.dataType(), semantics.get(key),
+          ColumnValueConverters.forDataType(column.dataType())));
+    }
     return map;
   }
 
@@ -469,6 +472,13 @@ public class HybridEntityServiceImpl implements HybridEntityService {
         String startValue = values.get(0);
         String endValue = values.size() > 1 ? values.get(1) : values.get(0);
         Optional<Object> start = parseDateValue(startValue, false);
+        Optional<LocalDate> endDay = parseDay(endValue);
+        if (start.isPresent() && endDay.isPresent()) {
+          // A plain end date covers that whole day: compare half-open against the next midnight
+          args.add(start.get());
+          args.add(Timestamp.valueOf(endDay.get().plusDays(1).atStartOfDay()));
+          return Optional.of(column + " >= ? and " + column + " < ?");
+        }
         Optional<Object> end = parseDateValue(endValue, true);
         if (start.isPresent() && end.isPresent()) {
           args.add(start.get());
@@ -488,6 +498,12 @@ public class HybridEntityServiceImpl implements HybridEntityService {
     }
 
     if (isDate && ("equals".equals(matchMode) || "on".equals(matchMode))) {
+      Optional<LocalDate> day = parseDay(criterion.value());
+      if (day.isPresent()) {
+        args.add(Timestamp.valueOf(day.get().atStartOfDay()));
+        args.add(Timestamp.valueOf(day.get().plusDays(1).atStartOfDay()));
+        return Optional.of(column + " >= ? and " + column + " < ?");
+      }
       Optional<Object> parsed = parseDateValue(criterion.value(), false);
       if (parsed.isPresent()) {
         args.add(parsed.get());
@@ -739,23 +755,14 @@ public class HybridEntityServiceImpl implements HybridEntityService {
 
   private Set<String> describeColumns(String table) {
     try {
-      return jdbc.queryForList(
-              """
-                  select column_name
-                  from information_schema.columns
-                  where table_schema = current_schema() and table_name = ?
-                  """,
-              String.class, table)
-          .stream()
-          .filter(Objects::nonNull)
-          .map(name -> name.trim().toLowerCase(Locale.ROOT))
-          .collect(Collectors.toSet());
+      return schemaCache.get(table).columnNames();
     } catch (Exception ex) {
       log.debug("Failed to describe columns for {}: {}", table, ex.getMessage());
       return Set.of();
     }
   }
 
+
   private void ensureAdsColumns(String table) {
     if (!StringUtils.hasText(table) || !tableExists(table)) {
       return;
@@ -765,6 +772,7 @@ public class HybridEntityServiceImpl implements HybridEntityService {
     if (!columns.contains("cpl")) {
       try {
         jdbc.execute("alter table " + table + " add column if not exists cpl numeric(12,2)");
+        schemaCache.invalidate(table);
       } catch (Exception ex) {
         log.warn("Failed to ensure CPL column on {}: {}", table, ex.getMessage());
       }
@@ -776,8 +784,12 @@ public class HybridEntityServiceImpl implements HybridEntityService {
       return;
     }
     ensureOrdersPermissions();
+    if (describeColumns(table).contains("upsell")) {
+      return;
+    }
     try {
       jdbc.execute("alter table " + table + " add column if not exists upsell boolean");
+      schemaCache.invalidate(table);
     } catch (Exception ex) {
       log.warn("Failed to ensure upsell column on {}: {}", table, ex.getMessage());
     }
@@ -1036,6 +1048,17 @@ public class HybridEntityServiceImpl implements HybridEntityService {
     }
   }
 
+  private Optional<LocalDate> parseDay(String raw) {
+    if (!StringUtils.hasText(raw)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(LocalDate.parse(raw.trim(), DateTimeFormatter.ISO_LOCAL_DATE));
+    } catch (Exception ignored) {
+      return Optional.empty();
+    }
+  }
+
   private Optional<Object> parseDateValue(String raw, boolean endOfDay) {
     if (!StringUtils.hasText(raw)) {
       return Optional.empty();
@@ -1158,131 +1181,17 @@ public class HybridEntityServiceImpl implements HybridEntityService {
       return constrained.toJson(OBJECT_MAPPER);
     }
 
-    String dataType = meta.dataType() == null ? "" : meta.dataType().toLowerCase(Locale.ROOT);
-
     try {
-      if (dataType.contains("date")) {
-        java.sql.Date sqlDate = coerceToSqlDate(value);
-        if (sqlDate != null) {
-          return sqlDate;
-        }
-      }
-
-      if (dataType.contains("timestamp")) {
-        if (value instanceof Timestamp ts) return ts;
-        if (value instanceof Instant instant) return Timestamp.from(instant);
-        if (value instanceof LocalDateTime ldt) return Timestamp.valueOf(ldt);
-        if (value instanceof CharSequence cs) {
-          String text = cs.toString().trim();
-          if (text.isEmpty()) return null;
-          try {
-            return Timestamp.from(Instant.parse(text));
-          } catch (Exception ignored) {}
-          try {
-            return Timestamp.valueOf(LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-          } catch (Exception ignored) {}
-          String normalized = text.replace('T', ' ').replace("Z", "");
-          return Timestamp.valueOf(normalized);
-        }
-      }
-
-      if (dataType.contains("numeric") || dataType.contains("decimal")) {
-        if (value instanceof BigDecimal bd) return bd;
-        if (value instanceof Number number) {
-          return BigDecimal.valueOf(number.doubleValue());
-        }
-        if (value instanceof CharSequence cs) {
-          String text = cs.toString().trim();
-          if (text.isEmpty()) return null;
-          return new BigDecimal(text);
-        }
-      }
-
-      if (dataType.contains("json")) {
-        if (value instanceof CharSequence cs) {
-          String text = cs.toString().trim();
-          return text.isEmpty() ? null : text;
-        }
-        return OBJECT_MAPPER.writeValueAsString(value);
-      }
-
-      if (dataType.contains("bigint") || dataType.contains("int")) {
-        if (value instanceof Number number) {
-          return number.longValue();
-        }
-        if (value instanceof CharSequence cs) {
-          String text = cs.toString().trim();
-          if (text.isEmpty()) return null;
-          return Long.parseLong(text);
-        }
-      }
-    } catch (Exception ex) {
+      return meta.converter().convert(value);
+    } catch (IllegalArgumentException ex) {
       if (log.isDebugEnabled()) {
-        log.debug("Failed to coerce value '{}' for column '{}' ({}). Using raw value.", value, meta.name(), dataType, ex);
+        log.debug("Failed to coerce value '{}' for column '{}' ({}). Using raw value.", value, meta.name(), meta.dataType(), ex);
       }
     }
 
     return value;
   }
 
-  private java.sql.Date coerceToSqlDate(Object value) {
-    if (value == null) {
-      return null;
-    }
-    ZoneId zone = ZoneId.systemDefault();
-    try {
-      if (value instanceof java.sql.Date sqlDate) {
-        return sqlDate;
-      }
-      if (value instanceof Timestamp ts) {
-        return java.sql.Date.valueOf(ts.toInstant().atZone(zone).toLocalDate());
-      }
-      if (value instanceof LocalDate localDate) {
-        return java.sql.Date.valueOf(localDate);
-      }
-      if (value instanceof LocalDateTime ldt) {
-        return java.sql.Date.valueOf(ldt.toLocalDate());
-      }
-      if (value instanceof Instant instant) {
-        return java.sql.Date.valueOf(LocalDateTime.ofInstant(instant, zone).toLocalDate());
-      }
-      if (value instanceof java.util.Date utilDate) {
-        return java.sql.Date.valueOf(LocalDateTime.ofInstant(utilDate.toInstant(), zone).toLocalDate());
-      }
-      if (value instanceof CharSequence cs) {
-        String text = cs.toString().trim();
-        if (text.isEmpty()) {
-          return null;
-        }
-        try {
-          Instant instant = Instant.parse(text);
-          return java.sql.Date.valueOf(LocalDateTime.ofInstant(instant, zone).toLocalDate());
-        } catch (Exception ignored) {
-        }
-        try {
-          LocalDateTime ldt = LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-          return java.sql.Date.valueOf(ldt.toLocalDate());
-        } catch (Exception ignored) {
-        }
-        try {
-          LocalDate ld = LocalDate.parse(text, DateTimeFormatter.ISO_LOCAL_DATE);
-          return java.sql.Date.valueOf(ld);
-        } catch (Exception ignored) {
-        }
-        try {
-          LocalDate ld = LocalDate.parse(text);
-          return java.sql.Date.valueOf(ld);
-        } catch (Exception ignored) {
-        }
-      }
-    } catch (Exception ex) {
-      if (log.isDebugEnabled()) {
-        log.debug("Failed to coerce value '{}' to SQL date", value, ex);
-      }
-    }
-    return null;
-  }
-
   private String buildOrderByClause(String table, Pageable pageable, Map<String, ColumnMeta> columnLookup) {
     if (pageable == null || pageable.getSort().isUnsorted()) {
       return " order by id";
@@ -1327,7 +1236,7 @@ public class HybridEntityServiceImpl implements HybridEntityService {
   /**
    * Metadata holder describing the database column backing a dynamic attribute.
    */
-  private record ColumnMeta(String name, String dataType, ColumnSemantics semantics) {}
+  private record ColumnMeta(String name, String dataType, ColumnSemantics semantics, ColumnValueConverter converter) {}
 
   /**
    * Parsed representation of a client-provided filter parameter.
@@ -0,0 +1,45 @@
+package com.mycroft.ema.ecom.domains.imports.config;
+
+import com.mycroft.ema.ecom.integration.google.config.GoogleSheetsProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Declares the bounded executors used to run import work off the request thread and the import pipeline settings.
+ */
+@Configuration
+@EnableConfigurationProperties({TemplateImportProperties.class, ImportJobProperties.class, ImportUploadProperties.class})
+public class ImportExecutorConfig {
+
+  @Bean(name = "googleSheetImportExecutor")
+  public ThreadPoolTaskExecutor googleSheetImportExecutor(GoogleSheetsProperties properties) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(properties.importParallelism());
+    executor.setMaxPoolSize(properties.importParallelism());
+    executor.setQueueCapacity(properties.importParallelism() * 4);
+    executor.setThreadNamePrefix("sheet-import-");
+    // Saturation pushes work back onto the caller instead of failing the tab
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.initialize();
+    return executor;
+  }
+
+  @Bean(name = "importJobExecutor")
+  public ThreadPoolTaskExecutor importJobExecutor(ImportJobProperties properties) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(properties.parallelism());
+    executor.setMaxPoolSize(properties.parallelism());
+    executor.setQueueCapacity(properties.queueCapacity());
+    executor.setThreadNamePrefix("import-job-");
+    // A full queue rejects the submission so the client is told to retry instead of holding the request thread
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    executor.initialize();
+    return executor;
+  }
+}
@@ -0,0 +1,26 @@
+package com.mycroft.ema.ecom.domains.imports.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limits for background import jobs: jobs run at once, jobs waiting for a worker and warnings kept per job.
+ */
+@ConfigurationProperties(prefix = "app.import.jobs")
+public record ImportJobProperties(
+    @DefaultValue("2") int parallelism,
+    @DefaultValue("20") int queueCapacity,
+    @DefaultValue("100") int warningLimit
+) {
+  public ImportJobProperties {
+    if (parallelism < 1) {
+      throw new IllegalStateException("app.import.jobs.parallelism must be at least 1");
+    }
+    if (queueCapacity < 0) {
+      throw new IllegalStateException("app.import.jobs.queue-capacity must not be negative");
+    }
+    if (warningLimit < 0) {
+      throw new IllegalStateException("app.import.jobs.warning-limit must not be negative");
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.mycroft.ema.ecom.domains.imports.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for resumable import uploads: where partial files are kept, size limits and how long an unfinished or
+ * unclaimed upload is kept before it is purged. A blank directory uses a folder under the system temp directory.
+ */
+@ConfigurationProperties(prefix = "app.import.uploads")
+public record ImportUploadProperties(
+    @DefaultValue("") String directory,
+    @DefaultValue("2GB") DataSize maxFileSize,
+    @DefaultValue("64MB") DataSize maxChunkSize,
+    @DefaultValue("24h") Duration expiry
+) {
+  public ImportUploadProperties {
+    if (maxFileSize.toBytes() < 1) {
+      throw new IllegalStateException("app.import.uploads.max-file-size must be positive");
+    }
+    if (maxChunkSize.toBytes() < 1) {
+      throw new IllegalStateException("app.import.uploads.max-chunk-size must be positive");
+    }
+    if (expiry.isNegative() || expiry.isZero()) {
+      throw new IllegalStateException("app.import.uploads.expiry must be positive");
+    }
+  }
+
+  public Path resolvedDirectory() {
+    return directory == null || directory.isBlank()
+        ? Path.of(System.getProperty("java.io.tmpdir"), "ema-import-uploads")
+        : Path.of(directory);
+  }
+}
@@ -0,0 +1,53 @@
+package com.mycroft.ema.ecom.domains.imports.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tuning for the template import pipeline: rows written (and, outside a caller transaction, committed) per chunk,
+ * rows buffered between the parse, convert and write stages, the natural key used per domain by merge imports and
+ * how many issue messages an import reports before it only counts them.
+ */
+@ConfigurationProperties(prefix = "app.import")
+public record TemplateImportProperties(
+    @DefaultValue("5000") int chunkSize,
+    @DefaultValue("10000") int queueCapacity,
+    Map<String, String> mergeKeys,
+    @DefaultValue("100") int issueExamples
+) {
+  private static final String DEFAULT_MERGE_KEY = "id";
+
+  public TemplateImportProperties {
+    if (chunkSize < 1) {
+      throw new IllegalStateException("app.import.chunk-size must be at least 1");
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalStateException("app.import.queue-capacity must be at least 1");
+    }
+    if (issueExamples < 0) {
+      throw new IllegalStateException("app.import.issue-examples must not be negative");
+    }
+    Map<String, String> keys = new HashMap<>();
+    if (mergeKeys != null) {
+      mergeKeys.forEach((domain, column) -> {
+        if (column == null || !column.trim().matches("[A-Za-z_][A-Za-z0-9_]*")) {
+          throw new IllegalStateException("app.import.merge-keys." + domain + " must be a column name");
+        }
+        keys.put(domain.trim().toLowerCase(Locale.ROOT), column.trim().toLowerCase(Locale.ROOT));
+      });
+    }
+    mergeKeys = Map.copyOf(keys);
+  }
+
+  /**
+   * Natural key column for merge imports into {@code domain}; {@code id} unless configured.
+   */
+  public String mergeKeyFor(String domain) {
+    String normalized = domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT);
+    return mergeKeys.getOrDefault(normalized, DEFAULT_MERGE_KEY);
+  }
+}
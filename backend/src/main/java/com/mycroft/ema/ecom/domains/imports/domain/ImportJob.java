@@ -0,0 +1,224 @@
+package com.mycroft.ema.ecom.domains.imports.domain;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Background import job tracking the lifecycle, row counters and outcome of a file or Google Sheet import.
+ */
+@Entity
+@Table(name = "import_jobs",
+    indexes = {
+        @Index(name = "idx_import_jobs_created_at", columnList = "created_at"),
+        @Index(name = "idx_import_jobs_domain_created_at", columnList = "domain, created_at")
+    })
+public class ImportJob {
+
+  /**
+   * Operation performed by a job.
+   */
+  public enum Kind { CONFIGURE, POPULATE, GOOGLE_CONNECT }
+
+  /**
+   * Lifecycle state of a job; {@link #DONE}, {@link #FAILED} and {@link #CANCELLED} are final.
+   */
+  public enum Status {
+    QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+    public boolean isFinal() {
+      return this == DONE || this == FAILED || this == CANCELLED;
+    }
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private UUID id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 32)
+  private Kind kind;
+
+  @Column(nullable = false, length = 50)
+  private String domain;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private Status status;
+
+  @Column(name = "source_name")
+  private String sourceName;
+
+  @Column(name = "requested_by", length = 100)
+  private String requestedBy;
+
+  @Column(name = "rows_read", nullable = false)
+  private long rowsRead;
+
+  @Column(name = "rows_written", nullable = false)
+  private long rowsWritten;
+
+  @Column(name = "rows_warned", nullable = false)
+  private long rowsWarned;
+
+  @Column(name = "warning_count", nullable = false)
+  private int warningCount;
+
+  @Column(columnDefinition = "text")
+  private String warnings;
+
+  @Column(name = "error_message", columnDefinition = "text")
+  private String errorMessage;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  @Column(name = "started_at")
+  private Instant startedAt;
+
+  @Column(name = "finished_at")
+  private Instant finishedAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  protected ImportJob() {
+  }
+
+  public ImportJob(Kind kind, String domain, String sourceName, String requestedBy) {
+    this.kind = kind;
+    this.domain = domain;
+    this.sourceName = sourceName;
+    this.requestedBy = requestedBy;
+    this.status = Status.QUEUED;
+  }
+
+  @PrePersist
+  public void onCreate() {
+    Instant now = Instant.now();
+    this.createdAt = now;
+    this.updatedAt = now;
+  }
+
+  @PreUpdate
+  public void onUpdate() {
+    this.updatedAt = Instant.now();
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public String getDomain() {
+    return domain;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public String getSourceName() {
+    return sourceName;
+  }
+
+  public String getRequestedBy() {
+    return requestedBy;
+  }
+
+  public long getRowsRead() {
+    return rowsRead;
+  }
+
+  public void setRowsRead(long rowsRead) {
+    this.rowsRead = rowsRead;
+  }
+
+  public long getRowsWritten() {
+    return rowsWritten;
+  }
+
+  public void setRowsWritten(long rowsWritten) {
+    this.rowsWritten = rowsWritten;
+  }
+
+  public long getRowsWarned() {
+    return rowsWarned;
+  }
+
+  public void setRowsWarned(long rowsWarned) {
+    this.rowsWarned = rowsWarned;
+  }
+
+  public int getWarningCount() {
+    return warningCount;
+  }
+
+  public void setWarningCount(int warningCount) {
+    this.warningCount = warningCount;
+  }
+
+  /**
+   * Retained warnings separated by new lines; at most the configured number of warnings is kept.
+   */
+  public String getWarnings() {
+    return warnings;
+  }
+
+  public void setWarnings(String warnings) {
+    this.warnings = warnings;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(Instant startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof ImportJob that)) return false;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+}
@@ -0,0 +1,150 @@
+package com.mycroft.ema.ecom.domains.imports.domain;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Resumable upload of a large import file. Chunks are written to a local file at their offsets; once every byte has
+ * arrived and the checksum matches, the upload can be claimed once by an import job.
+ */
+@Entity
+@Table(name = "import_uploads",
+    indexes = @Index(name = "idx_import_uploads_expires_at", columnList = "expires_at"))
+public class ImportUpload {
+
+  /**
+   * Lifecycle state of an upload.
+   */
+  public enum Status { UPLOADING, COMPLETE, CONSUMED }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private UUID id;
+
+  @Column(name = "file_name", nullable = false)
+  private String fileName;
+
+  @Column(name = "content_type")
+  private String contentType;
+
+  @Column(name = "total_size", nullable = false)
+  private long totalSize;
+
+  @Column(name = "received_bytes", nullable = false)
+  private long receivedBytes;
+
+  @Column(nullable = false, length = 64)
+  private String sha256;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private Status status;
+
+  @Column(name = "created_by", length = 100)
+  private String createdBy;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private Instant expiresAt;
+
+  protected ImportUpload() {
+  }
+
+  public ImportUpload(String fileName, String contentType, long totalSize, String sha256, String createdBy,
+                      Instant expiresAt) {
+    this.fileName = fileName;
+    this.contentType = contentType;
+    this.totalSize = totalSize;
+    this.sha256 = sha256;
+    this.createdBy = createdBy;
+    this.expiresAt = expiresAt;
+    this.status = Status.UPLOADING;
+  }
+
+  @PrePersist
+  public void onCreate() {
+    Instant now = Instant.now();
+    this.createdAt = now;
+    this.updatedAt = now;
+  }
+
+  @PreUpdate
+  public void onUpdate() {
+    this.updatedAt = Instant.now();
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public long getTotalSize() {
+    return totalSize;
+  }
+
+  public long getReceivedBytes() {
+    return receivedBytes;
+  }
+
+  public void setReceivedBytes(long receivedBytes) {
+    this.receivedBytes = receivedBytes;
+  }
+
+  /**
+   * Expected SHA-256 of the whole file as lower-case hex.
+   */
+  public String getSha256() {
+    return sha256;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof ImportUpload that)) return false;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+}
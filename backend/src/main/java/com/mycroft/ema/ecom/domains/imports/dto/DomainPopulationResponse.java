@@ -12,7 +12,14 @@ public class DomainPopulationResponse {
   private String tableName;
   private long rowsInserted;
   private boolean replacedExistingRows;
+  private PopulationMode mode;
+  private String mergeKey;
+  private long rowsUpdated;
+  private long rowsUnchanged;
+  private long rowsSkipped;
   private List<String> warnings;
+  private List<ImportIssueSummary> issues = new ArrayList<>();
+  private long omittedWarnings;
 
   public DomainPopulationResponse() {
   }
@@ -27,6 +34,24 @@ public class DomainPopulationResponse {
     this.rowsInserted = rowsInserted;
     this.replacedExistingRows = replacedExistingRows;
     this.warnings = warnings == null ? new ArrayList<>() : new ArrayList<>(warnings);
+    this.mode = replacedExistingRows ? PopulationMode.REPLACE : PopulationMode.APPEND;
+  }
+
+  /**
+   * Response for a merge population; {@code rowsInserted} holds only the rows whose key was new.
+   */
+  public static DomainPopulationResponse merged(String domain,
+                                                String tableName,
+                                                String mergeKey,
+                                                TemplateMergeResult result,
+                                                List<String> warnings) {
+    DomainPopulationResponse response = new DomainPopulationResponse(domain, tableName, result.inserted(), false, warnings);
+    response.setMode(PopulationMode.MERGE);
+    response.setMergeKey(mergeKey);
+    response.setRowsUpdated(result.updated());
+    response.setRowsUnchanged(result.unchanged());
+    response.setRowsSkipped(result.skipped());
+    return response;
   }
 
   public String getDomain() {
@@ -61,6 +86,46 @@ public class DomainPopulationResponse {
     this.replacedExistingRows = replacedExistingRows;
   }
 
+  public PopulationMode getMode() {
+    return mode;
+  }
+
+  public void setMode(PopulationMode mode) {
+    this.mode = mode;
+  }
+
+  public String getMergeKey() {
+    return mergeKey;
+  }
+
+  public void setMergeKey(String mergeKey) {
+    this.mergeKey = mergeKey;
+  }
+
+  public long getRowsUpdated() {
+    return rowsUpdated;
+  }
+
+  public void setRowsUpdated(long rowsUpdated) {
+    this.rowsUpdated = rowsUpdated;
+  }
+
+  public long getRowsUnchanged() {
+    return rowsUnchanged;
+  }
+
+  public void setRowsUnchanged(long rowsUnchanged) {
+    this.rowsUnchanged = rowsUnchanged;
+  }
+
+  public long getRowsSkipped() {
+    return rowsSkipped;
+  }
+
+  public void setRowsSkipped(long rowsSkipped) {
+    this.rowsSkipped = rowsSkipped;
+  }
+
   public List<String> getWarnings() {
     if (warnings == null) {
       warnings = new ArrayList<>();
@@ -71,4 +136,26 @@ public class DomainPopulationResponse {
   public void setWarnings(List<String> warnings) {
     this.warnings = warnings;
   }
+
+  /**
+   * Row-level issue counts per column and rule; {@link #getWarnings()} lists only the first of them.
+   */
+  public List<ImportIssueSummary> getIssues() {
+    return issues;
+  }
+
+  public void setIssues(List<ImportIssueSummary> issues) {
+    this.issues = issues;
+  }
+
+  /**
+   * Issues counted in {@link #getIssues()} but not listed in {@link #getWarnings()}.
+   */
+  public long getOmittedWarnings() {
+    return omittedWarnings;
+  }
+
+  public void setOmittedWarnings(long omittedWarnings) {
+    this.omittedWarnings = omittedWarnings;
+  }
 }
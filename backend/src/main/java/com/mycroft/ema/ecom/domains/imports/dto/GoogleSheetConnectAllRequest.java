@@ -0,0 +1,15 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+/**
+ * Request payload for connecting every store tab of a spreadsheet in one operation.
+ */
+public record GoogleSheetConnectAllRequest(
+    @NotBlank String domain,
+    String spreadsheetId,
+    String sheetUrl,
+    List<String> tabNames
+) {}
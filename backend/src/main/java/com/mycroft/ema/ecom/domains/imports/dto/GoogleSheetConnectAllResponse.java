@@ -0,0 +1,16 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import java.util.List;
+
+/**
+ * Summary of a multi-tab connection, listing the result of each tab in spreadsheet order.
+ */
+public record GoogleSheetConnectAllResponse(
+    String domain,
+    String tableName,
+    String spreadsheetId,
+    int imported,
+    int skipped,
+    int failed,
+    List<GoogleSheetTabImportResult> tabs
+) {}
@@ -0,0 +1,12 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+/**
+ * Server-sent progress notification emitted each time a tab of a multi-tab connection finishes.
+ */
+public record GoogleSheetImportProgress(
+    String domain,
+    String spreadsheetId,
+    int completedTabs,
+    int totalTabs,
+    GoogleSheetTabImportResult tab
+) {}
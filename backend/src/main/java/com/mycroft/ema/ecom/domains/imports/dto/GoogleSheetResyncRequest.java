@@ -0,0 +1,14 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Request payload for reconciling an already connected Google Sheet tab with its backing table.
+ */
+public record GoogleSheetResyncRequest(
+    @NotBlank String domain,
+    String spreadsheetId,
+    String sheetUrl,
+    @NotBlank String tabName
+) {
+}
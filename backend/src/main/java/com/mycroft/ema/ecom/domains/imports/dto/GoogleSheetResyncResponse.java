@@ -0,0 +1,20 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import java.util.List;
+
+/**
+ * Diff counts produced by a full Google Sheet resync; only inserted, updated and deleted rows were written.
+ */
+public record GoogleSheetResyncResponse(
+    String domain,
+    String tableName,
+    String tabName,
+    long rowsRead,
+    long inserted,
+    long updated,
+    long deleted,
+    long unchanged,
+    long skipped,
+    List<String> warnings
+) {
+}
@@ -0,0 +1,22 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+/**
+ * Outcome of importing a single sheet tab as part of a multi-tab connection.
+ */
+public record GoogleSheetTabImportResult(
+    String tabName,
+    Status status,
+    long rowsImported,
+    String message,
+    long durationMs
+) {
+
+  /**
+   * Terminal state of a tab import.
+   */
+  public enum Status {
+    IMPORTED,
+    SKIPPED,
+    FAILED
+  }
+}
@@ -0,0 +1,6 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+/**
+ * Number of import issues of one kind in one column, with the first message reported for it.
+ */
+public record ImportIssueSummary(String column, String rule, long count, String firstExample) {}
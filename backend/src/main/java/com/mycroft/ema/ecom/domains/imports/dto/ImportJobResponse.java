@@ -0,0 +1,57 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import com.mycroft.ema.ecom.domains.imports.domain.ImportJob;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Snapshot of a background import job returned by the job endpoints.
+ */
+public record ImportJobResponse(
+    UUID id,
+    ImportJob.Kind kind,
+    String domain,
+    ImportJob.Status status,
+    String sourceName,
+    String requestedBy,
+    long rowsRead,
+    long rowsWritten,
+    long rowsWarned,
+    int warningCount,
+    List<String> warnings,
+    String errorMessage,
+    Instant createdAt,
+    Instant startedAt,
+    Instant finishedAt,
+    Long durationMs
+) {
+  public static ImportJobResponse from(ImportJob job) {
+    List<String> warnings = job.getWarnings() == null || job.getWarnings().isEmpty()
+        ? List.of()
+        : List.of(job.getWarnings().split("\n"));
+    Long durationMs = job.getStartedAt() == null
+        ? null
+        : Duration.between(job.getStartedAt(), job.getFinishedAt() == null ? Instant.now() : job.getFinishedAt()).toMillis();
+    return new ImportJobResponse(
+        job.getId(),
+        job.getKind(),
+        job.getDomain(),
+        job.getStatus(),
+        job.getSourceName(),
+        job.getRequestedBy(),
+        job.getRowsRead(),
+        job.getRowsWritten(),
+        job.getRowsWarned(),
+        job.getWarningCount(),
+        warnings,
+        job.getErrorMessage(),
+        job.getCreatedAt(),
+        job.getStartedAt(),
+        job.getFinishedAt(),
+        durationMs
+    );
+  }
+}
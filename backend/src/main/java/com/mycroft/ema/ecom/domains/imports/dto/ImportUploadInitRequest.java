@@ -0,0 +1,16 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Request payload opening a resumable upload: the file's name, type, exact size in bytes and SHA-256 as hex.
+ */
+public record ImportUploadInitRequest(
+    @NotBlank String fileName,
+    String contentType,
+    @Positive long size,
+    @NotBlank @Pattern(regexp = "[0-9a-fA-F]{64}") String sha256
+) {
+}
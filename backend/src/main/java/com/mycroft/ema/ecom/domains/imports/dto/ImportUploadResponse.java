@@ -0,0 +1,33 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import com.mycroft.ema.ecom.domains.imports.domain.ImportUpload;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * State of a resumable upload; a client resumes by sending the next chunk at {@code receivedBytes}.
+ */
+public record ImportUploadResponse(
+    UUID id,
+    String fileName,
+    String contentType,
+    long size,
+    long receivedBytes,
+    ImportUpload.Status status,
+    Instant createdAt,
+    Instant expiresAt
+) {
+  public static ImportUploadResponse from(ImportUpload upload) {
+    return new ImportUploadResponse(
+        upload.getId(),
+        upload.getFileName(),
+        upload.getContentType(),
+        upload.getTotalSize(),
+        upload.getReceivedBytes(),
+        upload.getStatus(),
+        upload.getCreatedAt(),
+        upload.getExpiresAt()
+    );
+  }
+}
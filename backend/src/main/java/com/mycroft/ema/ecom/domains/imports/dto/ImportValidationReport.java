@@ -0,0 +1,21 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a dry-run import: how many rows would load cleanly, issue counts per column and rule, and the first
+ * issue messages. {@code warnings} holds file-level notes such as defaulted headers.
+ */
+public record ImportValidationReport(
+    String domain,
+    String tableName,
+    long rowsRead,
+    long rowsValid,
+    long rowsWithIssues,
+    long rowsSkipped,
+    long issueCount,
+    List<ImportIssueSummary> issues,
+    List<String> examples,
+    long omittedExamples,
+    List<String> warnings
+) {}
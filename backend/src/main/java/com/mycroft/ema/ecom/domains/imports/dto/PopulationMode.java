@@ -0,0 +1,29 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+import java.util.Locale;
+
+/**
+ * How a population upload is applied to the rows already in a domain table.
+ */
+public enum PopulationMode {
+  /** Add the uploaded rows to the existing ones. */
+  APPEND,
+  /** Delete every existing row, then add the uploaded rows. */
+  REPLACE,
+  /** Upsert the uploaded rows by the domain's natural key, leaving other rows alone. */
+  MERGE;
+
+  /**
+   * Resolves the {@code mode} request parameter, falling back to the legacy {@code replaceExisting} flag.
+   */
+  public static PopulationMode resolve(String mode, boolean replaceExisting) {
+    if (mode == null || mode.isBlank()) {
+      return replaceExisting ? REPLACE : APPEND;
+    }
+    try {
+      return valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unsupported population mode: " + mode + ". Use append, replace or merge");
+    }
+  }
+}
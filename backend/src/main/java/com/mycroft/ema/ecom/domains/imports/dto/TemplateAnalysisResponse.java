@@ -1,9 +1,12 @@
 package com.mycroft.ema.ecom.domains.imports.dto;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Result of analyzing an import template, including inferred schema, generated DDL and warnings.
+ * Result of analyzing an import template, including inferred schema, generated DDL and warnings. Once rows are
+ * loaded, {@code issues} counts the row-level problems per column and rule; {@code warnings} lists only the first of
+ * them and {@code omittedWarnings} how many more there were.
  */
 public class TemplateAnalysisResponse {
   private String tableName;
@@ -11,6 +14,8 @@ public class TemplateAnalysisResponse {
   private String createTableSql;
   private List<String> warnings;
   private boolean typeRowProvided;
+  private List<ImportIssueSummary> issues = new ArrayList<>();
+  private long omittedWarnings;
 
   public TemplateAnalysisResponse(){}
 
@@ -37,4 +42,8 @@ public class TemplateAnalysisResponse {
   public void setWarnings(List<String> warnings) { this.warnings = warnings; }
   public boolean isTypeRowProvided() { return typeRowProvided; }
   public void setTypeRowProvided(boolean typeRowProvided) { this.typeRowProvided = typeRowProvided; }
+  public List<ImportIssueSummary> getIssues() { return issues; }
+  public void setIssues(List<ImportIssueSummary> issues) { this.issues = issues; }
+  public long getOmittedWarnings() { return omittedWarnings; }
+  public void setOmittedWarnings(long omittedWarnings) { this.omittedWarnings = omittedWarnings; }
 }
@@ -0,0 +1,13 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+/**
+ * Server-sent progress notification emitted after each chunk of a template import is written.
+ */
+public record TemplateImportProgress(
+    String domain,
+    String table,
+    long rowsRead,
+    long rowsWritten,
+    long rowsWarned,
+    boolean completed
+) {}
@@ -0,0 +1,7 @@
+package com.mycroft.ema.ecom.domains.imports.dto;
+
+/**
+ * Row counts of a keyed merge import: new rows, rows whose values changed, rows already up to date and rows skipped
+ * for lacking a key.
+ */
+public record TemplateMergeResult(long inserted, long updated, long unchanged, long skipped) {}
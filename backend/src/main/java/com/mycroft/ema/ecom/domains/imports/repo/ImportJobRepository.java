@@ -0,0 +1,18 @@
+package com.mycroft.ema.ecom.domains.imports.repo;
+
+import com.mycroft.ema.ecom.domains.imports.domain.ImportJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for {@link ImportJob} history, newest first.
+ */
+public interface ImportJobRepository extends JpaRepository<ImportJob, UUID> {
+  List<ImportJob> findAllByOrderByCreatedAtDesc(Pageable pageable);
+  List<ImportJob> findAllByDomainOrderByCreatedAtDesc(String domain, Pageable pageable);
+  List<ImportJob> findAllByStatusIn(Collection<ImportJob.Status> statuses);
+}
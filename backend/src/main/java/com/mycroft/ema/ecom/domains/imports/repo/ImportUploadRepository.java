@@ -0,0 +1,30 @@
+package com.mycroft.ema.ecom.domains.imports.repo;
+
+import com.mycroft.ema.ecom.domains.imports.domain.ImportUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for resumable {@link ImportUpload} sessions.
+ */
+public interface ImportUploadRepository extends JpaRepository<ImportUpload, UUID> {
+  List<ImportUpload> findAllByExpiresAtBefore(Instant cutoff);
+
+  /**
+   * Moves an upload from {@code from} to {@code to} only if it is still in {@code from}.
+   *
+   * @return {@code 1} when this caller made the transition
+   */
+  @Modifying
+  @Query("update ImportUpload u set u.status = :to, u.updatedAt = :now where u.id = :id and u.status = :from")
+  int transition(@Param("id") UUID id,
+                 @Param("from") ImportUpload.Status from,
+                 @Param("to") ImportUpload.Status to,
+                 @Param("now") Instant now);
+}
@@ -0,0 +1,199 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams converted rows into a table. On PostgreSQL rows are written through {@code COPY ... FROM STDIN} in CSV
+ * format as they are produced; other databases receive batched multi-row {@code INSERT} statements. Runs on the
+ * caller's transactional connection.
+ */
+final class BulkRowLoader {
+
+  /**
+   * Produces rows for the loader; each row holds one JDBC value per target column.
+   */
+  @FunctionalInterface
+  interface RowSource {
+    void forEach(Consumer<Object[]> sink) throws Exception;
+  }
+
+  private static final int COPY_BUFFER_BYTES = 64 * 1024;
+  private static final int INSERT_BATCH_ROWS = 500;
+  private static final int MAX_BIND_PARAMETERS = 32_000;
+
+  private BulkRowLoader() {
+  }
+
+  static long load(JdbcTemplate jdbcTemplate, String table, List<String> columns, RowSource source) {
+    Long loaded = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+      if (connection.isWrapperFor(PGConnection.class)) {
+        return copy(connection.unwrap(PGConnection.class), table, columns, source);
+      }
+      return insert(connection, table, columns, source);
+    });
+    return loaded == null ? 0 : loaded;
+  }
+
+  private static long copy(PGConnection connection, String table, List<String> columns, RowSource source)
+      throws SQLException {
+    String sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+    CopyIn copyIn = connection.getCopyAPI().copyIn(sql);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_BYTES + 1024);
+    StringBuilder line = new StringBuilder(256);
+    try {
+      source.forEach(row -> {
+        line.setLength(0);
+        for (int i = 0; i < row.length; i++) {
+          if (i > 0) {
+            line.append(',');
+          }
+          appendCsv(line, row[i]);
+        }
+        line.append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+        if (buffer.size() >= COPY_BUFFER_BYTES) {
+          writeToCopy(copyIn, buffer);
+        }
+      });
+      writeToCopy(copyIn, buffer);
+      return copyIn.endCopy();
+    } catch (SqlFailure ex) {
+      cancel(copyIn);
+      throw ex.getCause();
+    } catch (RuntimeException | SQLException ex) {
+      cancel(copyIn);
+      throw ex;
+    } catch (Exception ex) {
+      cancel(copyIn);
+      throw new IllegalStateException(ex.getMessage(), ex);
+    }
+  }
+
+  private static void writeToCopy(CopyIn copyIn, ByteArrayOutputStream buffer) {
+    if (buffer.size() == 0) {
+      return;
+    }
+    try {
+      copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+    } catch (SQLException ex) {
+      throw new SqlFailure(ex);
+    }
+    buffer.reset();
+  }
+
+  private static void cancel(CopyIn copyIn) {
+    if (copyIn.isActive()) {
+      try {
+        copyIn.cancelCopy();
+      } catch (SQLException ignored) {
+        // the surrounding transaction is rolled back anyway
+      }
+    }
+  }
+
+  /**
+   * Appends {@code value} as a CSV field. Nulls are written as an unquoted empty field, which COPY reads as NULL;
+   * text is always quoted so empty strings stay distinct from NULL.
+   */
+  private static void appendCsv(StringBuilder out, Object value) {
+    if (value == null) {
+      return;
+    }
+    if (value instanceof Number number) {
+      out.append(number instanceof BigDecimal bd ? bd.toPlainString() : number.toString());
+      return;
+    }
+    if (value instanceof Boolean bool) {
+      out.append(bool ? 't' : 'f');
+      return;
+    }
+    String text = value instanceof PGobject pg ? pg.getValue() : value.toString();
+    if (text == null) {
+      return;
+    }
+    out.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"') {
+        out.append('"');
+      }
+      out.append(c);
+    }
+    out.append('"');
+  }
+
+  private static long insert(Connection connection, String table, List<String> columns, RowSource source)
+      throws SQLException {
+    int rowsPerStatement = Math.max(1, Math.min(INSERT_BATCH_ROWS, MAX_BIND_PARAMETERS / Math.max(1, columns.size())));
+    List<Object[]> pending = new ArrayList<>(rowsPerStatement);
+    long[] inserted = {0};
+    try {
+      source.forEach(row -> {
+        pending.add(row);
+        if (pending.size() >= rowsPerStatement) {
+          inserted[0] += flushInsert(connection, table, columns, pending);
+        }
+      });
+      inserted[0] += flushInsert(connection, table, columns, pending);
+      return inserted[0];
+    } catch (SqlFailure ex) {
+      throw ex.getCause();
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new IllegalStateException(ex.getMessage(), ex);
+    }
+  }
+
+  private static int flushInsert(Connection connection, String table, List<String> columns, List<Object[]> rows) {
+    if (rows.isEmpty()) {
+      return 0;
+    }
+    String group = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES "
+        + String.join(", ", Collections.nCopies(rows.size(), group));
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      int index = 1;
+      for (Object[] row : rows) {
+        for (int c = 0; c < columns.size(); c++) {
+          ps.setObject(index++, c < row.length ? row[c] : null);
+        }
+      }
+      int count = ps.executeUpdate();
+      rows.clear();
+      return count;
+    } catch (SQLException ex) {
+      throw new SqlFailure(ex);
+    }
+  }
+
+  /**
+   * Carries a {@link SQLException} out of the row callback so the connection callback can rethrow it for translation.
+   */
+  private static final class SqlFailure extends RuntimeException {
+    SqlFailure(SQLException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+      return (SQLException) super.getCause();
+    }
+  }
+}
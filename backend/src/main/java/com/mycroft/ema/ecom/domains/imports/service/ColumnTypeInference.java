@@ -0,0 +1,151 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Infers column types over every data row of an upload while it is being streamed. Each non-blank value is folded
+ * into its column's type with {@link #mergeTypes}, so a value that breaks the type late in the file is still seen.
+ * Sample values are drawn from a fixed-size reservoir per column so they represent the whole file rather than its
+ * first rows.
+ */
+final class ColumnTypeInference {
+
+  static final String UNKNOWN = "UNKNOWN";
+
+  private final int columns;
+  private final int reservoirSize;
+  private final String[] types;
+  private final boolean[] nullable;
+  private final String[][] reservoir;
+  private final long[] seen;
+  private final String[] widenedFrom;
+  private final String[] widenedValue;
+  private final int[] widenedRow;
+  // Fixed seed so analysing the same file twice shows the same samples
+  private final SplittableRandom random = new SplittableRandom(0x5eed);
+
+  ColumnTypeInference(int columns, int reservoirSize) {
+    this.columns = columns;
+    this.reservoirSize = Math.max(1, reservoirSize);
+    this.types = new String[columns];
+    this.nullable = new boolean[columns];
+    this.reservoir = new String[columns][];
+    this.seen = new long[columns];
+    this.widenedFrom = new String[columns];
+    this.widenedValue = new String[columns];
+    this.widenedRow = new int[columns];
+    Arrays.fill(types, UNKNOWN);
+  }
+
+  /**
+   * Folds one data row into the running state; {@code rowNumber} is only used in {@link #widening} messages.
+   */
+  void accept(int rowNumber, Object[] cells) {
+    for (int c = 0; c < columns; c++) {
+      Object value = c < cells.length ? cells[c] : null;
+      if (value == null || (value instanceof String s && s.isBlank())) {
+        nullable[c] = true;
+        continue;
+      }
+      String text = value.toString();
+      sample(c, text);
+      String current = types[c];
+      if ("STRING".equals(current)) {
+        continue; // top of the lattice; nothing can widen it further
+      }
+      String merged = mergeTypes(current, typeOf(value));
+      if ("STRING".equals(merged) && !UNKNOWN.equals(current)) {
+        widenedFrom[c] = current;
+        widenedValue[c] = text;
+        widenedRow[c] = rowNumber;
+      }
+      types[c] = merged;
+    }
+  }
+
+  /**
+   * @return the merged type of column {@code c}, or {@link #UNKNOWN} when it held no values
+   */
+  String type(int c) {
+    return types[c];
+  }
+
+  boolean nullable(int c) {
+    return nullable[c];
+  }
+
+  /**
+   * Returns a sampled value of column {@code c} that has the column's inferred type, falling back to any sampled
+   * value.
+   */
+  String sample(int c) {
+    String[] values = reservoir[c];
+    if (values == null) {
+      return null;
+    }
+    int filled = (int) Math.min(seen[c], reservoirSize);
+    for (int i = 0; i < filled; i++) {
+      if (types[c].equals(typeOf(values[i]))) {
+        return values[i];
+      }
+    }
+    return values[0];
+  }
+
+  /**
+   * Describes the value that widened column {@code c} to {@code STRING}, or {@code null} when it never narrowed.
+   */
+  String widening(int c) {
+    if (widenedFrom[c] == null) {
+      return null;
+    }
+    return "looked " + widenedFrom[c] + " until row " + widenedRow[c] + " ('" + widenedValue[c] + "')";
+  }
+
+  /**
+   * Algorithm R: keeps each of the {@code n} values seen so far with probability {@code reservoirSize / n}.
+   */
+  private void sample(int c, String value) {
+    long n = ++seen[c];
+    if (reservoir[c] == null) {
+      reservoir[c] = new String[reservoirSize];
+    }
+    if (n <= reservoirSize) {
+      reservoir[c][(int) n - 1] = value;
+      return;
+    }
+    long slot = random.nextLong(n);
+    if (slot < reservoirSize) {
+      reservoir[c][(int) slot] = value;
+    }
+  }
+
+  static String typeOf(Object val){
+    if(val instanceof Boolean) return "BOOLEAN";
+    if(val instanceof LocalDate) return "DATE";
+    if(val instanceof Long || val instanceof Integer) return "INTEGER";
+    if(val instanceof BigDecimal || val instanceof Double || val instanceof Float) return "DECIMAL";
+    // try to coerce string
+    if(val instanceof String s){
+      if(s.isBlank()) return "STRING";
+      try{ Long.parseLong(s); return "INTEGER"; }catch (Exception ignored){}
+      try{ new BigDecimal(s); return "DECIMAL"; }catch (Exception ignored){}
+      try{ LocalDate.parse(s); return "DATE"; }catch (Exception ignored){}
+      if("true".equalsIgnoreCase(s) || "false".equalsIgnoreCase(s)) return "BOOLEAN";
+      return "STRING";
+    }
+    return "STRING";
+  }
+
+  static String mergeTypes(String a, String b){
+    if(a == null || UNKNOWN.equals(a)) return b;
+    if(b == null || UNKNOWN.equals(b)) return a;
+    if(a.equals(b)) return a;
+    // if conflict, widen to STRING except DECIMAL+INTEGER -> DECIMAL, DATE+STRING -> STRING
+    if((a.equals("DECIMAL") && b.equals("INTEGER")) || (a.equals("INTEGER") && b.equals("DECIMAL"))) return "DECIMAL";
+    return "STRING";
+  }
+}
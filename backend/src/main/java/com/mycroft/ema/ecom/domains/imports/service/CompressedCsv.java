@@ -0,0 +1,132 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Gzip and zip compressed CSV uploads. Archives are detected from their leading bytes and decompressed as a stream
+ * straight into the CSV reader; nothing is expanded to disk or memory. Zip entries are read sequentially, so picking
+ * one entry inflates the entries stored before it.
+ */
+final class CompressedCsv {
+
+  /**
+   * Compression of an upload.
+   */
+  enum Format { NONE, GZIP, ZIP }
+
+  private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+  private CompressedCsv() {
+  }
+
+  /**
+   * Gzip is recognised from its magic bytes alone; a zip signature only counts when the upload is named or typed as a
+   * zip, since xlsx workbooks are zip files too.
+   */
+  static Format detect(MultipartFile file) {
+    try (InputStream in = file.getInputStream()) {
+      byte[] magic = in.readNBytes(4);
+      if (magic.length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+        return Format.GZIP;
+      }
+      boolean zipSignature = magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+      return zipSignature && isZipUpload(file) ? Format.ZIP : Format.NONE;
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to read the uploaded file: " + ex.getMessage(), ex);
+    }
+  }
+
+  private static boolean isZipUpload(MultipartFile file) {
+    String filename = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+    String contentType = file.getContentType() == null ? "" : file.getContentType().toLowerCase(Locale.ROOT);
+    return filename.endsWith(".zip") || contentType.equals("application/zip")
+        || contentType.equals("application/x-zip-compressed");
+  }
+
+  /**
+   * Whether the file name marks a compressed CSV ({@code .csv.gz}, {@code .gz} or {@code .zip}).
+   */
+  static boolean hasCompressedName(String filename) {
+    String lower = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+    return lower.endsWith(".gz") || lower.endsWith(".zip");
+  }
+
+  /**
+   * Names of the CSV entries of a zip upload in archive order, skipping folders and macOS metadata.
+   */
+  static List<String> csvEntries(MultipartFile file) {
+    List<String> names = new ArrayList<>();
+    try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(file.getInputStream(), READ_BUFFER_BYTES))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (isCsvEntry(entry)) {
+          names.add(entry.getName());
+        }
+      }
+    } catch (IOException ex) {
+      throw new IllegalArgumentException("The uploaded zip archive cannot be read: " + ex.getMessage(), ex);
+    }
+    return names;
+  }
+
+  /**
+   * File name of a zip entry without folders or the {@code .csv} extension, e.g. {@code orders} for
+   * {@code export/Orders.csv}.
+   */
+  static String baseName(String entryName) {
+    String name = entryName.substring(entryName.lastIndexOf('/') + 1);
+    int dot = name.lastIndexOf('.');
+    return (dot > 0 ? name.substring(0, dot) : name).trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Reads a gzip upload, or the named entry of a zip upload, as CSV.
+   */
+  static TabularSource source(MultipartFile file, Format format, String entryName) {
+    return callback -> {
+      try (InputStream in = open(file, format, entryName)) {
+        CsvRowReader.read(in, callback::onRow);
+      }
+    };
+  }
+
+  private static InputStream open(MultipartFile file, Format format, String entryName) throws IOException {
+    InputStream raw = file.getInputStream();
+    try {
+      if (format == Format.GZIP) {
+        return new GZIPInputStream(raw, READ_BUFFER_BYTES);
+      }
+      ZipInputStream zip = new ZipInputStream(new BufferedInputStream(raw, READ_BUFFER_BYTES));
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (isCsvEntry(entry) && entry.getName().equals(entryName)) {
+          return zip; // positioned at the entry's data; reads end at the entry's end
+        }
+      }
+      throw new IllegalArgumentException("The zip archive has no CSV entry named '" + entryName + "'");
+    } catch (IOException | RuntimeException ex) {
+      raw.close();
+      throw ex;
+    }
+  }
+
+  private static boolean isCsvEntry(ZipEntry entry) {
+    String name = entry.getName();
+    String file = name.substring(name.lastIndexOf('/') + 1);
+    return !entry.isDirectory()
+        && !name.startsWith("__MACOSX/")
+        && !file.startsWith(".")
+        && file.toLowerCase(Locale.ROOT).endsWith(".csv");
+  }
+}
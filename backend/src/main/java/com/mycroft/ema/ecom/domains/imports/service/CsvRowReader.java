@@ -0,0 +1,109 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the records of an uploaded CSV file in one pass. Follows RFC 4180, so quoted fields may contain
+ * delimiters, doubled quotes and line breaks. A UTF-8 byte order mark is skipped and the delimiter ({@code ,} or
+ * {@code ;}) is detected from the header record.
+ */
+final class CsvRowReader {
+
+  /**
+   * Receives each record in order; blank lines are skipped and do not count as records.
+   */
+  @FunctionalInterface
+  interface RowCallback {
+    /**
+     * @return {@code false} to stop reading
+     */
+    boolean onRow(int rowIndex, String[] cells) throws Exception;
+  }
+
+  private static final int READ_BUFFER_CHARS = 64 * 1024;
+  private static final int SNIFF_CHARS = 16 * 1024;
+
+  private CsvRowReader() {
+  }
+
+  static void read(MultipartFile file, RowCallback callback) throws Exception {
+    try (InputStream is = file.getInputStream()) {
+      read(is, callback);
+    }
+  }
+
+  static void read(InputStream input, RowCallback callback) throws Exception {
+    BufferedReader reader = new BufferedReader(
+        new InputStreamReader(skipBom(new BufferedInputStream(input)), StandardCharsets.UTF_8), READ_BUFFER_CHARS);
+    char delimiter = detectDelimiter(reader);
+    CSVFormat format = CSVFormat.RFC4180.builder()
+        .setDelimiter(delimiter)
+        .setIgnoreEmptyLines(true)
+        .build();
+    try (CSVParser parser = CSVParser.parse(reader, format)) {
+      int rowIndex = 0;
+      for (CSVRecord record : parser) {
+        if (!callback.onRow(rowIndex++, record.values())) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static InputStream skipBom(BufferedInputStream input) throws IOException {
+    input.mark(3);
+    if (input.read() == 0xEF && input.read() == 0xBB && input.read() == 0xBF) {
+      return input;
+    }
+    input.reset();
+    return input;
+  }
+
+  /**
+   * Picks {@code ;} when the first record has more unquoted semicolons than commas, otherwise {@code ,}.
+   */
+  static char detectDelimiter(Reader reader) throws IOException {
+    reader.mark(SNIFF_CHARS);
+    try {
+      int commas = 0;
+      int semicolons = 0;
+      boolean inQuotes = false;
+      boolean sawContent = false;
+      for (int i = 0; i < SNIFF_CHARS; i++) {
+        int ch = reader.read();
+        if (ch < 0) {
+          break;
+        }
+        if (ch == '"') {
+          inQuotes = !inQuotes;
+        } else if (!inQuotes) {
+          if (ch == ',') {
+            commas++;
+          } else if (ch == ';') {
+            semicolons++;
+          } else if (ch == '\n' || ch == '\r') {
+            if (sawContent) {
+              break;
+            }
+            continue;
+          }
+        }
+        sawContent = true;
+      }
+      return semicolons > commas ? ';' : ',';
+    } finally {
+      reader.reset();
+    }
+  }
+}
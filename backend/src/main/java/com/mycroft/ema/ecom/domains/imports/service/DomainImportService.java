@@ -3,24 +3,41 @@ package com.mycroft.ema.ecom.domains.imports.service;
 import com.mycroft.ema.ecom.auth.domain.Permission;
 import com.mycroft.ema.ecom.auth.repo.RoleRepository;
 import com.mycroft.ema.ecom.auth.service.PermissionService;
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
 import com.mycroft.ema.ecom.common.metadata.ColumnSemanticsService;
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
+import com.mycroft.ema.ecom.domains.imports.config.TemplateImportProperties;
 import com.mycroft.ema.ecom.domains.imports.dto.ColumnInfo;
 import com.mycroft.ema.ecom.domains.imports.dto.DomainPopulationResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportValidationReport;
+import com.mycroft.ema.ecom.domains.imports.dto.PopulationMode;
 import com.mycroft.ema.ecom.domains.imports.dto.TemplateAnalysisResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.TemplateImportProgress;
+import com.mycroft.ema.ecom.domains.imports.dto.TemplateMergeResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -35,85 +52,338 @@ public class DomainImportService {
   private final PermissionService permissionService;
   private final ColumnSemanticsService columnSemanticsService;
   private final RoleRepository roleRepository;
+  private final TableSchemaCache schemaCache;
+  private final HybridUpsertBroadcaster upsertBroadcaster;
+  private final TemplateImportProperties importProperties;
+  private final ShadowTableSwapper shadowTableSwapper;
+  private final ApplicationEventPublisher eventPublisher;
 
   public DomainImportService(ExcelTemplateService templateService, JdbcTemplate jdbcTemplate,
                              PermissionService permissionService,
                              ColumnSemanticsService columnSemanticsService,
-                             RoleRepository roleRepository) {
+                             RoleRepository roleRepository,
+                             TableSchemaCache schemaCache,
+                             HybridUpsertBroadcaster upsertBroadcaster,
+                             TemplateImportProperties importProperties,
+                             ShadowTableSwapper shadowTableSwapper,
+                             ApplicationEventPublisher eventPublisher) {
     this.templateService = templateService;
     this.jdbcTemplate = jdbcTemplate;
     this.permissionService = permissionService;
     this.columnSemanticsService = columnSemanticsService;
     this.roleRepository = roleRepository;
+    this.schemaCache = schemaCache;
+    this.upsertBroadcaster = upsertBroadcaster;
+    this.importProperties = importProperties;
+    this.shadowTableSwapper = shadowTableSwapper;
+    this.eventPublisher = eventPublisher;
   }
 
   public TemplateAnalysisResponse configureFromFile(String domain, MultipartFile file) {
-    if (file.isEmpty()) {
-      throw new IllegalArgumentException("Please upload a non-empty file");
-    }
-    String filename = file.getOriginalFilename();
-    if (filename == null || !(filename.toLowerCase().endsWith(".xlsx")
-        || filename.toLowerCase().endsWith(".xls")
-        || filename.toLowerCase().endsWith(".csv"))) {
-      throw new IllegalArgumentException("Unsupported file format. Please upload an Excel (.xlsx/.xls) or CSV (.csv) file");
-    }
+    return configureFromFile(domain, file, counters -> {});
+  }
+
+  /**
+   * Configures {@code domain} from a template and loads its rows, reporting import progress to {@code onProgress}
+   * after each written chunk.
+   */
+  public TemplateAnalysisResponse configureFromFile(String domain, MultipartFile file,
+                                                    Consumer<TemplateImportPipeline.Counters> onProgress) {
+    validateTemplateUpload(file);
+    return configureFromSource(domain, sourceFor(domain, file), onProgress);
+  }
 
+  /**
+   * Like {@link #configureFromFile(String, MultipartFile, Consumer)} for rows that are not an uploaded file, such as
+   * the values of a Google Sheet tab.
+   */
+  public TemplateAnalysisResponse configureFromSource(String domain, TabularSource source,
+                                                      Consumer<TemplateImportPipeline.Counters> onProgress) {
     String table = tableForDomain(domain);
-    TemplateAnalysisResponse analysis = templateService.analyzeTemplate(file, table);
+    TemplateAnalysisResponse analysis = templateService.analyzeTemplate(source, table);
     analysis.setColumns(appendSystemColumnDefinitions(domain, analysis.getColumns()));
     executeDdl(analysis.getCreateTableSql());
     ensureSystemColumns(domain, table);
     ensureDomainBasePermissions(domain);
-    templateService.populateData(file, analysis);
+    withProgress(domain, table, onProgress,
+        progress -> templateService.populateData(source, analysis, progress),
+        Integer::longValue);
     persistColumnSemantics(domain, table, analysis.getColumns());
     createColumnPermissions(domain, analysis);
+    ensureQueryIndexes(domain);
+    eventPublisher.publishEvent(DomainDataChangedEvent.all(domain));
     return analysis;
   }
 
   public DomainPopulationResponse populateFromCsv(String domain, MultipartFile file, boolean replaceExistingRows) {
-    String normalizedDomain = (domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT));
-    if (normalizedDomain.isEmpty()) {
-      throw new IllegalArgumentException("Domain is required");
-    }
+    return populateFromCsv(domain, file, replaceExistingRows, counters -> {});
+  }
+
+  public DomainPopulationResponse populateFromCsv(String domain, MultipartFile file, boolean replaceExistingRows,
+                                                  Consumer<TemplateImportPipeline.Counters> onProgress) {
+    PopulationMode mode = replaceExistingRows ? PopulationMode.REPLACE : PopulationMode.APPEND;
+    return populateFromCsv(domain, file, mode, null, onProgress);
+  }
+
+  /**
+   * Loads the rows of a CSV file into an already configured domain, reporting import progress to
+   * {@code onProgress} after each written chunk. In {@link PopulationMode#MERGE} rows are upserted by
+   * {@code mergeKey}, or by the domain's configured natural key when it is blank; only the columns present in the
+   * file are updated.
+   */
+  public DomainPopulationResponse populateFromCsv(String domain, MultipartFile file, PopulationMode mode,
+                                                  String mergeKey,
+                                                  Consumer<TemplateImportPipeline.Counters> onProgress) {
+    validatePopulationUpload(domain, file);
+    return populateFromSource(domain, sourceFor(domain, file), mode, mergeKey, onProgress);
+  }
+
+  /**
+   * Populates several domains from one zip archive. Each CSV entry is named after its domain ({@code orders.csv},
+   * {@code products.csv}, ...) and is streamed out of the archive into its table; entries load in archive order.
+   */
+  public List<DomainPopulationResponse> populateFromArchive(MultipartFile file, PopulationMode mode,
+                                                            Consumer<TemplateImportPipeline.Counters> onProgress) {
     if (file == null || file.isEmpty()) {
-      throw new IllegalArgumentException("Please upload a non-empty CSV file");
+      throw new IllegalArgumentException("Please upload a non-empty zip archive");
+    }
+    if (CompressedCsv.detect(file) != CompressedCsv.Format.ZIP) {
+      throw new IllegalArgumentException("Only zip archives of CSV files are supported here");
+    }
+    List<String> entries = CompressedCsv.csvEntries(file);
+    if (entries.isEmpty()) {
+      throw new IllegalArgumentException("The zip archive does not contain any CSV file");
+    }
+    Map<String, String> domainByEntry = new LinkedHashMap<>();
+    Set<String> tables = new HashSet<>();
+    for (String entry : entries) {
+      String table = tableForEntry(entry);
+      if (table == null) {
+        throw new IllegalArgumentException("Cannot tell which domain '" + entry
+            + "' belongs to; name each CSV file after its domain, e.g. orders.csv");
+      }
+      if (!tables.add(table)) {
+        throw new IllegalArgumentException("The zip archive holds more than one CSV file for the "
+            + canonicalDomain(table) + " domain");
+      }
+      domainByEntry.put(entry, canonicalDomain(table));
     }
-    String filename = Optional.ofNullable(file.getOriginalFilename()).orElse("");
-    String contentType = Optional.ofNullable(file.getContentType()).orElse("");
-    boolean isCsv = filename.toLowerCase(Locale.ROOT).endsWith(".csv")
-        || "text/csv".equalsIgnoreCase(contentType)
-        || "application/csv".equalsIgnoreCase(contentType);
-    if (!isCsv) {
-      throw new IllegalArgumentException("Only CSV files are supported when populating data");
+    List<DomainPopulationResponse> responses = new ArrayList<>(entries.size());
+    domainByEntry.forEach((entry, domain) -> responses.add(populateFromSource(domain,
+        CompressedCsv.source(file, CompressedCsv.Format.ZIP, entry), mode, null, onProgress)));
+    return responses;
+  }
+
+  /**
+   * Reads an upload as {@link TabularSource#of(MultipartFile)} does, except that a zip holding several CSV files
+   * yields the one named after {@code domain}.
+   */
+  private TabularSource sourceFor(String domain, MultipartFile file) {
+    if (CompressedCsv.detect(file) != CompressedCsv.Format.ZIP) {
+      return TabularSource.of(file);
+    }
+    List<String> entries = CompressedCsv.csvEntries(file);
+    if (entries.size() == 1) {
+      return CompressedCsv.source(file, CompressedCsv.Format.ZIP, entries.get(0));
+    }
+    String table = tableForDomain(domain);
+    List<String> matches = entries.stream().filter(entry -> table.equals(tableForEntry(entry))).toList();
+    if (matches.size() != 1) {
+      throw new IllegalArgumentException("The zip archive holds " + entries.size()
+          + " CSV files; include exactly one named after the " + canonicalDomain(table) + " domain, e.g. "
+          + canonicalDomain(table) + ".csv");
+    }
+    return CompressedCsv.source(file, CompressedCsv.Format.ZIP, matches.get(0));
+  }
+
+  private String tableForEntry(String entryName) {
+    try {
+      return tableForDomain(CompressedCsv.baseName(entryName));
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Like {@link #populateFromCsv(String, MultipartFile, PopulationMode, String, Consumer)} for rows that are not an
+   * uploaded file, such as the values of a Google Sheet tab.
+   */
+  public DomainPopulationResponse populateFromSource(String domain, TabularSource source, PopulationMode mode,
+                                                     String mergeKey,
+                                                     Consumer<TemplateImportPipeline.Counters> onProgress) {
+    PopulationPlan plan = planPopulation(domain, source, mode, mergeKey);
+    String normalizedDomain = plan.domain();
+    String table = plan.table();
+    TemplateAnalysisResponse analysis = plan.analysis();
+    List<String> fileColumns = plan.fileColumns();
+    if (mode == PopulationMode.MERGE) {
+      String key = plan.mergeKey();
+      List<String> updateColumns = fileColumns.stream()
+          .filter(column -> !column.equals(key) && !column.equals("id"))
+          .toList();
+      TemplateMergeResult result = withProgress(normalizedDomain, table, onProgress,
+          progress -> templateService.mergeData(source, analysis, key, updateColumns, progress),
+          merged -> merged.inserted() + merged.updated());
+      eventPublisher.publishEvent(DomainDataChangedEvent.all(normalizedDomain));
+      return withIssues(DomainPopulationResponse.merged(normalizedDomain, table, key, result, warningsOf(analysis)),
+          analysis);
+    }
+    int inserted;
+    String shadow = mode == PopulationMode.REPLACE ? shadowTableSwapper.createShadow(table) : null;
+    if (shadow != null) {
+      // Load a shadow copy and swap it in so readers never see a half-empty table
+      try {
+        inserted = withProgress(normalizedDomain, table, onProgress,
+            progress -> templateService.populateData(source, analysis, shadow, progress),
+            Integer::longValue);
+        shadowTableSwapper.swap(table, shadow);
+      } catch (RuntimeException ex) {
+        shadowTableSwapper.discard(shadow);
+        throw ex;
+      }
+      schemaCache.invalidate(table);
+    } else {
+      if (mode == PopulationMode.REPLACE) {
+        clearTable(table);
+      }
+      inserted = withProgress(normalizedDomain, table, onProgress,
+          progress -> templateService.populateData(source, analysis, progress),
+          Integer::longValue);
     }
+    eventPublisher.publishEvent(DomainDataChangedEvent.all(normalizedDomain));
+    return withIssues(new DomainPopulationResponse(
+        normalizedDomain,
+        table,
+        inserted,
+        mode == PopulationMode.REPLACE,
+        warningsOf(analysis)
+    ), analysis);
+  }
+
+  /**
+   * Dry run of {@link #populateFromCsv(String, MultipartFile, PopulationMode, String, Consumer)}: checks the file
+   * against the configured domain in one streaming pass and reports issue counts without writing anything.
+   */
+  public ImportValidationReport validatePopulation(String domain, MultipartFile file, PopulationMode mode,
+                                                   String mergeKey) {
+    validatePopulationUpload(domain, file);
+    return validatePopulationSource(domain, sourceFor(domain, file), mode, mergeKey);
+  }
+
+  public ImportValidationReport validatePopulationSource(String domain, TabularSource source, PopulationMode mode,
+                                                         String mergeKey) {
+    PopulationPlan plan = planPopulation(domain, source, mode, mergeKey);
+    return templateService.validateData(plan.domain(), source, plan.analysis());
+  }
+
+  /**
+   * Analysed file and target of a population, checked against the configured table.
+   */
+  private record PopulationPlan(String domain, String table, TemplateAnalysisResponse analysis,
+                                List<String> fileColumns, String mergeKey) {}
 
+  private PopulationPlan planPopulation(String domain, TabularSource source, PopulationMode mode, String mergeKey) {
+    String normalizedDomain = (domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT));
     String table = tableForDomain(domain);
     if (!tableExists(table)) {
       throw new IllegalStateException("The " + normalizedDomain + " component is not configured yet");
     }
 
-    TemplateAnalysisResponse analysis = templateService.analyzeTemplate(file, table);
+    TemplateAnalysisResponse analysis = templateService.analyzeHeader(source, table);
+    List<String> fileColumns = analysis.getColumns() == null
+        ? List.of()
+        : analysis.getColumns().stream().map(ColumnInfo::getName).toList();
     analysis.setColumns(appendSystemColumnDefinitions(domain, analysis.getColumns()));
     if (analysis.getColumns() == null || analysis.getColumns().isEmpty()) {
       throw new IllegalArgumentException("Unable to detect any columns in the uploaded CSV file");
     }
 
     validateColumnAlignment(table, analysis.getColumns());
-    if (replaceExistingRows) {
-      clearTable(table);
+    String key = null;
+    if (mode == PopulationMode.MERGE) {
+      key = mergeKey == null || mergeKey.isBlank()
+          ? importProperties.mergeKeyFor(canonicalDomain(table))
+          : mergeKey.trim().toLowerCase(Locale.ROOT);
+      if (!fileColumns.contains(key)) {
+        throw new IllegalArgumentException("The uploaded CSV has no '" + key + "' column to merge on");
+      }
     }
+    return new PopulationPlan(normalizedDomain, table, analysis, fileColumns, key);
+  }
 
-    int inserted = templateService.populateData(file, analysis);
-    List<String> warnings = analysis.getWarnings() == null
-        ? List.of()
-        : List.copyOf(analysis.getWarnings());
-    return new DomainPopulationResponse(
-        normalizedDomain,
-        table,
-        inserted,
-        replaceExistingRows,
-        warnings
-    );
+  private List<String> warningsOf(TemplateAnalysisResponse analysis) {
+    return analysis.getWarnings() == null ? List.of() : List.copyOf(analysis.getWarnings());
+  }
+
+  private DomainPopulationResponse withIssues(DomainPopulationResponse response, TemplateAnalysisResponse analysis) {
+    response.setIssues(analysis.getIssues() == null ? List.of() : analysis.getIssues());
+    response.setOmittedWarnings(analysis.getOmittedWarnings());
+    return response;
+  }
+
+  private String canonicalDomain(String table) {
+    return switch (table) {
+      case "product_config" -> "product";
+      case "orders_config" -> "orders";
+      case "ads_config" -> "ads";
+      default -> table;
+    };
+  }
+
+  /**
+   * Rejects uploads that {@link #configureFromFile} cannot read: empty files and anything other than xlsx, xls, csv
+   * or a gzip/zip compressed csv.
+   */
+  public void validateTemplateUpload(MultipartFile file) {
+    if (file == null || file.isEmpty()) {
+      throw new IllegalArgumentException("Please upload a non-empty file");
+    }
+    String filename = file.getOriginalFilename();
+    if (filename == null || !(filename.toLowerCase().endsWith(".xlsx")
+        || filename.toLowerCase().endsWith(".xls")
+        || filename.toLowerCase().endsWith(".csv")
+        || CompressedCsv.hasCompressedName(filename))) {
+      throw new IllegalArgumentException("Unsupported file format. Please upload an Excel (.xlsx/.xls), CSV (.csv) "
+          + "or compressed CSV (.csv.gz/.zip) file");
+    }
+  }
+
+  /**
+   * Rejects population requests without a domain or with an empty file that is neither CSV nor gzip/zip compressed.
+   */
+  public void validatePopulationUpload(String domain, MultipartFile file) {
+    if (domain == null || domain.isBlank()) {
+      throw new IllegalArgumentException("Domain is required");
+    }
+    if (file == null || file.isEmpty()) {
+      throw new IllegalArgumentException("Please upload a non-empty CSV file");
+    }
+    if (!TabularSource.isCsv(file) && CompressedCsv.detect(file) == CompressedCsv.Format.NONE) {
+      throw new IllegalArgumentException("Only CSV files are supported when populating data");
+    }
+  }
+
+  /**
+   * Runs {@code load} while relaying chunk progress to {@code onProgress} and the domain's SSE listeners, then
+   * broadcasts a final completed event with the row count given by {@code written}.
+   */
+  private <T> T withProgress(String domain, String table, Consumer<TemplateImportPipeline.Counters> onProgress,
+                             Function<Consumer<TemplateImportPipeline.Counters>, T> load,
+                             ToLongFunction<T> written) {
+    String progressDomain = domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT);
+    TemplateImportPipeline.Counters[] last = {null};
+    T result = load.apply(counters -> {
+      last[0] = counters;
+      onProgress.accept(counters);
+      upsertBroadcaster.broadcastImportProgress(progressDomain, new TemplateImportProgress(
+          progressDomain, table, counters.read(), counters.written(), counters.warned(), false));
+    });
+    long rows = written.applyAsLong(result);
+    long warned = last[0] == null ? 0 : last[0].warned();
+    long read = last[0] == null ? rows : last[0].read();
+    upsertBroadcaster.broadcastImportProgress(progressDomain,
+        new TemplateImportProgress(progressDomain, table, read, rows, warned, true));
+    return result;
   }
 
   public boolean ensureDefaultComponent(String domain, List<ColumnInfo> columns) {
@@ -149,6 +419,10 @@ public class DomainImportService {
     }
   }
 
+  public boolean isConfigured(String domain) {
+    return tableExists(tableForDomain(domain));
+  }
+
   public String tableForDomain(String domain){
     return switch ((domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT))){
       case "product", "products" -> "product_config";
@@ -172,6 +446,57 @@ public class DomainImportService {
     }
   }
 
+  /**
+   * Creates the indexes behind the dashboard and list filters: the order date and lower-cased status, and the ads
+   * spend date. Columns a custom template left out are skipped; failures are logged since the queries still work
+   * without the indexes.
+   *
+   * <p>The DDL runs on its own connection. Inside a caller transaction it waits for the commit: {@code CREATE INDEX}
+   * needs a SHARE lock that the caller's uncommitted writes to the table would block forever.
+   */
+  public void ensureQueryIndexes(String domain) {
+    String table;
+    try {
+      table = tableForDomain(domain);
+    } catch (IllegalArgumentException ex) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          createQueryIndexes(table);
+        }
+      });
+    } else {
+      createQueryIndexes(table);
+    }
+  }
+
+  private void createQueryIndexes(String table) {
+    schemaCache.invalidate(table);
+    TableSchema schema = schemaCache.get(table);
+    if (!schema.exists()) {
+      return;
+    }
+    Map<String, String> indexes = switch (table) {
+      case "orders_config" -> Map.of("created_at", "created_at", "status", "lower(status)");
+      case "ads_config" -> Map.of("spend_date", "spend_date");
+      default -> Map.of();
+    };
+    indexes.forEach((column, expression) -> {
+      if (!schema.hasColumn(column)) {
+        return;
+      }
+      String name = "ix_" + table + "_" + (expression.equals(column) ? column : column + "_lower");
+      try {
+        executeDdl("create index if not exists " + name + " on " + table + " (" + expression + ")");
+      } catch (RuntimeException ex) {
+        log.warn("Failed to create index {} on {}: {}", name, table, ex.getMessage());
+      }
+    });
+  }
+
   private void ensureDomainBasePermissions(String domain) {
     String normalized = (domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT));
     if (normalized.isEmpty()) {
@@ -234,6 +559,7 @@ public class DomainImportService {
       try (Statement stmt = conn.createStatement()) {
         stmt.execute(ddl);
       }
+      schemaCache.invalidateAll();
     } catch (DataAccessException ex) {
       throw new RuntimeException("Failed to create/update table: " + ex.getMessage(), ex);
     } catch (Exception ex) {
@@ -445,6 +771,7 @@ public class DomainImportService {
       try (Statement stmt = conn.createStatement()) {
         stmt.execute("alter table " + table + " add column if not exists " + columnName + " " + sqlType);
       }
+      schemaCache.invalidate(table);
     } catch (Exception ex) {
       log.warn("Failed to ensure column '{}' on table '{}': {}", columnName, table, ex.getMessage());
     }
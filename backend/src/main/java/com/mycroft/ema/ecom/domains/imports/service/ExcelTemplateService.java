@@ -1,8 +1,16 @@
 package com.mycroft.ema.ecom.domains.imports.service;
 
 import com.mycroft.ema.ecom.common.files.MinioProperties;
+import com.mycroft.ema.ecom.common.metadata.ColumnDefinition;
+import com.mycroft.ema.ecom.common.metadata.RowConverter;
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
+import com.mycroft.ema.ecom.domains.imports.config.TemplateImportProperties;
 import com.mycroft.ema.ecom.domains.imports.dto.ColumnInfo;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportValidationReport;
 import com.mycroft.ema.ecom.domains.imports.dto.TemplateAnalysisResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.TemplateMergeResult;
+import com.mycroft.ema.ecom.domains.imports.service.TemplateImportPipeline.ImportRow;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -10,22 +18,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
-import java.time.ZoneId;
-import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.format.DateTimeParseException;
 
 /**
  * Analyzes Excel and CSV templates to infer column definitions, generate DDL and populate component tables.
@@ -35,32 +33,19 @@ public class ExcelTemplateService {
 
   private static final int SAMPLE_ROWS = 100;
   private static final Pattern SNAKE_CASE_NON_ALNUM = Pattern.compile("[^a-z0-9_]");
-  private static final DateTimeFormatter FLEXIBLE_MDY_SLASH = new DateTimeFormatterBuilder()
-      .parseCaseInsensitive()
-      .parseLenient()
-      .appendPattern("M/d/uuuu HH:mm:ss")
-      .toFormatter(Locale.US);
-  private static final DateTimeFormatter FLEXIBLE_MDY_DASH = new DateTimeFormatterBuilder()
-      .parseCaseInsensitive()
-      .parseLenient()
-      .appendPattern("M-d-uuuu HH:mm:ss")
-      .toFormatter(Locale.US);
-  private static final DateTimeFormatter[] FLEXIBLE_DATE_TIME_FORMATS = new DateTimeFormatter[]{
-      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
-      DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"),
-      DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"),
-      DateTimeFormatter.ofPattern("dd-MM/yyyy HH:mm:ss"),
-      DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss"),
-      DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss"),
-      FLEXIBLE_MDY_SLASH,
-      FLEXIBLE_MDY_DASH
-  };
   private final JdbcTemplate jdbcTemplate;
   private final MinioProperties minioProperties;
+  private final TableSchemaCache schemaCache;
+  private final TemplateImportPipeline importPipeline;
+  private final TemplateImportProperties importProperties;
 
-  public ExcelTemplateService(JdbcTemplate jdbcTemplate, MinioProperties minioProperties) {
+  public ExcelTemplateService(JdbcTemplate jdbcTemplate, MinioProperties minioProperties, TableSchemaCache schemaCache,
+                              TemplateImportPipeline importPipeline, TemplateImportProperties importProperties) {
     this.jdbcTemplate = jdbcTemplate;
     this.minioProperties = minioProperties;
+    this.schemaCache = schemaCache;
+    this.importPipeline = importPipeline;
+    this.importProperties = importProperties;
   }
 
   private ColumnInfo createColumnInfo(String excelName, String normalizedName, String logicalType,
@@ -85,225 +70,55 @@ public class ExcelTemplateService {
     return new ColumnInfo(excelName, "id", "STRING", "UUID", false, sampleValue);
   }
 
-  private void collectCsvRows(MultipartFile file, List<ColumnInfo> columns, boolean typeRowProvided,
-                              List<Object[]> batch, List<String> warnings) {
-    try (InputStream is = file.getInputStream();
-         BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-      String line;
-      int rowIndex = 0;
-      while ((line = br.readLine()) != null) {
-        List<String> values = parseCsvLine(line);
-        if (rowIndex == 0) { // header
-          rowIndex++;
-          continue;
-        }
-        if (typeRowProvided && rowIndex == 1) { // types row
-          rowIndex++;
-          continue;
-        }
-        Object[] params = new Object[columns.size()];
-        boolean allBlank = true;
-        for (int c = 0; c < columns.size(); c++) {
-          String raw = values.size() > c ? values.get(c) : null;
-          ColumnInfo column = columns.get(c);
-          Object converted = convertCellValue(raw, column.getInferredType(), warnings,
-              column.getExcelName(), rowIndex + 1);
-          if (!isNullOrBlank(converted)) {
-            allBlank = false;
-          }
-          params[c] = converted;
+  private void collectRows(TabularSource source, int columnCount, boolean typeRowProvided, Consumer<ImportRow> emit) {
+    try {
+      int[] headerRow = {-1};
+      source.read((rowIndex, cells) -> {
+        if (headerRow[0] < 0) { // header
+          headerRow[0] = rowIndex;
+          return true;
         }
-        if (!allBlank) {
-          batch.add(params);
+        if (typeRowProvided && rowIndex == headerRow[0] + 1) { // types row
+          return true;
         }
-        rowIndex++;
-      }
+        Object[] raw = new Object[columnCount];
+        System.arraycopy(cells, 0, raw, 0, Math.min(cells.length, raw.length));
+        emit.accept(new ImportRow(rowIndex + 1, raw));
+        return true;
+      });
+    } catch (RuntimeException e) {
+      throw e;
     } catch (Exception e) {
-      throw new RuntimeException("Failed to read CSV content: " + e.getMessage(), e);
+      throw new RuntimeException("Failed to read file content: " + e.getMessage(), e);
     }
   }
 
-  private void collectExcelRows(MultipartFile file, List<ColumnInfo> columns, boolean typeRowProvided,
-                                List<Object[]> batch, List<String> warnings) {
-    try (InputStream is = file.getInputStream(); Workbook wb = WorkbookFactory.create(is)) {
-      Sheet sheet = wb.getNumberOfSheets() > 0 ? wb.getSheetAt(0) : null;
-      if (sheet == null) {
-        return;
-      }
-      int firstRow = sheet.getFirstRowNum();
-      int dataStart = firstRow + 1 + (typeRowProvided ? 1 : 0);
-      for (int r = dataStart; r <= sheet.getLastRowNum(); r++) {
-        Row row = sheet.getRow(r);
-        if (row == null) {
-          continue;
-        }
-        Object[] params = new Object[columns.size()];
-        boolean allBlank = true;
-        for (int c = 0; c < columns.size(); c++) {
-          ColumnInfo column = columns.get(c);
-          Cell cell = row.getCell(c);
-          Object raw = cell == null ? null : getCellValue(cell);
-          Object converted = convertCellValue(raw, column.getInferredType(), warnings,
-              column.getExcelName(), r + 1);
-          if (!isNullOrBlank(converted)) {
-            allBlank = false;
-          }
-          params[c] = converted;
-        }
-        if (!allBlank) {
-          batch.add(params);
-        }
+  private Object[] convertRow(ImportRow row, List<ColumnInfo> columns, RowConverter converter,
+                              ImportIssueCollector issues, TemplateImportPipeline.Counters counters) {
+    Object[] raw = row.values();
+    for (int c = 0; c < raw.length; c++) {
+      if (raw[c] instanceof String s) {
+        raw[c] = s.trim();
       }
-    } catch (Exception e) {
-      throw new RuntimeException("Failed to read Excel content: " + e.getMessage(), e);
     }
-  }
-
-  private Object convertCellValue(Object rawValue, String logicalType, List<String> warnings,
-                                  String columnName, int rowNumber) {
-    if (rawValue == null) {
-      return null;
-    }
-    Object value = rawValue;
-    if (value instanceof String s) {
-      String trimmed = s.trim();
-      if (trimmed.isEmpty()) {
-        return null;
+    boolean[] warned = {false};
+    Object[] params = converter.convertRow(raw, (index, value, error) -> {
+      ColumnInfo column = columns.get(index);
+      String type = column.getInferredType() == null ? "STRING" : column.getInferredType().toUpperCase(Locale.ROOT);
+      issues.record(column.getExcelName(), "INVALID_" + type, "Row " + row.rowNumber() + ", column '"
+          + column.getExcelName() + "': failed to convert value '" + value + "' to " + type + ". Stored as text.");
+      warned[0] = true;
+      return value.toString();
+    });
+    if (warned[0]) {
+      counters.markWarned();
+    }
+    for (Object value : params) {
+      if (!isNullOrBlank(value)) {
+        return params;
       }
-      value = trimmed;
-    }
-
-    String type = logicalType == null ? "STRING" : logicalType.toUpperCase(Locale.ROOT);
-    try {
-      return switch (type) {
-        case "INTEGER" -> toLong(value);
-        case "DECIMAL" -> toBigDecimal(value);
-        case "BOOLEAN" -> toBoolean(value);
-        case "DATE" -> convertToDate(value, columnName, rowNumber, warnings);
-        case "MINIO_IMAGE" -> value.toString();
-        default -> value instanceof String ? value : value.toString();
-      };
-    } catch (Exception ex) {
-      if (warnings != null) {
-        warnings.add("Row " + rowNumber + ", column '" + columnName + "': failed to convert value '" +
-            value + "' to " + type + ". Stored as text.");
-      }
-      return value instanceof String ? value : value.toString();
-    }
-  }
-
-  private Long toLong(Object value) {
-    if (value instanceof Number num) {
-      return num.longValue();
-    }
-    return Long.parseLong(value.toString());
-  }
-
-  private BigDecimal toBigDecimal(Object value) {
-    if (value instanceof BigDecimal bd) {
-      return bd;
-    }
-    if (value instanceof Number num) {
-      return new BigDecimal(num.toString());
     }
-    String str = value.toString().trim();
-    if (str.isEmpty()) {
-      return null;
-    }
-    // normalize localized decimal separators (e.g., "1,25" -> "1.25")
-    if (str.indexOf(',') >= 0 && str.indexOf('.') < 0) {
-      str = str.replace(',', '.');
-    }
-    // remove grouping spaces or non-breaking spaces
-    str = str.replace("\u00A0", "").replace(" ", "");
-    return new BigDecimal(str);
-  }
-
-  private Boolean toBoolean(Object value) {
-    if (value instanceof Boolean b) {
-      return b;
-    }
-    if (value instanceof Number num) {
-      return num.intValue() != 0;
-    }
-    String s = value.toString().trim().toLowerCase(Locale.ROOT);
-    if (s.isEmpty()) {
-      return null;
-    }
-    if (Set.of("true", "t", "yes", "y", "1").contains(s)) {
-      return Boolean.TRUE;
-    }
-    if (Set.of("false", "f", "no", "n", "0").contains(s)) {
-      return Boolean.FALSE;
-    }
-    return Boolean.parseBoolean(s);
-  }
-
-  private Object convertToDate(Object value, String columnName, int rowNumber, List<String> warnings) {
-    if (value instanceof LocalDateTime ldt) {
-      return ldt;
-    }
-    if (value instanceof LocalDate ld) {
-      return ld.atStartOfDay();
-    }
-    if (value instanceof Date date) {
-      return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
-    }
-    if (value instanceof Instant instant) {
-      return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-    }
-    if (value instanceof Number num) {
-      try {
-        Instant instant = Instant.ofEpochMilli(num.longValue());
-        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-      } catch (Exception ex) {
-        if (warnings != null) {
-          warnings.add("Row " + rowNumber + ", column '" + columnName + "': numeric date '" + value
-              + "' could not be converted. Stored as text.");
-        }
-        return value.toString();
-      }
-    }
-    String s = value.toString().trim();
-    if (s.isEmpty()) {
-      return null;
-    }
-    try {
-      return LocalDateTime.parse(s);
-    } catch (DateTimeParseException ignored) {}
-    try {
-      return OffsetDateTime.parse(s).toLocalDateTime();
-    } catch (DateTimeParseException ignored) {}
-    try {
-      return Instant.parse(s).atZone(ZoneId.systemDefault()).toLocalDateTime();
-    } catch (DateTimeParseException ignored) {}
-    try {
-      return LocalDate.parse(s).atStartOfDay();
-    } catch (DateTimeParseException ignored) {}
-    for (DateTimeFormatter formatter : FLEXIBLE_DATE_TIME_FORMATS) {
-      try {
-        return LocalDateTime.parse(s, formatter);
-      } catch (DateTimeParseException ignored) {}
-    }
-    try {
-      double numeric = Double.parseDouble(s);
-      return LocalDateTime.ofInstant(excelSerialToInstant(numeric), ZoneId.systemDefault());
-    } catch (NumberFormatException ignored) {}
-    if (warnings != null) {
-      warnings.add("Row " + rowNumber + ", column '" + columnName + "': unable to parse date value '" +
-          s + "'. Stored as text.");
-    }
-    return s;
-  }
-
-  private static Instant excelSerialToInstant(double serial) {
-    double adjusted = serial > 59 ? serial - 1 : serial;
-    LocalDate baseDate = LocalDate.of(1899, 12, 30);
-    int wholeDays = (int) Math.floor(adjusted);
-    double fractionalDay = adjusted - wholeDays;
-    long seconds = Math.round(fractionalDay * 24 * 60 * 60);
-    LocalDate date = baseDate.plusDays(wholeDays);
-    return date.atStartOfDay(ZoneId.systemDefault()).toInstant().plusSeconds(seconds);
+    return null;
   }
 
   private boolean isNullOrBlank(Object value) {
@@ -317,250 +132,129 @@ public class ExcelTemplateService {
   }
 
   public TemplateAnalysisResponse analyzeTemplate(MultipartFile file, String tableName) {
-    var warnings = new ArrayList<String>();
-    String filename = Optional.ofNullable(file.getOriginalFilename()).orElse("");
-    String contentType = Optional.ofNullable(file.getContentType()).orElse("");
-    boolean isCsv = filename.toLowerCase(Locale.ROOT).endsWith(".csv")
-        || "text/csv".equalsIgnoreCase(contentType)
-        || "application/csv".equalsIgnoreCase(contentType);
-
-    try {
-      if (isCsv) {
-        // CSV branch: parse first row as headers, optional second row as type markers
-        try (InputStream is = file.getInputStream();
-             BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-          List<List<String>> rows = readCsv(br, SAMPLE_ROWS + 2);
-          if (rows.isEmpty()) {
-            throw new IllegalArgumentException("The CSV file is empty");
-          }
-
-          // Headers
-          List<String> rawHeaders = rows.get(0);
-          List<String> headers = new ArrayList<>();
-          for (int c = 0; c < rawHeaders.size(); c++) {
-            String h = rawHeaders.get(c) == null ? null : rawHeaders.get(c).trim();
-            if (h == null || h.isBlank()) {
-              headers.add("col_" + c);
-              warnings.add("Empty header at column index " + c + ", using default name col_" + c);
-            } else {
-              headers.add(h);
-            }
-          }
+    return analyzeTemplate(TabularSource.of(file), tableName);
+  }
 
-          List<ColumnInfo> columns = new ArrayList<>();
-          Map<String, String> inferred = new LinkedHashMap<>();
-          Map<String, String> samples = new HashMap<>();
-          Map<String, Boolean> nullable = new HashMap<>();
-
-          // Optional types row
-          List<String> typesRow = rows.size() > 1 ? rows.get(1) : null;
-          boolean looksLikeTypes = typesRow != null && !typesRow.isEmpty();
-          List<String> providedTypes = new ArrayList<>();
-          if (looksLikeTypes) {
-            for (int c = 0; c < headers.size(); c++) {
-              String csvHeader = headers.get(c);
-              String csvNorm = normalize(csvHeader);
-              String v = (typesRow.size() > c) ? Optional.ofNullable(typesRow.get(c)).orElse("").trim() : "";
-              if ("id".equals(csvNorm)) {
-                v = "uuid"; // always treat id column as UUID marker
-              }
-              if (v.isBlank()) { 
-                looksLikeTypes = false; 
-                break; 
-              }
-              if (!isSupportedTypeMarker(v)) { 
-                warnings.add(getUnsupportedTypeErrorMessage(v, csvHeader, c));
-                looksLikeTypes = false; 
-                break; 
-              }
-              providedTypes.add(v);
-            }
-          }
+  /**
+   * Analyzes the rows of {@code source}: the first row holds headers and an optional second row type markers;
+   * without markers, types are inferred from every data row.
+   */
+  public TemplateAnalysisResponse analyzeTemplate(TabularSource source, String tableName) {
+    return analyze(source, tableName, true);
+  }
 
-          if (looksLikeTypes) {
-            for (int i = 0; i < headers.size(); i++) {
-              String headerName = headers.get(i);
-              String norm = normalize(headerName);
-              if ("id".equals(norm)) {
-                columns.add(createIdColumnInfo(headerName, null));
-                continue;
-              }
-              String marker = providedTypes.get(i);
-              String logical = logicalTypeFor(marker);
-              String sql = sqlTypeFor(logical);
-              columns.add(createColumnInfo(headerName, norm, logical, sql, true, null));
-            }
-            String normalizedTable = normalize(tableName);
-            String ddl = buildCreateTable(normalizedTable, columns);
-            return new TemplateAnalysisResponse(normalizedTable, columns, ddl, warnings, true);
-          }
+  /**
+   * Analyzes only the header and optional type-marker rows of {@code source} for loading into the existing
+   * {@code tableName}: columns without markers take their types from the table instead of being inferred, so the
+   * rest of the file is left for the load pass.
+   */
+  public TemplateAnalysisResponse analyzeHeader(TabularSource source, String tableName) {
+    return analyze(source, tableName, false);
+  }
 
-          // Inference from data rows
-          for (int i = 0; i < headers.size(); i++) {
-            inferred.put(headers.get(i), "UNKNOWN");
-            nullable.put(headers.get(i), Boolean.FALSE);
+  private TemplateAnalysisResponse analyze(TabularSource source, String tableName, boolean inferTypes) {
+    var warnings = new ArrayList<String>();
+    try {
+      Object[][] head = new Object[2][];
+      int[] headerRow = {-1};
+      int[] firstCell = {0};
+      ColumnTypeInference[] inference = {null};
+      source.read((rowIndex, cells) -> {
+        if (headerRow[0] < 0) {
+          headerRow[0] = rowIndex;
+          head[0] = cells;
+          while (firstCell[0] < cells.length && cells[firstCell[0]] == null) {
+            firstCell[0]++;
           }
-          int startData = 1; // row index after header (no types row)
-          int maxRow = Math.min(rows.size() - 1, SAMPLE_ROWS);
-          for (int r = startData; r <= maxRow; r++) {
-            List<String> row = rows.get(r);
-            if (row == null) continue;
-            for (int c = 0; c < headers.size(); c++) {
-              String head = headers.get(c);
-              String val = (row.size() > c) ? row.get(c) : null;
-              if (val == null || val.isBlank()) { nullable.put(head, Boolean.TRUE); continue; }
-              if (!samples.containsKey(head)) samples.put(head, val);
-              String cur = inferred.get(head);
-              String now = typeOf(val);
-              inferred.put(head, mergeTypes(cur, now));
-            }
+          if (inferTypes) {
+            inference[0] = new ColumnTypeInference(cells.length - firstCell[0], SAMPLE_ROWS);
           }
-
-          for (String h : headers) {
-            String norm = normalize(h);
-            if ("id".equals(norm)) {
-              columns.add(createIdColumnInfo(h, samples.get(h)));
-              continue;
-            }
-            String inferredType = inferred.getOrDefault(h, "UNKNOWN");
-            if ("UNKNOWN".equals(inferredType)) {
-              inferredType = "STRING";
-              warnings.add("Column '" + h + "' has unknown type; defaulting to STRING");
-            }
-            String sqlType = sqlTypeFor(inferredType);
-            boolean isNullable = nullable.getOrDefault(h, Boolean.TRUE);
-            columns.add(createColumnInfo(h, norm, inferredType, sqlType, isNullable, samples.get(h)));
-          }
-
-          String normalizedTable = normalize(tableName);
-          String ddl = buildCreateTable(normalizedTable, columns);
-          return new TemplateAnalysisResponse(normalizedTable, columns, ddl, warnings, false);
+          return true;
         }
-      } else {
-        // Excel branch (existing)
-        try (InputStream is = file.getInputStream()) {
-          Workbook wb = WorkbookFactory.create(is);
-          Sheet sheet = wb.getNumberOfSheets() > 0 ? wb.getSheetAt(0) : null;
-          if (sheet == null) {
-            throw new IllegalArgumentException("The Excel file has no sheets");
-          }
-          Row header = sheet.getRow(sheet.getFirstRowNum());
-          if (header == null) {
-            throw new IllegalArgumentException("The first row must contain headers");
+        if (rowIndex == headerRow[0] + 1) {
+          head[1] = cells;
+          if (!inferTypes || isTypeMarkerRow(head[0], firstCell[0], cells)) {
+            return false; // explicit types, nothing to infer
           }
+        }
+        inference[0].accept(rowIndex + 1, cells);
+        return true;
+      });
+      if (head[0] == null) {
+        throw new IllegalArgumentException("The uploaded file is empty");
+      }
+      Object[] header = head[0];
+      int firstHeaderCell = firstCell[0];
+      if (firstHeaderCell == header.length) {
+        throw new IllegalArgumentException("The first row must contain headers");
+      }
 
-          List<String> headers = new ArrayList<>();
-          for (int c = header.getFirstCellNum(); c < header.getLastCellNum(); c++) {
-            Cell cell = header.getCell(c);
-            String h = cell != null ? cell.toString().trim() : null;
-            if (h == null || h.isBlank()) {
-              headers.add("col_" + c);
-              warnings.add("Empty header at column index " + c + ", using default name col_" + c);
-            } else {
-              headers.add(h);
-            }
-          }
+      List<String> headers = new ArrayList<>();
+      for (int c = firstHeaderCell; c < header.length; c++) {
+        String h = header[c] != null ? header[c].toString().trim() : null;
+        if (h == null || h.isBlank()) {
+          headers.add("col_" + c);
+          warnings.add("Empty header at column index " + c + ", using default name col_" + c);
+        } else {
+          headers.add(h);
+        }
+      }
 
-          List<ColumnInfo> columns = new ArrayList<>();
-          Map<String, String> inferred = new LinkedHashMap<>();
-          Map<String, String> samples = new HashMap<>();
-          Map<String, Boolean> nullable = new HashMap<>();
-
-          int firstDataRow = sheet.getFirstRowNum() + 1;
-
-          // Detect explicit types row (required by new architecture): if row 1 looks like types
-          Row typesRow = sheet.getRow(firstDataRow);
-          if (typesRow != null) {
-            boolean looksLikeTypes2 = true;
-            List<String> providedTypes = new ArrayList<>();
-            for (int c = 0; c < headers.size(); c++) {
-              Cell cell = typesRow.getCell(c);
-              String excelHeader = headers.get(c);
-              String excelNorm = normalize(excelHeader);
-              String v = cell == null ? null : cell.toString().trim();
-              if ("id".equals(excelNorm)) {
-                v = "uuid";
-              }
-              if (v == null || v.isBlank()) { 
-                looksLikeTypes2 = false; 
-                break; 
-              }
-              providedTypes.add(v);
-              if (!isSupportedTypeMarker(v)) {
-                warnings.add(getUnsupportedTypeErrorMessage(v, excelHeader, c));
-                looksLikeTypes2 = false; // if any not supported, fall back to inference
-                break;
-              }
-            }
-            if (looksLikeTypes2) {
-              for (int i = 0; i < headers.size(); i++) {
-                String headerName = headers.get(i);
-                String norm = normalize(headerName);
-                if ("id".equals(norm)) {
-                  columns.add(createIdColumnInfo(headerName, null));
-                  continue;
-                }
-                String marker = providedTypes.get(i);
-                String logical = logicalTypeFor(marker);
-                String sql = sqlTypeFor(logical);
-                columns.add(createColumnInfo(headerName, norm, logical, sql, true, null));
-              }
-              String normalizedTable = normalize(tableName);
-              String ddl = buildCreateTable(normalizedTable, columns);
-              return new TemplateAnalysisResponse(normalizedTable, columns, ddl, warnings, true);
-            }
+      List<ColumnInfo> columns = new ArrayList<>();
+
+      // Detect explicit types row (required by new architecture): if row 1 looks like types
+      Object[] typesRow = head[1];
+      if (typesRow != null) {
+        boolean looksLikeTypes = true;
+        List<String> providedTypes = new ArrayList<>();
+        for (int c = 0; c < headers.size(); c++) {
+          Object cell = c < typesRow.length ? typesRow[c] : null;
+          String columnHeader = headers.get(c);
+          String norm = normalize(columnHeader);
+          String v = cell == null ? null : cell.toString().trim();
+          if ("id".equals(norm)) {
+            v = "uuid"; // always treat id column as UUID marker
           }
-
-          // Fallback: infer types from sample data rows (legacy behavior)
-          int lastRow = Math.min(sheet.getLastRowNum(), firstDataRow + SAMPLE_ROWS);
-          for (int i = 0; i < headers.size(); i++) {
-            inferred.put(headers.get(i), "UNKNOWN");
-            nullable.put(headers.get(i), Boolean.FALSE);
+          if (v == null || v.isBlank()) {
+            looksLikeTypes = false;
+            break;
           }
-
-          for (int r = firstDataRow; r <= lastRow; r++) {
-            Row row = sheet.getRow(r);
-            if (row == null) continue;
-            for (int c = 0; c < headers.size(); c++) {
-              Cell cell = row.getCell(c);
-              String head = headers.get(c);
-              if (cell == null || cell.getCellType() == CellType.BLANK) {
-                nullable.put(head, Boolean.TRUE);
-                continue;
-              }
-              Object val = getCellValue(cell);
-              if (val == null) {
-                nullable.put(head, Boolean.TRUE);
-                continue;
-              }
-              if (!samples.containsKey(head)) samples.put(head, val.toString());
-              String cur = inferred.get(head);
-              String now = typeOf(val);
-              inferred.put(head, mergeTypes(cur, now));
-            }
+          if (!isSupportedTypeMarker(v)) {
+            warnings.add(getUnsupportedTypeErrorMessage(v, columnHeader, c));
+            looksLikeTypes = false; // if any not supported, fall back to inference
+            break;
           }
-
-          for (String h : headers) {
-            String norm = normalize(h);
+          providedTypes.add(v);
+        }
+        if (looksLikeTypes) {
+          for (int i = 0; i < headers.size(); i++) {
+            String headerName = headers.get(i);
+            String norm = normalize(headerName);
             if ("id".equals(norm)) {
-              columns.add(createIdColumnInfo(h, samples.get(h)));
+              columns.add(createIdColumnInfo(headerName, null));
               continue;
             }
-            String inferredType = inferred.getOrDefault(h, "UNKNOWN");
-            if ("UNKNOWN".equals(inferredType)) {
-              inferredType = "STRING"; // fallback
-              warnings.add("Column '" + h + "' has unknown type; defaulting to STRING");
-            }
-            String sqlType = sqlTypeFor(inferredType);
-            boolean isNullable = nullable.getOrDefault(h, Boolean.TRUE);
-            columns.add(createColumnInfo(h, norm, inferredType, sqlType, isNullable, samples.get(h)));
+            String marker = providedTypes.get(i);
+            String logical = logicalTypeFor(marker);
+            String sql = sqlTypeFor(logical);
+            columns.add(createColumnInfo(headerName, norm, logical, sql, true, null));
           }
-
           String normalizedTable = normalize(tableName);
           String ddl = buildCreateTable(normalizedTable, columns);
-          return new TemplateAnalysisResponse(normalizedTable, columns, ddl, warnings, false);
+          return new TemplateAnalysisResponse(normalizedTable, columns, ddl, warnings, true);
         }
       }
+
+      // Fallback: infer types from every data row, or take them from the existing table
+      if (inferTypes) {
+        addInferredColumns(headers, inference[0], columns, warnings);
+      } else {
+        addExistingColumns(headers, tableName, columns);
+      }
+
+      String normalizedTable = normalize(tableName);
+      String ddl = buildCreateTable(normalizedTable, columns);
+      return new TemplateAnalysisResponse(normalizedTable, columns, ddl, warnings, false);
     } catch (IllegalArgumentException e) {
       // For known validation errors, pass through the message
       throw new RuntimeException("Template validation error: " + e.getMessage(), e);
@@ -571,8 +265,201 @@ public class ExcelTemplateService {
     }
   }
 
+  private void addInferredColumns(List<String> headers, ColumnTypeInference inference, List<ColumnInfo> columns,
+                                  List<String> warnings) {
+    for (int i = 0; i < headers.size(); i++) {
+      String h = headers.get(i);
+      String norm = normalize(h);
+      if ("id".equals(norm)) {
+        columns.add(createIdColumnInfo(h, inference.sample(i)));
+        continue;
+      }
+      String inferredType = inference.type(i);
+      if (ColumnTypeInference.UNKNOWN.equals(inferredType)) {
+        inferredType = "STRING"; // fallback
+        warnings.add("Column '" + h + "' has unknown type; defaulting to STRING");
+      } else if (inference.widening(i) != null) {
+        warnings.add("Column '" + h + "' " + inference.widening(i) + "; using STRING");
+      }
+      String sqlType = sqlTypeFor(inferredType);
+      columns.add(createColumnInfo(h, norm, inferredType, sqlType, inference.nullable(i), inference.sample(i)));
+    }
+  }
+
+  private void addExistingColumns(List<String> headers, String tableName, List<ColumnInfo> columns) {
+    TableSchema schema = schemaCache.get(normalize(tableName));
+    for (String h : headers) {
+      String norm = normalize(h);
+      if ("id".equals(norm)) {
+        columns.add(createIdColumnInfo(h, null));
+        continue;
+      }
+      Optional<ColumnDefinition> existing = schema.column(norm);
+      String logical = existing.map(column -> logicalTypeForDataType(column.dataType())).orElse("STRING");
+      boolean nullable = existing.map(ColumnDefinition::nullable).orElse(true);
+      columns.add(createColumnInfo(h, norm, logical, sqlTypeFor(logical), nullable, null));
+    }
+  }
+
+  private String logicalTypeForDataType(String dataType) {
+    String s = dataType == null ? "" : dataType.trim().toLowerCase(Locale.ROOT);
+    if (s.startsWith("timestamp") || s.equals("date")) return "DATE";
+    return switch (s) {
+      case "bigint", "integer", "smallint" -> "INTEGER";
+      case "numeric", "double precision", "real" -> "DECIMAL";
+      case "boolean" -> "BOOLEAN";
+      default -> "STRING";
+    };
+  }
+
+  /**
+   * Checks the row after the header for type markers without recording warnings, so analysis can stop reading
+   * early; the full check with warnings runs afterwards on the retained rows.
+   */
+  private boolean isTypeMarkerRow(Object[] header, int firstHeaderCell, Object[] row) {
+    for (int c = firstHeaderCell; c < header.length; c++) {
+      Object name = header[c];
+      if (name != null && "id".equals(normalize(name.toString().trim()))) {
+        continue;
+      }
+      int i = c - firstHeaderCell;
+      String v = i < row.length && row[i] != null ? row[i].toString().trim() : "";
+      if (v.isBlank() || !isSupportedTypeMarker(v)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public int populateData(MultipartFile file, TemplateAnalysisResponse analysis) {
-    if (file == null) {
+    return populateData(TabularSource.of(file), analysis, counters -> {});
+  }
+
+  /**
+   * Streams the rows of {@code source} into the analysed table through the import pipeline, reporting progress to
+   * {@code onProgress} after each written chunk.
+   */
+  public int populateData(TabularSource source, TemplateAnalysisResponse analysis,
+                          Consumer<TemplateImportPipeline.Counters> onProgress) {
+    return populateData(source, analysis, null, onProgress);
+  }
+
+  /**
+   * Like {@link #populateData(TabularSource, TemplateAnalysisResponse, Consumer)} but writes into
+   * {@code targetTable}, a table with the same columns as the analysed one such as a shadow copy being reloaded.
+   * A {@code null} target writes into the analysed table.
+   */
+  public int populateData(TabularSource source, TemplateAnalysisResponse analysis, String targetTable,
+                          Consumer<TemplateImportPipeline.Counters> onProgress) {
+    ImportPlan plan = planImport(source, analysis);
+    if (plan == null) {
+      return 0; // Nothing to insert
+    }
+    String target = targetTable == null ? plan.table() : targetTable;
+    boolean dedupeIds = plan.idIndex() >= 0 && "orders_config".equalsIgnoreCase(plan.table());
+    try {
+      long inserted = dedupeIds
+          ? importPipeline.runStaged(target, plan.columnNames(), plan.source(), plan.convert(), plan.sanitizeId(),
+              onProgress, staging -> mergeWithFreshIds(staging, target, plan.columnNames(), plan.issues()))
+          : importPipeline.run(target, plan.columnNames(), plan.source(), plan.convert(), plan.sanitizeId(),
+              onProgress);
+      return Math.toIntExact(inserted);
+    } catch (org.springframework.dao.DataAccessException e) {
+      throw insertFailure(plan.table(), e);
+    } finally {
+      plan.flushIssues(analysis);
+    }
+  }
+
+  /**
+   * Upserts the rows of {@code source} into the analysed table keyed by {@code keyColumn}. Rows whose key is new are
+   * inserted; existing rows get {@code updateColumns} rewritten only when at least one of them differs. Rows without
+   * a key are skipped and, when several rows share a key, the last one in the file wins. Rows are matched on the key
+   * by a join, so the key column needs no unique constraint.
+   */
+  public TemplateMergeResult mergeData(TabularSource source, TemplateAnalysisResponse analysis, String keyColumn,
+                                       List<String> updateColumns,
+                                       Consumer<TemplateImportPipeline.Counters> onProgress) {
+    ImportPlan plan = planImport(source, analysis);
+    if (plan == null) {
+      return new TemplateMergeResult(0, 0, 0, 0);
+    }
+    if (!plan.columnNames().contains(keyColumn)) {
+      throw new IllegalArgumentException("Merge key '" + keyColumn + "' is not a column of table " + plan.table());
+    }
+    try {
+      return importPipeline.runStaged(plan.table(), plan.columnNames(), plan.source(), plan.convert(), plan.sanitizeId(),
+          onProgress,
+          staging -> upsertFromStaging(staging, plan.table(), plan.columnNames(), keyColumn, updateColumns,
+              plan.issues()));
+    } catch (org.springframework.dao.DataAccessException e) {
+      throw insertFailure(plan.table(), e);
+    } finally {
+      plan.flushIssues(analysis);
+    }
+  }
+
+  /**
+   * Dry run of {@link #populateData}: reads and converts every row of {@code source} in one pass on the calling
+   * thread without writing anything, and reports what the import would flag. Checks that need the stored rows, such
+   * as duplicate ids or merge keys, are not covered.
+   */
+  public ImportValidationReport validateData(String domain, TabularSource source, TemplateAnalysisResponse analysis) {
+    List<String> fileWarnings = analysis == null || analysis.getWarnings() == null
+        ? List.of()
+        : List.copyOf(analysis.getWarnings());
+    ImportPlan plan = planImport(source, analysis);
+    if (plan == null) {
+      return new ImportValidationReport(domain, analysis.getTableName(), 0, 0, 0, 0, 0, List.of(), List.of(), 0,
+          fileWarnings);
+    }
+    TemplateImportPipeline.Counters counters = new TemplateImportPipeline.Counters();
+    long[] tally = new long[4]; // read, valid, with issues, skipped
+    try {
+      plan.source().read(row -> {
+        tally[0]++;
+        long warnedBefore = counters.warned();
+        Object[] values = plan.convert().convert(row, counters);
+        if (values == null) {
+          tally[3]++;
+          return;
+        }
+        plan.sanitizeId().convert(new ImportRow(row.rowNumber(), values), counters);
+        tally[counters.warned() > warnedBefore ? 2 : 1]++;
+      });
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to read file content: " + e.getMessage(), e);
+    }
+    ImportIssueCollector issues = plan.issues();
+    return new ImportValidationReport(domain, plan.table(), tally[0], tally[1], tally[2], tally[3], issues.total(),
+        issues.summaries(), issues.examples(), issues.omitted(), fileWarnings);
+  }
+
+  /**
+   * Stages shared by every way of loading an analysed file.
+   */
+  private record ImportPlan(String table,
+                            List<String> columnNames,
+                            int idIndex,
+                            TemplateImportPipeline.RowSource source,
+                            TemplateImportPipeline.RowStage convert,
+                            TemplateImportPipeline.RowStage sanitizeId,
+                            ImportIssueCollector issues) {
+
+    /**
+     * Lists the first issues as warnings and attaches the counts of all of them.
+     */
+    void flushIssues(TemplateAnalysisResponse analysis) {
+      analysis.getWarnings().addAll(issues.examples());
+      analysis.setIssues(issues.summaries());
+      analysis.setOmittedWarnings(issues.omitted());
+    }
+  }
+
+  private ImportPlan planImport(TabularSource source, TemplateAnalysisResponse analysis) {
+    if (source == null) {
       throw new IllegalArgumentException("File is required to populate data");
     }
     if (analysis == null) {
@@ -581,7 +468,7 @@ public class ExcelTemplateService {
 
     List<ColumnInfo> columns = Optional.ofNullable(analysis.getColumns()).orElse(Collections.emptyList());
     if (columns.isEmpty()) {
-      return 0; // Nothing to insert
+      return null;
     }
 
     String table = Optional.ofNullable(analysis.getTableName()).map(String::trim).orElse("");
@@ -589,80 +476,107 @@ public class ExcelTemplateService {
       throw new IllegalArgumentException("Resolved table name is empty; cannot populate data");
     }
 
-    List<String> warnings = analysis.getWarnings();
-    if (warnings == null) {
-      warnings = new ArrayList<>();
-      analysis.setWarnings(warnings);
+    if (analysis.getWarnings() == null) {
+      analysis.setWarnings(new ArrayList<>());
     }
 
-    String filename = Optional.ofNullable(file.getOriginalFilename()).orElse("");
-    String contentType = Optional.ofNullable(file.getContentType()).orElse("");
-    boolean isCsv = filename.toLowerCase(Locale.ROOT).endsWith(".csv")
-        || "text/csv".equalsIgnoreCase(contentType)
-        || "application/csv".equalsIgnoreCase(contentType);
+    List<String> columnNames = columns.stream().map(ColumnInfo::getName).collect(Collectors.toList());
+    RowConverter converter = schemaCache.get(table).newSession().rowConverter(columnNames);
+    int idIndex = findColumnIndex(columns, "id");
+    ImportIssueCollector issues = new ImportIssueCollector(importProperties.issueExamples());
+    boolean typeRowProvided = analysis.isTypeRowProvided();
+    TemplateImportPipeline.RowSource rows = emit -> collectRows(source, columns.size(), typeRowProvided, emit);
+    TemplateImportPipeline.RowStage convert = (row, counters) -> convertRow(row, columns, converter, issues, counters);
+    TemplateImportPipeline.RowStage sanitizeId = (row, counters) -> {
+      Object[] values = row.values();
+      if (idIndex >= 0) {
+        values[idIndex] = sanitizeImportedId(row.rowNumber(), values[idIndex], issues, counters);
+      }
+      return values;
+    };
+    return new ImportPlan(table, columnNames, idIndex, rows, convert, sanitizeId, issues);
+  }
 
-    List<Object[]> rawBatch = new ArrayList<>();
-    if (isCsv) {
-      collectCsvRows(file, columns, analysis.isTypeRowProvided(), rawBatch, warnings);
-    } else {
-      collectExcelRows(file, columns, analysis.isTypeRowProvided(), rawBatch, warnings);
-    }
+  private RuntimeException insertFailure(String table, org.springframework.dao.DataAccessException e) {
+    String rootMessage = e.getMostSpecificCause() != null ? e.getMostSpecificCause().getMessage() : e.getMessage();
+    return new RuntimeException("Failed to insert data into table '" + table + "': " + rootMessage, e);
+  }
 
-    if (rawBatch.isEmpty()) {
-      return 0;
-    }
+  /**
+   * Merges the staged rows into {@code table}: existing rows matching a staged key get {@code updateColumns}
+   * rewritten when at least one of them differs, and staged keys without a match are inserted. Matching is a join on
+   * the key rather than {@code ON CONFLICT}, so imports never need to add a unique index to the table.
+   */
+  private TemplateMergeResult upsertFromStaging(String staging, String table, List<String> columnNames, String key,
+                                                List<String> updateColumns, ImportIssueCollector issues) {
+    String stageRow = TemplateImportPipeline.STAGE_ROW_COLUMN;
+    Map<String, Object> staged = jdbcTemplate.queryForMap(
+        "select count(*) filter (where " + key + " is null) as missing,"
+            + " count(*) filter (where " + key + " is not null) as keyed,"
+            + " count(distinct " + key + ") as distinct_keys"
+            + " from " + staging);
+    long missing = ((Number) staged.get("missing")).longValue();
+    long keyed = ((Number) staged.get("keyed")).longValue();
+    long distinctKeys = ((Number) staged.get("distinct_keys")).longValue();
+    issues.record(key, "MISSING_MERGE_KEY",
+        missing + " row(s) without a value for merge key '" + key + "' were skipped.", missing);
+    issues.record(key, "DUPLICATE_MERGE_KEY", (keyed - distinctKeys) + " row(s) repeat a merge key '" + key
+        + "' found later in the file; the last occurrence was used.", keyed - distinctKeys);
 
-    List<Object[]> batch = new ArrayList<>(rawBatch.size());
-    boolean hasIdColumn = columns.stream().anyMatch(c -> "id".equalsIgnoreCase(c.getName()));
-    List<String> columnNames = columns.stream().map(ColumnInfo::getName).collect(Collectors.toList());
     String columnList = String.join(", ", columnNames);
-    String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
-    String sql = "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")";
-
-    Set<UUID> existingIds = new HashSet<>();
-    boolean dedupeIds = hasIdColumn && "orders_config".equalsIgnoreCase(table);
-    if (dedupeIds) {
-      existingIds.addAll(fetchExistingIds(table));
-    }
-    Set<UUID> usedIds = new HashSet<>(existingIds);
-
-    for (Object[] row : rawBatch) {
-      Object[] filtered = Arrays.copyOf(row, row.length);
-      if (hasIdColumn) {
-        int idIndex = findColumnIndex(columns, "id");
-        Object idValue = idIndex >= 0 ? filtered[idIndex] : null;
-        UUID sanitized = sanitizeImportedId(idValue, warnings);
-        if (dedupeIds && sanitized != null) {
-          if (usedIds.contains(sanitized)) {
-            UUID regenerated = UUID.randomUUID();
-            warnings.add("Duplicate id detected (" + sanitized + "); generated new id " + regenerated + ".");
-            sanitized = regenerated;
-          }
-          usedIds.add(sanitized);
-        }
-        filtered[idIndex] = sanitized;
-      }
-      batch.add(filtered);
-    }
+    List<String> updates = updateColumns.stream()
+        .filter(column -> !column.equalsIgnoreCase(key) && columnNames.contains(column))
+        .toList();
+    // Both statements see the table as it was before the merge, so updated rows are never inserted again
+    String updated = updates.isEmpty()
+        ? "updated as (select null::text as merge_key where false)"
+        : "updated as (update " + table + " target set "
+            + updates.stream().map(column -> column + " = source." + column).collect(Collectors.joining(", "))
+            + " from source where target." + key + " = source." + key
+            + " and row(" + updates.stream().map(column -> "target." + column).collect(Collectors.joining(", "))
+            + ") is distinct from row("
+            + updates.stream().map(column -> "source." + column).collect(Collectors.joining(", ")) + ")"
+            + " returning target." + key + " as merge_key)";
+    String sql = "with source as ("
+        + " select distinct on (" + key + ") " + columnList + " from " + staging
+        + " where " + key + " is not null"
+        + " order by " + key + ", " + stageRow + " desc),"
+        + " " + updated + ","
+        + " inserted as (insert into " + table + " (" + columnList + ")"
+        + " select " + columnList + " from source"
+        + " where not exists (select 1 from " + table + " target where target." + key + " = source." + key + ")"
+        + " returning 1)"
+        + " select (select count(*) from inserted) as inserted,"
+        + " (select count(distinct merge_key) from updated) as updated";
+    Map<String, Object> counts = jdbcTemplate.queryForMap(sql);
+    long inserted = ((Number) counts.get("inserted")).longValue();
+    long updatedKeys = ((Number) counts.get("updated")).longValue();
+    return new TemplateMergeResult(inserted, updatedKeys, distinctKeys - inserted - updatedKeys, missing);
+  }
 
-    try {
-      int[] result = jdbcTemplate.batchUpdate(sql, batch);
-      int inserted = 0;
-      if (result != null) {
-        for (int count : result) {
-          if (count > 0) {
-            inserted += count;
-          }
-        }
-      }
-      return inserted;
-    } catch (Exception e) {
-      String rootMessage = e.getMessage();
-      if (e instanceof org.springframework.dao.DataAccessException dae && dae.getMostSpecificCause() != null) {
-        rootMessage = dae.getMostSpecificCause().getMessage();
-      }
-      throw new RuntimeException("Failed to insert data into table '" + table + "': " + rootMessage, e);
-    }
+  /**
+   * Gives a new id to every staged row whose id already exists in {@code table} or appeared earlier in the file,
+   * then copies the staged rows into {@code table} in file order.
+   */
+  private long mergeWithFreshIds(String staging, String table, List<String> columnNames, ImportIssueCollector issues) {
+    String stageRow = TemplateImportPipeline.STAGE_ROW_COLUMN;
+    jdbcTemplate.query(
+        "with ranked as ("
+            + " select s." + stageRow + " as stage_row, s.id as old_id,"
+            + " row_number() over (partition by s.id order by s." + stageRow + ") as occurrence,"
+            + " exists (select 1 from " + table + " t where t.id = s.id) as taken"
+            + " from " + staging + " s)"
+            + " update " + staging + " s set id = gen_random_uuid()"
+            + " from ranked r"
+            + " where s." + stageRow + " = r.stage_row and (r.occurrence > 1 or r.taken)"
+            + " returning r.old_id, s.id",
+        rs -> {
+          issues.record("id", "DUPLICATE_ID", "Duplicate id detected (" + rs.getObject(1, UUID.class)
+              + "); generated new id " + rs.getObject(2, UUID.class) + ".");
+        });
+    String columnList = String.join(", ", columnNames);
+    return jdbcTemplate.update("insert into " + table + " (" + columnList + ") select " + columnList
+        + " from " + staging + " order by " + stageRow);
   }
 
   private int findColumnIndex(List<ColumnInfo> columns, String targetName) {
@@ -674,36 +588,27 @@ public class ExcelTemplateService {
     return -1;
   }
 
-  private UUID sanitizeImportedId(Object rawId, List<String> warnings) {
-    if (rawId == null) {
-      UUID generated = UUID.randomUUID();
-      warnings.add("Missing id detected in template import. Generated UUID " + generated + ".");
-      return generated;
-    }
-    String trimmed = rawId.toString().trim();
-    if (trimmed.isEmpty()) {
-      UUID generated = UUID.randomUUID();
-      warnings.add("Blank id detected in template import. Generated UUID " + generated + ".");
-      return generated;
-    }
-    try {
-      return UUID.fromString(trimmed);
-    } catch (IllegalArgumentException ex) {
-      UUID generated = UUID.randomUUID();
-      warnings.add("Invalid UUID '" + trimmed + "' detected in template import. Generated UUID " + generated + ".");
-      return generated;
+  private UUID sanitizeImportedId(int rowNumber, Object rawId, ImportIssueCollector issues,
+                                  TemplateImportPipeline.Counters counters) {
+    String trimmed = rawId == null ? null : rawId.toString().trim();
+    if (trimmed != null && !trimmed.isEmpty()) {
+      try {
+        return UUID.fromString(trimmed);
+      } catch (IllegalArgumentException ignored) {
+        // replaced below
+      }
     }
-  }
-
-  private Set<UUID> fetchExistingIds(String table) {
-    try {
-      return new HashSet<>(jdbcTemplate.query(
-          "select id from " + table,
-          (rs, rowNum) -> rs.getObject("id", UUID.class)
-      ));
-    } catch (Exception ex) {
-      return Set.of();
+    UUID generated = UUID.randomUUID();
+    if (trimmed == null) {
+      issues.record("id", "MISSING_ID", "Row " + rowNumber + ": missing id. Generated UUID " + generated + ".");
+    } else if (trimmed.isEmpty()) {
+      issues.record("id", "BLANK_ID", "Row " + rowNumber + ": blank id. Generated UUID " + generated + ".");
+    } else {
+      issues.record("id", "INVALID_UUID", "Row " + rowNumber + ": invalid UUID '" + trimmed + "'. Generated UUID "
+          + generated + ".");
     }
+    counters.markWarned();
+    return generated;
   }
 
   public byte[] generateExampleTemplate(String type){
@@ -788,6 +693,13 @@ public class ExcelTemplateService {
   }
 
   private String normalize(String name){
+    return normalizeColumnName(name);
+  }
+
+  /**
+   * Normalizes a template header into the snake_case column name used by generated tables.
+   */
+  static String normalizeColumnName(String name){
     if(name == null) return "";
     String s = name.trim().toLowerCase(Locale.ROOT)
         .replaceAll("[\u00A0\s]+", "_");
@@ -797,70 +709,6 @@ public class ExcelTemplateService {
     return s;
   }
 
-  private Object getCellValue(Cell cell){
-    return switch (cell.getCellType()){
-      case STRING -> cell.getStringCellValue();
-      case NUMERIC -> {
-        if(DateUtil.isCellDateFormatted(cell)){
-          Date d = cell.getDateCellValue();
-          yield LocalDate.ofInstant(d.toInstant(), ZoneId.systemDefault());
-        }
-        double n = cell.getNumericCellValue();
-        if(n == Math.rint(n)) yield (long) n; // integer
-        yield BigDecimal.valueOf(n);
-      }
-      case BOOLEAN -> cell.getBooleanCellValue();
-      case FORMULA -> {
-        try{
-          FormulaEvaluator ev = cell.getSheet().getWorkbook().getCreationHelper().createFormulaEvaluator();
-          CellValue cv = ev.evaluate(cell);
-          yield switch (cv.getCellType()){
-            case STRING -> cv.getStringValue();
-            case NUMERIC -> {
-              if(DateUtil.isCellDateFormatted(cell)){
-                Date d = cell.getDateCellValue();
-                yield LocalDate.ofInstant(d.toInstant(), ZoneId.systemDefault());
-              }
-              double n = cv.getNumberValue();
-              if(n == Math.rint(n)) yield (long) n; else yield BigDecimal.valueOf(n);
-            }
-            case BOOLEAN -> cv.getBooleanValue();
-            default -> null;
-          };
-        }catch (Exception ex){
-          yield null;
-        }
-      }
-      default -> null;
-    };
-  }
-
-  private String typeOf(Object val){
-    if(val instanceof Boolean) return "BOOLEAN";
-    if(val instanceof LocalDate) return "DATE";
-    if(val instanceof Long || val instanceof Integer) return "INTEGER";
-    if(val instanceof BigDecimal || val instanceof Double || val instanceof Float) return "DECIMAL";
-    // try to coerce string
-    if(val instanceof String s){
-      if(s.isBlank()) return "STRING";
-      try{ Long.parseLong(s); return "INTEGER"; }catch (Exception ignored){}
-      try{ new BigDecimal(s); return "DECIMAL"; }catch (Exception ignored){}
-      try{ LocalDate.parse(s); return "DATE"; }catch (Exception ignored){}
-      if("true".equalsIgnoreCase(s) || "false".equalsIgnoreCase(s)) return "BOOLEAN";
-      return "STRING";
-    }
-    return "STRING";
-  }
-
-  private String mergeTypes(String a, String b){
-    if(a == null || "UNKNOWN".equals(a)) return b;
-    if(b == null || "UNKNOWN".equals(b)) return a;
-    if(a.equals(b)) return a;
-    // if conflict, widen to STRING except DECIMAL+INTEGER -> DECIMAL, DATE+STRING -> STRING
-    if((a.equals("DECIMAL") && b.equals("INTEGER")) || (a.equals("INTEGER") && b.equals("DECIMAL"))) return "DECIMAL";
-    return "STRING";
-  }
-
   private String sqlTypeFor(String inferred){
     return switch (inferred){
       case "INTEGER" -> "BIGINT";
@@ -886,43 +734,4 @@ public class ExcelTemplateService {
     sb.append("\n);");
     return sb.toString();
   }
-
-  // --- CSV helpers ---
-  private List<String> parseCsvLine(String line) {
-    List<String> out = new ArrayList<>();
-    if (line == null) return out;
-    StringBuilder cur = new StringBuilder();
-    boolean inQuotes = false;
-    for (int i = 0; i < line.length(); i++) {
-      char ch = line.charAt(i);
-      if (ch == '"') {
-        if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-          // Escaped quote
-          cur.append('"');
-          i++;
-        } else {
-          inQuotes = !inQuotes;
-        }
-      } else if (ch == ',' && !inQuotes) {
-        out.add(cur.toString());
-        cur.setLength(0);
-      } else {
-        cur.append(ch);
-      }
-    }
-    out.add(cur.toString());
-    return out;
-  }
-
-  private List<List<String>> readCsv(BufferedReader br, int maxRows) throws java.io.IOException {
-    List<List<String>> rows = new ArrayList<>();
-    String line;
-    int count = 0;
-    while ((line = br.readLine()) != null) {
-      rows.add(parseCsvLine(line));
-      count++;
-      if (count >= maxRows) break;
-    }
-    return rows;
-  }
 }
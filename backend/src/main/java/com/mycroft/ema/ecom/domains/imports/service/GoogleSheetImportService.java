@@ -1,23 +1,45 @@
 package com.mycroft.ema.ecom.domains.imports.service;
 
 import com.mycroft.ema.ecom.domains.imports.domain.GoogleImportConfig;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectAllRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectAllResponse;
 import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetImportProgress;
 import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetMetadataResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetTabImportResult;
+import com.mycroft.ema.ecom.domains.imports.dto.PopulationMode;
 import com.mycroft.ema.ecom.domains.imports.dto.TemplateAnalysisResponse;
 import com.mycroft.ema.ecom.domains.imports.repo.GoogleImportConfigRepository;
-import com.mycroft.ema.ecom.domains.imports.util.MemoryMultipartFile;
 import com.mycroft.ema.ecom.integration.google.service.GoogleSheetsClient;
 import com.mycroft.ema.ecom.integration.google.config.GoogleSheetsProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Handles one-off imports from Google Sheets by transforming sheet data into the existing template ingestion pipeline.
@@ -25,6 +47,7 @@ import java.util.Set;
 @Service
 public class GoogleSheetImportService {
 
+  private static final Logger log = LoggerFactory.getLogger(GoogleSheetImportService.class);
   private static final HexFormat HEX = HexFormat.of();
   private static final Set<String> SUPPORTED_TYPE_MARKERS = Set.of(
       "text",
@@ -47,19 +70,38 @@ public class GoogleSheetImportService {
   private final GoogleSheetsProperties properties;
   private final DomainImportService domainImportService;
   private final GoogleImportConfigRepository configRepository;
+  private final HybridUpsertBroadcaster upsertBroadcaster;
+  private final AsyncTaskExecutor importExecutor;
+  private final TransactionTemplate transactionTemplate;
 
   public GoogleSheetImportService(GoogleSheetsClient sheetsClient,
                                   GoogleSheetsProperties properties,
                                   DomainImportService domainImportService,
-                                  GoogleImportConfigRepository configRepository) {
+                                  GoogleImportConfigRepository configRepository,
+                                  HybridUpsertBroadcaster upsertBroadcaster,
+                                  @Qualifier("googleSheetImportExecutor") AsyncTaskExecutor importExecutor,
+                                  PlatformTransactionManager transactionManager) {
     this.sheetsClient = sheetsClient;
     this.properties = properties;
     this.domainImportService = domainImportService;
     this.configRepository = configRepository;
+    this.upsertBroadcaster = upsertBroadcaster;
+    this.importExecutor = importExecutor;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   @Transactional
   public TemplateAnalysisResponse connectAndImport(GoogleSheetConnectRequest request) {
+    return connectAndImport(request, counters -> {});
+  }
+
+  /**
+   * Connects one sheet tab and imports its rows, reporting import progress to {@code onProgress} after each written
+   * chunk.
+   */
+  @Transactional
+  public TemplateAnalysisResponse connectAndImport(GoogleSheetConnectRequest request,
+                                                   Consumer<TemplateImportPipeline.Counters> onProgress) {
     String domain = normalizeDomain(request.domain());
     String spreadsheetId = resolveSpreadsheetId(request);
     String tabName = normalizedTabName(request.tabName());
@@ -79,33 +121,105 @@ public class GoogleSheetImportService {
       throw new IllegalArgumentException("The provided sheet does not contain any data (missing header row)");
     }
 
-    sanitizeSheetValues(values);
-    maybeAppendStoreNameColumn(domain, tabName, values);
-    maybeAppendStatusColumn(domain, values);
+    prepareSheetValues(domain, tabName, values);
+    TemplateAnalysisResponse analysis = domainImportService.configureFromSource(domain, TabularSource.of(values), onProgress);
+    saveConfig(domain, spreadsheetId, tabName, values);
+    return analysis;
+  }
 
-    byte[] csvBytes = toCsv(values);
-    MemoryMultipartFile csvFile = new MemoryMultipartFile(
-        "file",
-        domain + "-google-import.csv",
-        "text/csv",
-        csvBytes
-    );
+  /**
+   * Connects every tab of a spreadsheet (or the requested subset) to the same domain. All tabs are fetched with a
+   * single batch read; the first tab configures the table when needed and the remaining tabs are transformed and
+   * loaded concurrently, each in its own transaction so that one faulty tab does not roll back the others.
+   */
+  public GoogleSheetConnectAllResponse connectAllStores(GoogleSheetConnectAllRequest request) {
+    String domain = normalizeDomain(request.domain());
+    if (!isOrdersDomain(domain)) {
+      throw new IllegalArgumentException("Connecting every tab at once is only supported for Orders.");
+    }
+    String spreadsheetId = resolveSpreadsheetId(request.spreadsheetId(), request.sheetUrl());
+    String table = domainImportService.tableForDomain(domain);
 
-    TemplateAnalysisResponse analysis = domainImportService.configureFromFile(domain, csvFile);
-    long lastRowImported = Math.max(values.size() - 1L, 0L);
-    String headerHash = hashHeader(values.get(0));
+    List<String> tabNames = resolveTabNames(spreadsheetId, request.tabNames());
+    if (tabNames.isEmpty()) {
+      throw new IllegalArgumentException("The spreadsheet does not contain any sheet tabs.");
+    }
 
-    GoogleImportConfig config = configRepository.findBySpreadsheetIdAndTabName(spreadsheetId, tabName)
-        .orElse(new GoogleImportConfig(domain, spreadsheetId, tabName, headerHash, lastRowImported, "google"));
-    config.setDomain(domain);
-    config.setSpreadsheetId(spreadsheetId);
-    config.setTabName(tabName);
-    config.setHeaderHash(headerHash);
-    config.setLastRowImported(lastRowImported);
-    config.setSource("google");
-    configRepository.save(config);
+    Map<String, GoogleSheetTabImportResult> results = new LinkedHashMap<>();
+    tabNames.forEach(tab -> results.put(tab, null));
+    AtomicInteger completed = new AtomicInteger();
+    int total = tabNames.size();
+
+    List<String> pending = new ArrayList<>();
+    for (String tabName : tabNames) {
+      Optional<GoogleImportConfig> existing = configRepository.findBySpreadsheetIdAndTabName(spreadsheetId, tabName);
+      if (existing.isPresent()) {
+        GoogleSheetTabImportResult skipped = new GoogleSheetTabImportResult(tabName,
+            GoogleSheetTabImportResult.Status.SKIPPED, 0,
+            "Already linked to " + existing.get().getDomain() + ".", 0);
+        recordTabResult(domain, spreadsheetId, total, completed, results, skipped);
+      } else {
+        pending.add(tabName);
+      }
+    }
 
-    return analysis;
+    List<List<List<Object>>> batch = sheetsClient.batchReadSheets(spreadsheetId,
+        pending.stream().map(this::buildRange).toList());
+
+    List<String> loadable = new ArrayList<>();
+    Map<String, List<List<Object>>> valuesByTab = new LinkedHashMap<>();
+    for (int i = 0; i < pending.size(); i++) {
+      String tabName = pending.get(i);
+      List<List<Object>> values = mutableCopy(batch.get(i));
+      try {
+        if (values.isEmpty()) {
+          throw new IllegalArgumentException("The sheet tab does not contain any data (missing header row)");
+        }
+        prepareSheetValues(domain, tabName, values);
+        valuesByTab.put(tabName, values);
+        loadable.add(tabName);
+      } catch (IllegalArgumentException ex) {
+        recordTabResult(domain, spreadsheetId, total, completed, results, failedResult(tabName, ex, 0));
+      }
+    }
+
+    // Structure (DDL, permissions, semantics) must exist before tabs can be appended concurrently.
+    Iterator<String> iterator = loadable.iterator();
+    while (iterator.hasNext() && !domainImportService.isConfigured(domain)) {
+      String tabName = iterator.next();
+      iterator.remove();
+      recordTabResult(domain, spreadsheetId, total, completed, results,
+          importTab(domain, spreadsheetId, tabName, valuesByTab.get(tabName), true));
+    }
+
+    List<Map.Entry<String, Future<GoogleSheetTabImportResult>>> futures = new ArrayList<>();
+    for (String tabName : loadable) {
+      List<List<Object>> values = valuesByTab.get(tabName);
+      futures.add(Map.entry(tabName, importExecutor.submit(() -> {
+        GoogleSheetTabImportResult result = importTab(domain, spreadsheetId, tabName, values, false);
+        recordTabResult(domain, spreadsheetId, total, completed, results, result);
+        return result;
+      })));
+    }
+    for (Map.Entry<String, Future<GoogleSheetTabImportResult>> entry : futures) {
+      try {
+        entry.getValue().get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while importing sheet tabs", ex);
+      } catch (ExecutionException ex) {
+        recordTabResult(domain, spreadsheetId, total, completed, results,
+            failedResult(entry.getKey(), ex.getCause(), 0));
+      }
+    }
+
+    List<GoogleSheetTabImportResult> tabs = List.copyOf(results.values());
+    int imported = (int) tabs.stream().filter(r -> r.status() == GoogleSheetTabImportResult.Status.IMPORTED).count();
+    int skipped = (int) tabs.stream().filter(r -> r.status() == GoogleSheetTabImportResult.Status.SKIPPED).count();
+    int failed = tabs.size() - imported - skipped;
+    log.info("Connected {} tabs of spreadsheet {} to {}: imported={}, skipped={}, failed={}",
+        tabs.size(), spreadsheetId, domain, imported, skipped, failed);
+    return new GoogleSheetConnectAllResponse(domain, table, spreadsheetId, imported, skipped, failed, tabs);
   }
 
   public List<GoogleSheetMetadataResponse> listSheets(String spreadsheetId) {
@@ -116,14 +230,119 @@ public class GoogleSheetImportService {
   }
 
   private String resolveSpreadsheetId(GoogleSheetConnectRequest request) {
-    String spreadsheetId = request.spreadsheetId();
+    return resolveSpreadsheetId(request.spreadsheetId(), request.sheetUrl());
+  }
+
+  private String resolveSpreadsheetId(String spreadsheetId, String sheetUrl) {
     if (spreadsheetId != null && !spreadsheetId.isBlank()) {
       return spreadsheetId.trim();
     }
-    if (request.sheetUrl() == null || request.sheetUrl().isBlank()) {
+    if (sheetUrl == null || sheetUrl.isBlank()) {
       throw new IllegalArgumentException("A Google Sheet must be selected before connecting.");
     }
-    return sheetsClient.extractSpreadsheetId(request.sheetUrl());
+    return sheetsClient.extractSpreadsheetId(sheetUrl);
+  }
+
+  private List<String> resolveTabNames(String spreadsheetId, List<String> requested) {
+    if (requested != null && !requested.isEmpty()) {
+      return requested.stream()
+          .filter(Objects::nonNull)
+          .map(String::trim)
+          .filter(name -> !name.isEmpty())
+          .distinct()
+          .toList();
+    }
+    return sheetsClient.listSheets(spreadsheetId).stream()
+        .sorted(Comparator.comparing(GoogleSheetMetadataResponse::index, Comparator.nullsLast(Comparator.naturalOrder())))
+        .map(GoogleSheetMetadataResponse::title)
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  private GoogleSheetTabImportResult importTab(String domain,
+                                               String spreadsheetId,
+                                               String tabName,
+                                               List<List<Object>> values,
+                                               boolean configure) {
+    long started = System.nanoTime();
+    try {
+      Long rows = transactionTemplate.execute(status -> {
+        long imported;
+        if (configure) {
+          domainImportService.configureFromSource(domain, TabularSource.of(values), counters -> {});
+          imported = dataRowCount(values);
+        } else {
+          imported = domainImportService.populateFromSource(domain, TabularSource.of(values), PopulationMode.APPEND, null,
+              counters -> {}).getRowsInserted();
+        }
+        saveConfig(domain, spreadsheetId, tabName, values);
+        return imported;
+      });
+      return new GoogleSheetTabImportResult(tabName, GoogleSheetTabImportResult.Status.IMPORTED,
+          rows == null ? 0 : rows, null, elapsedMillis(started));
+    } catch (RuntimeException ex) {
+      log.warn("Failed to import sheet tab '{}' of spreadsheet {}: {}", tabName, spreadsheetId, ex.getMessage());
+      return failedResult(tabName, ex, elapsedMillis(started));
+    }
+  }
+
+  private void recordTabResult(String domain,
+                               String spreadsheetId,
+                               int total,
+                               AtomicInteger completed,
+                               Map<String, GoogleSheetTabImportResult> results,
+                               GoogleSheetTabImportResult result) {
+    synchronized (results) {
+      if (results.get(result.tabName()) != null) {
+        return;
+      }
+      results.put(result.tabName(), result);
+    }
+    upsertBroadcaster.broadcastImportProgress(domain,
+        new GoogleSheetImportProgress(domain, spreadsheetId, completed.incrementAndGet(), total, result));
+  }
+
+  private GoogleSheetTabImportResult failedResult(String tabName, Throwable error, long durationMs) {
+    String message = error == null || error.getMessage() == null ? "Import failed" : error.getMessage();
+    return new GoogleSheetTabImportResult(tabName, GoogleSheetTabImportResult.Status.FAILED, 0, message, durationMs);
+  }
+
+  private long elapsedMillis(long startedNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+  }
+
+  private long dataRowCount(List<List<Object>> values) {
+    boolean hasTypeRow = values.size() > 1 && containsAnyNonBlank(values.get(1));
+    return Math.max(values.size() - (hasTypeRow ? 2L : 1L), 0L);
+  }
+
+  private List<List<Object>> mutableCopy(List<List<Object>> values) {
+    List<List<Object>> copy = new ArrayList<>(values.size());
+    for (List<Object> row : values) {
+      copy.add(row == null ? new ArrayList<>() : new ArrayList<>(row));
+    }
+    return copy;
+  }
+
+  private void prepareSheetValues(String domain, String tabName, List<List<Object>> values) {
+    sanitizeSheetValues(values);
+    maybeAppendStoreNameColumn(domain, tabName, values);
+    maybeAppendStatusColumn(domain, values);
+  }
+
+  private void saveConfig(String domain, String spreadsheetId, String tabName, List<List<Object>> values) {
+    long lastRowImported = Math.max(values.size() - 1L, 0L);
+    String headerHash = hashHeader(values.get(0));
+
+    GoogleImportConfig config = configRepository.findBySpreadsheetIdAndTabName(spreadsheetId, tabName)
+        .orElse(new GoogleImportConfig(domain, spreadsheetId, tabName, headerHash, lastRowImported, "google"));
+    config.setDomain(domain);
+    config.setSpreadsheetId(spreadsheetId);
+    config.setTabName(tabName);
+    config.setHeaderHash(headerHash);
+    config.setLastRowImported(lastRowImported);
+    config.setSource("google");
+    configRepository.save(config);
   }
 
   private String normalizeDomain(String domain) {
@@ -326,7 +545,7 @@ public class GoogleSheetImportService {
     }
   }
 
-  private boolean isSupportedTypeMarker(String marker) {
+  static boolean isSupportedTypeMarker(String marker) {
     if (marker == null) {
       return false;
     }
@@ -351,32 +570,6 @@ public class GoogleSheetImportService {
         + "integer, decimal, numeric(x,y), minio:image, minio:file, minio_image, minio_file";
   }
 
-  private byte[] toCsv(List<List<Object>> values) {
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < values.size(); i++) {
-      List<Object> row = values.get(i);
-      for (int c = 0; c < row.size(); c++) {
-        if (c > 0) {
-          sb.append(',');
-        }
-        String cell = row.get(c) == null ? "" : row.get(c).toString();
-        sb.append(escapeCsv(cell));
-      }
-      if (i < values.size() - 1) {
-        sb.append('\n');
-      }
-    }
-    return sb.toString().getBytes(StandardCharsets.UTF_8);
-  }
-
-  private String escapeCsv(String value) {
-    if (value.contains("\"") || value.contains(",") || value.contains("\n")) {
-      String escaped = value.replace("\"", "\"\"");
-      return "\"" + escaped + "\"";
-    }
-    return value;
-  }
-
   private String hashHeader(List<Object> headerRow) {
     try {
       MessageDigest digest = MessageDigest.getInstance("SHA-256");
@@ -0,0 +1,449 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
+import com.mycroft.ema.ecom.common.metadata.ConversionSession;
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
+import com.mycroft.ema.ecom.domains.imports.domain.GoogleImportConfig;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetResyncRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetResyncResponse;
+import com.mycroft.ema.ecom.domains.imports.repo.GoogleImportConfigRepository;
+import com.mycroft.ema.ecom.integration.google.config.GoogleSheetsProperties;
+import com.mycroft.ema.ecom.integration.google.service.GoogleSheetsClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Reconciles a connected Google Sheet tab with its backing table by comparing per-row content hashes, so only rows
+ * that were inserted, changed or removed in the sheet are written.
+ */
+@Slf4j
+@Service
+public class GoogleSheetResyncService {
+
+  private static final HexFormat HEX = HexFormat.of();
+  private static final int BATCH_SIZE = 500;
+  private static final int MAX_WARNINGS = 50;
+  private static final char CELL_SEPARATOR = '\u001F';
+
+  private final GoogleSheetsClient sheetsClient;
+  private final GoogleSheetsProperties properties;
+  private final GoogleImportConfigRepository configRepository;
+  private final DomainImportService domainImportService;
+  private final GoogleSheetSyncService syncService;
+  private final JdbcTemplate jdbcTemplate;
+  private final TableSchemaCache schemaCache;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RowStripedLock rowLock;
+
+  public GoogleSheetResyncService(GoogleSheetsClient sheetsClient,
+                                  GoogleSheetsProperties properties,
+                                  GoogleImportConfigRepository configRepository,
+                                  DomainImportService domainImportService,
+                                  GoogleSheetSyncService syncService,
+                                  JdbcTemplate jdbcTemplate,
+                                  TableSchemaCache schemaCache,
+                                  ApplicationEventPublisher eventPublisher,
+                                  RowStripedLock rowLock) {
+    this.sheetsClient = sheetsClient;
+    this.properties = properties;
+    this.configRepository = configRepository;
+    this.domainImportService = domainImportService;
+    this.syncService = syncService;
+    this.jdbcTemplate = jdbcTemplate;
+    this.schemaCache = schemaCache;
+    this.eventPublisher = eventPublisher;
+    this.rowLock = rowLock;
+  }
+
+  @Transactional
+  public GoogleSheetResyncResponse resync(GoogleSheetResyncRequest request) {
+    String domain = normalizeDomain(request.domain());
+    String spreadsheetId = resolveSpreadsheetId(request);
+    String tabName = request.tabName() == null ? "" : request.tabName().trim();
+    if (tabName.isEmpty()) {
+      throw new IllegalArgumentException("Please select a sheet tab to resync.");
+    }
+    GoogleImportConfig config = configRepository.findBySpreadsheetIdAndTabName(spreadsheetId, tabName)
+        .filter(cfg -> domain.equalsIgnoreCase(cfg.getDomain()))
+        .orElseThrow(() -> new IllegalArgumentException(
+            "Sheet tab '" + tabName + "' is not connected to " + domain + ". Connect it before resyncing."));
+
+    String table = domainImportService.tableForDomain(domain);
+    TableSchema schema = schemaCache.get(table);
+    if (!schema.hasColumn("id")) {
+      throw new IllegalStateException("Table '" + table + "' must contain an 'id' column for resync operations.");
+    }
+
+    // Row edits applied by sheet sync after this point are newer than the snapshot read below
+    long[] lockVersions = rowLock.versions();
+    List<List<Object>> values = sheetsClient.readSheet(spreadsheetId, tabName + "!" + properties.defaultReadRange());
+    if (values.isEmpty()) {
+      throw new IllegalArgumentException("The provided sheet does not contain any data (missing header row)");
+    }
+
+    List<String> headers = normalizeHeaders(values.get(0));
+    int idIndex = headers.indexOf("id");
+    if (idIndex < 0) {
+      throw new IllegalArgumentException("The sheet must contain an 'id' column to be resynchronized.");
+    }
+    int dataStart = values.size() > 1 && isTypeRow(values.get(1), headers.size()) ? 2 : 1;
+
+    Map<UUID, String> storedHashes = loadStoredHashes(config.getId());
+    Set<UUID> seen = new HashSet<>();
+    List<String> warnings = new ArrayList<>();
+    List<SheetRow> inserts = new ArrayList<>();
+    List<SheetRow> updates = new ArrayList<>();
+    long rowsRead = 0;
+    long unchanged = 0;
+    long skipped = 0;
+
+    for (int r = dataStart; r < values.size(); r++) {
+      List<Object> cells = values.get(r);
+      if (cells == null || isBlankRow(cells)) {
+        continue;
+      }
+      rowsRead++;
+      long rowNumber = r + 1L;
+      UUID rowId = parseRowId(cellAt(cells, idIndex));
+      if (rowId == null) {
+        skipped++;
+        addWarning(warnings, "Row " + rowNumber + " has no valid UUID in the 'id' column and was skipped.");
+        continue;
+      }
+      if (!seen.add(rowId)) {
+        skipped++;
+        addWarning(warnings, "Row " + rowNumber + " repeats id " + rowId + " and was skipped.");
+        continue;
+      }
+      String hash = hashRow(headers, cells);
+      String previous = storedHashes.get(rowId);
+      if (previous == null) {
+        inserts.add(new SheetRow(rowId, rowNumber, cells, hash));
+      } else if (!previous.equals(hash)) {
+        updates.add(new SheetRow(rowId, rowNumber, cells, hash));
+      } else {
+        unchanged++;
+      }
+    }
+
+    List<UUID> staleDeletions = storedHashes.keySet().stream()
+        .filter(id -> !seen.contains(id))
+        .toList();
+
+    // Serialize with sheet sync on the touched rows until this transaction ends, and leave rows that sync edited
+    // since the tab was read to the next resync rather than overwrite them with the older snapshot
+    List<UUID> touched = new ArrayList<>(staleDeletions);
+    inserts.forEach(row -> touched.add(row.rowId()));
+    updates.forEach(row -> touched.add(row.rowId()));
+    holdUntilCompletion(rowLock.lockRows(table, touched));
+    long before = inserts.size() + updates.size() + staleDeletions.size();
+    inserts.removeIf(row -> editedDuringResync(lockVersions, table, row.rowId(), row.rowNumber(), warnings));
+    updates.removeIf(row -> editedDuringResync(lockVersions, table, row.rowId(), row.rowNumber(), warnings));
+    List<UUID> deletions = staleDeletions.stream()
+        .filter(id -> !editedDuringResync(lockVersions, table, id, -1, warnings))
+        .toList();
+    skipped += before - inserts.size() - updates.size() - deletions.size();
+
+    ConversionSession session = schema.newSession();
+    List<UUID> inserted = applyUpserts(domain, config, table, headers, schema, session, inserts, warnings);
+    List<UUID> updated = applyUpserts(domain, config, table, headers, schema, session, updates, warnings);
+    applyDeletes(table, config.getId(), deletions);
+    // Rows that could not be converted were reported as warnings and left untouched
+    skipped += inserts.size() - inserted.size() + updates.size() - updated.size();
+
+    List<UUID> changed = new ArrayList<>(deletions);
+    changed.addAll(inserted);
+    changed.addAll(updated);
+    if (!changed.isEmpty()) {
+      eventPublisher.publishEvent(DomainDataChangedEvent.rows(domain, changed));
+    }
+
+    config.setLastRowImported(Math.max(values.size() - 1L, 0L));
+    configRepository.save(config);
+
+    log.info("Resynced {} tab '{}' into {}: read={}, inserted={}, updated={}, deleted={}, unchanged={}, skipped={}",
+        domain, tabName, table, rowsRead, inserted.size(), updated.size(), deletions.size(), unchanged, skipped);
+    return new GoogleSheetResyncResponse(domain, table, tabName, rowsRead, inserted.size(), updated.size(),
+        deletions.size(), unchanged, skipped, warnings);
+  }
+
+  private boolean editedDuringResync(long[] lockVersions, String table, UUID rowId, long rowNumber,
+                                     List<String> warnings) {
+    if (!rowLock.editedSince(lockVersions, table, rowId)) {
+      return false;
+    }
+    addWarning(warnings, (rowNumber < 0 ? "Row " + rowId : "Row " + rowNumber)
+        + " was changed by sheet sync during the resync and was left for the next resync.");
+    return true;
+  }
+
+  private void holdUntilCompletion(RowStripedLock.HeldRows held) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      held.close();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        held.close();
+      }
+    });
+  }
+
+  /**
+   * Upserts {@code rows} in batches and returns the ids actually written; rows that fail conversion are skipped with
+   * a warning.
+   */
+  private List<UUID> applyUpserts(String domain,
+                            GoogleImportConfig config,
+                            String table,
+                            List<String> headers,
+                            TableSchema schema,
+                            ConversionSession session,
+                            List<SheetRow> rows,
+                            List<String> warnings) {
+    List<UUID> written = new ArrayList<>();
+    for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+      List<SheetRow> chunk = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+      Map<List<String>, List<Object[]>> statements = new LinkedHashMap<>();
+      List<UUID> writtenIds = new ArrayList<>();
+      List<SheetRow> writtenRows = new ArrayList<>();
+      for (SheetRow row : chunk) {
+        Map<String, Object> prepared;
+        try {
+          prepared = syncService.prepareRow(domain, config, toRowMap(headers, row.cells()), session);
+        } catch (IllegalArgumentException ex) {
+          addWarning(warnings, "Row " + row.rowNumber() + " could not be converted: " + ex.getMessage());
+          continue;
+        }
+        prepared.remove("id");
+        List<String> columns = new ArrayList<>();
+        columns.add("id");
+        columns.addAll(prepared.keySet());
+        Object[] args = new Object[columns.size()];
+        args[0] = row.rowId();
+        int i = 1;
+        for (Object value : prepared.values()) {
+          args[i++] = GoogleSheetSyncService.toJdbcValue(value);
+        }
+        statements.computeIfAbsent(columns, key -> new ArrayList<>()).add(args);
+        writtenIds.add(row.rowId());
+        writtenRows.add(row);
+      }
+      statements.forEach((columns, batch) -> jdbcTemplate.batchUpdate(buildUpsertSql(table, columns), batch));
+      applyInsertDefaults(domain, table, schema, writtenIds);
+      storeHashes(config.getId(), writtenRows);
+      written.addAll(writtenIds);
+    }
+    return written;
+  }
+
+  private String buildUpsertSql(String table, List<String> columns) {
+    String insertColumns = String.join(", ", columns);
+    String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+    List<String> updates = columns.stream()
+        .filter(column -> !"id".equals(column))
+        .map(column -> column + " = EXCLUDED." + column)
+        .toList();
+    String conflict = updates.isEmpty()
+        ? " ON CONFLICT (id) DO NOTHING"
+        : " ON CONFLICT (id) DO UPDATE SET " + String.join(", ", updates);
+    return "INSERT INTO " + table + " (" + insertColumns + ") VALUES (" + placeholders + ")" + conflict;
+  }
+
+  /**
+   * Mirrors the defaults applied by row-level sync for new rows without overwriting values of existing rows.
+   */
+  private void applyInsertDefaults(String domain, String table, TableSchema schema, List<UUID> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    UUID[] idArray = ids.toArray(UUID[]::new);
+    if (schema.hasColumn("created_at")) {
+      jdbcTemplate.update(connection -> {
+        var ps = connection.prepareStatement(
+            "UPDATE " + table + " SET created_at = now() WHERE id = ANY(?) AND created_at IS NULL");
+        ps.setArray(1, connection.createArrayOf("uuid", idArray));
+        return ps;
+      });
+    }
+    if ("orders".equals(domain) && schema.hasColumn("status")) {
+      jdbcTemplate.update(connection -> {
+        var ps = connection.prepareStatement(
+            "UPDATE " + table + " SET status = 'New' WHERE id = ANY(?) AND (status IS NULL OR trim(status) = '')");
+        ps.setArray(1, connection.createArrayOf("uuid", idArray));
+        return ps;
+      });
+    }
+  }
+
+  private void applyDeletes(String table, UUID configId, List<UUID> ids) {
+    for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+      UUID[] chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())).toArray(UUID[]::new);
+      jdbcTemplate.update(connection -> {
+        var ps = connection.prepareStatement("DELETE FROM " + table + " WHERE id = ANY(?)");
+        ps.setArray(1, connection.createArrayOf("uuid", chunk));
+        return ps;
+      });
+      jdbcTemplate.update(connection -> {
+        var ps = connection.prepareStatement(
+            "DELETE FROM google_sheet_row_hash WHERE config_id = ? AND row_id = ANY(?)");
+        ps.setObject(1, configId);
+        ps.setArray(2, connection.createArrayOf("uuid", chunk));
+        return ps;
+      });
+    }
+  }
+
+  private void storeHashes(UUID configId, List<SheetRow> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    List<Object[]> args = rows.stream()
+        .map(row -> new Object[]{configId, row.rowId(), row.hash()})
+        .toList();
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO google_sheet_row_hash (config_id, row_id, row_hash) VALUES (?, ?, ?) "
+            + "ON CONFLICT (config_id, row_id) DO UPDATE SET row_hash = EXCLUDED.row_hash, updated_at = now()",
+        args);
+  }
+
+  private Map<UUID, String> loadStoredHashes(UUID configId) {
+    Map<UUID, String> hashes = new HashMap<>();
+    jdbcTemplate.query(
+        "select row_id, row_hash from google_sheet_row_hash where config_id = ?",
+        rs -> {
+          hashes.put(rs.getObject("row_id", UUID.class), rs.getString("row_hash"));
+        },
+        configId);
+    return hashes;
+  }
+
+  private List<String> normalizeHeaders(List<Object> headerRow) {
+    if (headerRow == null || headerRow.isEmpty()) {
+      throw new IllegalArgumentException("Header row (first row) cannot be empty.");
+    }
+    List<String> headers = new ArrayList<>(headerRow.size());
+    for (int i = 0; i < headerRow.size(); i++) {
+      Object raw = headerRow.get(i);
+      String header = raw == null ? "" : raw.toString().trim();
+      if (header.isEmpty()) {
+        throw new IllegalArgumentException("Column " + (i + 1) + " has an empty name. Please provide a header in row 1.");
+      }
+      headers.add(ExcelTemplateService.normalizeColumnName(header.replaceAll("\\s+", "_")));
+    }
+    return headers;
+  }
+
+  private boolean isTypeRow(List<Object> row, int columnCount) {
+    if (row == null || row.isEmpty()) {
+      return false;
+    }
+    for (int c = 0; c < columnCount; c++) {
+      Object cell = cellAt(row, c);
+      String marker = cell == null ? "" : cell.toString().trim();
+      if (marker.isEmpty() || !GoogleSheetImportService.isSupportedTypeMarker(marker)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Map<String, Object> toRowMap(List<String> headers, List<Object> cells) {
+    Map<String, Object> row = new LinkedHashMap<>();
+    for (int c = 0; c < headers.size(); c++) {
+      row.put(headers.get(c), cellAt(cells, c));
+    }
+    return row;
+  }
+
+  private String hashRow(List<String> headers, List<Object> cells) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      StringBuilder sb = new StringBuilder();
+      for (int c = 0; c < headers.size(); c++) {
+        Object cell = cellAt(cells, c);
+        sb.append(headers.get(c)).append('=').append(cell == null ? "" : cell.toString().trim()).append(CELL_SEPARATOR);
+      }
+      return HEX.formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private Object cellAt(List<Object> cells, int index) {
+    return cells != null && index >= 0 && index < cells.size() ? cells.get(index) : null;
+  }
+
+  private boolean isBlankRow(List<Object> cells) {
+    for (Object cell : cells) {
+      if (cell != null && !cell.toString().trim().isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private UUID parseRowId(Object raw) {
+    if (raw == null) {
+      return null;
+    }
+    String value = raw.toString().trim();
+    if (value.isEmpty()) {
+      return null;
+    }
+    try {
+      return UUID.fromString(value);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  private void addWarning(List<String> warnings, String warning) {
+    if (warnings.size() < MAX_WARNINGS) {
+      warnings.add(warning);
+    }
+  }
+
+  private String resolveSpreadsheetId(GoogleSheetResyncRequest request) {
+    String spreadsheetId = request.spreadsheetId();
+    if (spreadsheetId != null && !spreadsheetId.isBlank()) {
+      return spreadsheetId.trim();
+    }
+    if (request.sheetUrl() == null || request.sheetUrl().isBlank()) {
+      throw new IllegalArgumentException("A Google Sheet must be selected before resyncing.");
+    }
+    return sheetsClient.extractSpreadsheetId(request.sheetUrl());
+  }
+
+  private String normalizeDomain(String domain) {
+    if (domain == null || domain.isBlank()) {
+      throw new IllegalArgumentException("domain is required");
+    }
+    String normalized = domain.trim().toLowerCase(Locale.ROOT);
+    String canonical = switch (normalized) {
+      case "product", "products" -> "product";
+      case "order", "orders" -> "orders";
+      case "ad", "ads", "advertising", "marketing" -> "ads";
+      default -> normalized;
+    };
+    domainImportService.tableForDomain(canonical);
+    return canonical;
+  }
+
+  /**
+   * Sheet row scheduled for writing together with its content hash.
+   */
+  private record SheetRow(UUID rowId, long rowNumber, List<Object> cells, String hash) {}
+}
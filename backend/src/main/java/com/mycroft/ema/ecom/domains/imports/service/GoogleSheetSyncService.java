@@ -2,24 +2,25 @@ package com.mycroft.ema.ecom.domains.imports.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
+import com.mycroft.ema.ecom.common.metadata.ConversionSession;
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
 import com.mycroft.ema.ecom.domains.imports.domain.GoogleImportConfig;
 import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetSyncRequest;
 import com.mycroft.ema.ecom.domains.imports.repo.GoogleImportConfigRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.postgresql.util.PGobject;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.regex.Pattern;
 /**
@@ -35,6 +36,10 @@ public class GoogleSheetSyncService {
   private final JdbcTemplate jdbcTemplate;
   private final HybridUpsertBroadcaster upsertBroadcaster;
   private final com.mycroft.ema.ecom.domains.notifications.service.NotificationLogService notificationLogService;
+  private final RowStripedLock rowLock;
+  private final TransactionTemplate transactionTemplate;
+  private final TableSchemaCache schemaCache;
+  private final ApplicationEventPublisher eventPublisher;
 
   private static final Pattern JSON_PATTERN = Pattern.compile("^\\s*\\{.+}\\s*$", Pattern.DOTALL);
   private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
@@ -43,16 +48,40 @@ public class GoogleSheetSyncService {
                                 DomainImportService domainImportService,
                                 JdbcTemplate jdbcTemplate,
                                 HybridUpsertBroadcaster upsertBroadcaster,
-                                com.mycroft.ema.ecom.domains.notifications.service.NotificationLogService notificationLogService) {
+                                com.mycroft.ema.ecom.domains.notifications.service.NotificationLogService notificationLogService,
+                                RowStripedLock rowLock,
+                                PlatformTransactionManager transactionManager,
+                                TableSchemaCache schemaCache,
+                                ApplicationEventPublisher eventPublisher) {
     this.configRepository = configRepository;
     this.domainImportService = domainImportService;
     this.jdbcTemplate = jdbcTemplate;
     this.upsertBroadcaster = upsertBroadcaster;
     this.notificationLogService = notificationLogService;
+    this.rowLock = rowLock;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.schemaCache = schemaCache;
+    this.eventPublisher = eventPublisher;
   }
 
-  @Transactional
+  /**
+   * Applies a single row event. Events carrying the same row id are serialized on a row stripe and each one commits
+   * before the next starts, so the pre-read, upsert and post-read of one edit never interleave with another edit of
+   * the same row.
+   */
   public void syncRow(GoogleSheetSyncRequest request) {
+    String domain = normalizeDomain(request.domain());
+    String table = domainImportService.tableForDomain(domain);
+    UUID lockRowId = requestedRowId(request.row());
+    if (lockRowId == null) {
+      transactionTemplate.executeWithoutResult(status -> applySync(request));
+      return;
+    }
+    rowLock.runWithRowLock(table, lockRowId,
+        () -> transactionTemplate.executeWithoutResult(status -> applySync(request)));
+  }
+
+  private void applySync(GoogleSheetSyncRequest request) {
     String domain = normalizeDomain(request.domain());
     GoogleImportConfig config = resolveConfig(domain, request);
     String action = Optional.ofNullable(request.action())
@@ -60,30 +89,18 @@ public class GoogleSheetSyncService {
         .orElse("UPSERT");
 
     String table = domainImportService.tableForDomain(domain);
-    Map<String, Object> sanitizedRow = sanitizeRow(request.row());
-    if (isOrdersDomain(domain) && config.getTabName() != null) {
-      sanitizedRow.put("store_name", config.getTabName());
-    }
-    if (isOrdersDomain(domain)) {
-      Integer productCount = resolveNumberOfProducts(sanitizedRow);
-      if (productCount != null) {
-        sanitizedRow.put("number_of_products_per_order", productCount);
-      }
-    }
-    Set<String> allowedColumns = allowedColumnsForTable(table);
-    Map<String, String> columnTypes = columnTypesForTable(table);
+    TableSchema schema = schemaCache.get(table);
+    Set<String> allowedColumns = schema.columnNames();
     if (allowedColumns.isEmpty()) {
       throw new IllegalStateException("Unable to resolve columns for table '" + table + "'");
     }
 
-    sanitizedRow.keySet().removeIf(col -> !allowedColumns.contains(col));
-    handleMinioPayloads(sanitizedRow);
+    Map<String, Object> sanitizedRow = prepareRow(domain, config, request.row(), schema.newSession());
     if (!"DELETE".equals(action)
         && allowedColumns.contains("created_at")
         && isNullOrBlank(sanitizedRow.get("created_at"))) {
       sanitizedRow.put("created_at", Timestamp.from(Instant.now()));
     }
-    coerceColumnValues(sanitizedRow, columnTypes);
     if (!allowedColumns.contains("id")) {
       throw new IllegalStateException("Table '" + table + "' must contain an 'id' column for sync operations.");
     }
@@ -93,6 +110,7 @@ public class GoogleSheetSyncService {
 
     if ("DELETE".equals(action)) {
       deleteRow(table, rowId);
+      eventPublisher.publishEvent(DomainDataChangedEvent.row(domain, rowId));
       log.debug("Deleted row {} from {}", rowId, table);
     } else {
       Map<String, Object> previousRow = fetchRow(table, rowId);
@@ -103,6 +121,7 @@ public class GoogleSheetSyncService {
         }
       }
       upsertRow(table, sanitizedRow);
+      eventPublisher.publishEvent(DomainDataChangedEvent.row(domain, rowId));
       Map<String, Object> currentRow = fetchRow(table, rowId);
       if (currentRow == null) {
         log.warn("Unable to fetch row {} after upsert in {}", rowId, table);
@@ -137,6 +156,39 @@ public class GoogleSheetSyncService {
     }
   }
 
+  /**
+   * Sanitizes a raw sheet row and coerces it to the column types of the target table. Shared with full resyncs so
+   * both paths apply identical store, product-count, media and type handling.
+   */
+  Map<String, Object> prepareRow(String domain,
+                                 GoogleImportConfig config,
+                                 Map<String, Object> row,
+                                 ConversionSession session) {
+    Map<String, Object> sanitizedRow = sanitizeRow(row);
+    if (isOrdersDomain(domain) && config.getTabName() != null) {
+      sanitizedRow.put("store_name", config.getTabName());
+    }
+    if (isOrdersDomain(domain)) {
+      Integer productCount = resolveNumberOfProducts(sanitizedRow);
+      if (productCount != null) {
+        sanitizedRow.put("number_of_products_per_order", productCount);
+      }
+    }
+    Set<String> allowedColumns = session.schema().columnNames();
+    sanitizedRow.keySet().removeIf(col -> !allowedColumns.contains(col));
+    handleMinioPayloads(sanitizedRow);
+    coerceColumnValues(sanitizedRow, session);
+    return sanitizedRow;
+  }
+
+  private void coerceColumnValues(Map<String, Object> row, ConversionSession session) {
+    if (row.isEmpty()) {
+      return;
+    }
+    // Each sheet row carries its own subset of columns, so convert per column rather than compiling per key set
+    row.replaceAll((column, value) -> session.converter(column).convert(value));
+  }
+
   private String normalizeDomain(String domain) {
     if (domain == null || domain.isBlank()) {
       throw new IllegalArgumentException("domain is required");
@@ -369,6 +421,22 @@ public class GoogleSheetSyncService {
     return false;
   }
 
+  private UUID requestedRowId(Map<String, Object> row) {
+    if (row == null) {
+      return null;
+    }
+    for (Map.Entry<String, Object> entry : row.entrySet()) {
+      if (entry.getKey() != null && "id".equalsIgnoreCase(entry.getKey().trim()) && entry.getValue() != null) {
+        try {
+          return UUID.fromString(entry.getValue().toString().trim());
+        } catch (IllegalArgumentException ex) {
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
   private UUID resolveRowId(Map<String, Object> row, String action) {
     Object idValue = row.get("id");
     // Allow auto-generation for inserts when id is missing/blank
@@ -404,142 +472,6 @@ public class GoogleSheetSyncService {
     }
   }
 
-  private Set<String> allowedColumnsForTable(String table) {
-    List<String> columns = jdbcTemplate.queryForList(
-        "select column_name from information_schema.columns where table_schema = current_schema() and table_name = ?",
-        String.class,
-        table
-    );
-    return new HashSet<>(columns);
-  }
-
-  private Map<String, String> columnTypesForTable(String table) {
-    List<Map<String, Object>> rows = jdbcTemplate.queryForList(
-        "select column_name, data_type from information_schema.columns where table_schema = current_schema() and table_name = ?",
-        table
-    );
-    Map<String, String> types = new HashMap<>();
-    for (Map<String, Object> row : rows) {
-      Object name = row.get("column_name");
-      Object type = row.get("data_type");
-      if (name != null && type != null) {
-        types.put(name.toString().toLowerCase(Locale.ROOT), type.toString().toLowerCase(Locale.ROOT));
-      }
-    }
-    return types;
-  }
-
-  private UUID convertToUuid(Object value) {
-    if (value instanceof UUID uuid) {
-      return uuid;
-    }
-    return UUID.fromString(value.toString().trim());
-  }
-
-  private Boolean convertToBoolean(Object value) {
-    if (value instanceof Boolean b) {
-      return b;
-    }
-    String s = value.toString().trim().toLowerCase(Locale.ROOT);
-    if ("true".equals(s) || "1".equals(s)) return Boolean.TRUE;
-    if ("false".equals(s) || "0".equals(s)) return Boolean.FALSE;
-    throw new IllegalArgumentException("Cannot convert value '" + value + "' to boolean");
-  }
-
-  private Long convertToLong(Object value) {
-    if (value instanceof Number num) {
-      return num.longValue();
-    }
-    String s = value.toString().trim();
-    if (s.isEmpty()) return null;
-    return Long.parseLong(s);
-  }
-
-  private BigDecimal convertToBigDecimal(Object value) {
-    if (value instanceof BigDecimal bd) {
-      return bd;
-    }
-    if (value instanceof Number num) {
-      return new BigDecimal(num.toString());
-    }
-    String s = value.toString().trim();
-    if (s.isEmpty()) return null;
-    return new BigDecimal(s);
-  }
-
-  private Timestamp convertToTimestamp(Object value) {
-    if (value instanceof Timestamp ts) {
-      return ts;
-    }
-    if (value instanceof LocalDateTime ldt) {
-      return Timestamp.valueOf(ldt);
-    }
-    if (value instanceof Instant instant) {
-      return Timestamp.from(instant);
-    }
-    String s = value.toString().trim();
-    if (s.isEmpty()) return null;
-    try {
-      return Timestamp.from(Instant.parse(s));
-    } catch (DateTimeParseException ignored) { }
-    try {
-      return Timestamp.valueOf(LocalDateTime.parse(s));
-    } catch (DateTimeParseException ignored) { }
-    try {
-      LocalDate date = LocalDate.parse(s);
-      return Timestamp.valueOf(date.atStartOfDay());
-    } catch (DateTimeParseException ignored) { }
-    throw new IllegalArgumentException("Cannot convert value '" + value + "' to timestamp");
-  }
-
-  private Date convertToDate(Object value) {
-    if (value instanceof Date date) {
-      return date;
-    }
-    if (value instanceof LocalDate localDate) {
-      return Date.valueOf(localDate);
-    }
-    if (value instanceof Instant instant) {
-      return Date.valueOf(LocalDateTime.ofInstant(instant, ZoneId.systemDefault()).toLocalDate());
-    }
-    String s = value.toString().trim();
-    if (s.isEmpty()) return null;
-    try {
-      return Date.valueOf(LocalDate.parse(s));
-    } catch (DateTimeParseException ignored) { }
-    try {
-      Instant instant = Instant.parse(s);
-      return Date.valueOf(LocalDateTime.ofInstant(instant, ZoneId.systemDefault()).toLocalDate());
-    } catch (DateTimeParseException ignored) { }
-    throw new IllegalArgumentException("Cannot convert value '" + value + "' to date");
-  }
-
-  private void coerceColumnValues(Map<String, Object> row, Map<String, String> columnTypes) {
-    if (row == null || columnTypes.isEmpty()) {
-      return;
-    }
-    for (Map.Entry<String, Object> entry : row.entrySet()) {
-      String column = entry.getKey();
-      Object value = entry.getValue();
-      if (value == null) continue;
-      String type = columnTypes.get(column);
-      if (type == null) continue;
-      switch (type) {
-        case "uuid" -> entry.setValue(convertToUuid(value));
-        case "boolean" -> entry.setValue(convertToBoolean(value));
-        case "smallint", "integer", "bigint" -> entry.setValue(convertToLong(value));
-        case "numeric", "decimal", "double precision", "real" -> entry.setValue(convertToBigDecimal(value));
-        case "timestamp without time zone", "timestamp with time zone", "timestamp" ->
-            entry.setValue(convertToTimestamp(value));
-        case "date" -> entry.setValue(convertToDate(value));
-        case "json", "jsonb" -> entry.setValue(convertToJsonb(value));
-        default -> {
-          // leave as-is for text/timestamp/date/etc.
-        }
-      }
-    }
-  }
-
   private void handleMinioPayloads(Map<String, Object> row) {
     if (row == null || row.isEmpty()) {
       return;
@@ -669,7 +601,7 @@ public class GoogleSheetSyncService {
     }
   }
 
-  private static Object toJdbcValue(Object value) {
+  static Object toJdbcValue(Object value) {
     if (value == null) {
       return null;
     }
@@ -690,17 +622,6 @@ public class GoogleSheetSyncService {
     return value;
   }
 
-  private PGobject convertToJsonb(Object value) {
-    try {
-      PGobject obj = new PGobject();
-      obj.setType("jsonb");
-      obj.setValue(JSON_MAPPER.writeValueAsString(value));
-      return obj;
-    } catch (Exception ex) {
-      throw new IllegalArgumentException("Cannot convert value to jsonb", ex);
-    }
-  }
-
   private void deleteRow(String table, UUID rowId) {
     jdbcTemplate.update("DELETE FROM " + table + " WHERE id = ?", rowId);
   }
@@ -13,7 +13,7 @@ import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Server-sent events broadcaster that notifies connected clients about hybrid entity upsert activity.
+ * Server-sent events broadcaster that notifies connected clients about hybrid entity upsert and import activity.
  */
 @Component
 public class HybridUpsertBroadcaster {
@@ -53,13 +53,25 @@ public class HybridUpsertBroadcaster {
     if (event == null) {
       return;
     }
+    send(event.domain(), "upsert", event);
+  }
+
+  public void broadcastImportProgress(String domain, Object progress) {
+    if (progress == null) {
+      return;
+    }
+    send(domain, "import-progress", progress);
+  }
+
+  private void send(String domain, String eventName, Object payload) {
+    String resolvedDomain = normalizeDomain(domain);
     emitters.stream()
-        .filter(reg -> Objects.equals(reg.domain, normalizeDomain(event.domain())))
+        .filter(reg -> Objects.equals(reg.domain, resolvedDomain))
         .toList()
         .forEach(reg -> {
           try {
-            reg.emitter.send(SseEmitter.event().name("upsert").data(event));
-            log.debug("Broadcasted upsert event for domain {} to emitter", event.domain());
+            reg.emitter.send(SseEmitter.event().name(eventName).data(payload));
+            log.debug("Broadcasted {} event for domain {} to emitter", eventName, resolvedDomain);
           } catch (IOException ex) {
             emitters.remove(reg);
             log.debug("Removed SSE emitter after send failure: {}", ex.getMessage());
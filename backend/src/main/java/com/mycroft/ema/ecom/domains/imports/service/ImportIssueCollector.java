@@ -0,0 +1,80 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.domains.imports.dto.ImportIssueSummary;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the issues of one import in bounded memory: every issue is counted per column and rule, but only the
+ * first {@code exampleLimit} messages are kept. Safe to use from the convert and write stages at once.
+ */
+public final class ImportIssueCollector {
+
+  private final int exampleLimit;
+  private final List<String> examples = new ArrayList<>();
+  private final Map<String, Tally> tallies = new LinkedHashMap<>();
+  private long total;
+
+  private static final class Tally {
+    private final String column;
+    private final String rule;
+    private final String firstExample;
+    private long count;
+
+    private Tally(String column, String rule, String firstExample) {
+      this.column = column;
+      this.rule = rule;
+      this.firstExample = firstExample;
+    }
+  }
+
+  public ImportIssueCollector(int exampleLimit) {
+    this.exampleLimit = Math.max(0, exampleLimit);
+  }
+
+  public void record(String column, String rule, String message) {
+    record(column, rule, message, 1);
+  }
+
+  /**
+   * Records {@code count} issues described by a single message, such as a set-wise check over the staged rows.
+   */
+  public synchronized void record(String column, String rule, String message, long count) {
+    if (count <= 0) {
+      return;
+    }
+    tallies.computeIfAbsent(column + '\u0000' + rule, key -> new Tally(column, rule, message)).count += count;
+    total += count;
+    if (examples.size() < exampleLimit) {
+      examples.add(message);
+    }
+  }
+
+  public synchronized long total() {
+    return total;
+  }
+
+  public synchronized List<String> examples() {
+    return List.copyOf(examples);
+  }
+
+  /**
+   * Issues recorded beyond the kept examples.
+   */
+  public synchronized long omitted() {
+    return total - examples.size();
+  }
+
+  /**
+   * Counts per column and rule, most frequent first.
+   */
+  public synchronized List<ImportIssueSummary> summaries() {
+    return tallies.values().stream()
+        .sorted((a, b) -> Long.compare(b.count, a.count))
+        .map(tally -> new ImportIssueSummary(tally.column, tally.rule, tally.count, tally.firstExample))
+        .toList();
+  }
+}
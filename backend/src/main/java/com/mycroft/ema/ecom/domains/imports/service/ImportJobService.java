@@ -0,0 +1,372 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.auth.domain.User;
+import com.mycroft.ema.ecom.auth.service.CurrentUserService;
+import com.mycroft.ema.ecom.common.error.NotFoundException;
+import com.mycroft.ema.ecom.domains.imports.config.ImportJobProperties;
+import com.mycroft.ema.ecom.domains.imports.domain.ImportJob;
+import com.mycroft.ema.ecom.domains.imports.dto.DomainPopulationResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportJobResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.PopulationMode;
+import com.mycroft.ema.ecom.domains.imports.dto.TemplateAnalysisResponse;
+import com.mycroft.ema.ecom.domains.imports.repo.ImportJobRepository;
+import com.mycroft.ema.ecom.domains.imports.util.TempFileMultipartFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs file and Google Sheet imports as background jobs on the import job executor. Each job runs in a single
+ * transaction, so a failed or cancelled job leaves the domain as it was; its state and row counters are written in
+ * separate short transactions so they can be polled while it runs.
+ */
+@Service
+public class ImportJobService {
+
+  private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+  private static final long PROGRESS_SAVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final int DEFAULT_LIST_LIMIT = 50;
+  private static final int MAX_LIST_LIMIT = 200;
+
+  /**
+   * Import performed by a job; returns the warnings to keep on the job.
+   */
+  @FunctionalInterface
+  private interface JobWork {
+    JobWarnings run(Consumer<TemplateImportPipeline.Counters> onProgress);
+  }
+
+  /**
+   * Warnings listed by an import and the number of further warnings it only counted.
+   */
+  private record JobWarnings(List<String> listed, long omitted) {
+    static JobWarnings of(TemplateAnalysisResponse analysis) {
+      return new JobWarnings(analysis.getWarnings(), analysis.getOmittedWarnings());
+    }
+  }
+
+  /**
+   * In-memory handle of a queued or running job.
+   */
+  private static final class ActiveJob {
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+    private final Runnable cleanup;
+    private volatile Future<?> future;
+
+    private ActiveJob(Runnable cleanup) {
+      this.cleanup = cleanup;
+    }
+  }
+
+  /**
+   * Thrown from the progress callback to stop a job whose cancellation was requested.
+   */
+  private static final class JobCancelledException extends RuntimeException {
+    private JobCancelledException() {
+      super("Import job was cancelled", null, false, false);
+    }
+  }
+
+  private final ImportJobRepository repository;
+  private final DomainImportService domainImportService;
+  private final GoogleSheetImportService googleSheetImportService;
+  private final ImportUploadService uploadService;
+  private final CurrentUserService currentUserService;
+  private final AsyncTaskExecutor executor;
+  private final ImportJobProperties properties;
+  private final TransactionTemplate jobTransaction;
+  private final TransactionTemplate stateTransaction;
+  private final Map<UUID, ActiveJob> activeJobs = new ConcurrentHashMap<>();
+
+  public ImportJobService(ImportJobRepository repository,
+                          DomainImportService domainImportService,
+                          GoogleSheetImportService googleSheetImportService,
+                          ImportUploadService uploadService,
+                          CurrentUserService currentUserService,
+                          @Qualifier("importJobExecutor") AsyncTaskExecutor executor,
+                          ImportJobProperties properties,
+                          PlatformTransactionManager transactionManager) {
+    this.repository = repository;
+    this.domainImportService = domainImportService;
+    this.googleSheetImportService = googleSheetImportService;
+    this.uploadService = uploadService;
+    this.currentUserService = currentUserService;
+    this.executor = executor;
+    this.properties = properties;
+    this.jobTransaction = new TransactionTemplate(transactionManager);
+    this.stateTransaction = new TransactionTemplate(transactionManager);
+    this.stateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  public ImportJobResponse submitConfigure(String domain, MultipartFile file) {
+    String normalizedDomain = normalizeDomain(domain);
+    domainImportService.tableForDomain(normalizedDomain);
+    domainImportService.validateTemplateUpload(file);
+    TempFileMultipartFile copy = TempFileMultipartFile.copyOf(file);
+    return submitConfigure(normalizedDomain, copy, copy::delete);
+  }
+
+  /**
+   * Like {@link #submitConfigure(String, MultipartFile)} for a completed resumable upload, which the job claims and
+   * reads in place.
+   */
+  public ImportJobResponse submitConfigure(String domain, UUID uploadId) {
+    String normalizedDomain = normalizeDomain(domain);
+    domainImportService.tableForDomain(normalizedDomain);
+    domainImportService.validateTemplateUpload(uploadService.peek(uploadId));
+    return submitConfigure(normalizedDomain, uploadService.claim(uploadId), () -> uploadService.release(uploadId));
+  }
+
+  public ImportJobResponse submitPopulate(String domain, MultipartFile file, PopulationMode mode, String mergeKey) {
+    String normalizedDomain = normalizeDomain(domain);
+    domainImportService.validatePopulationUpload(normalizedDomain, file);
+    domainImportService.tableForDomain(normalizedDomain);
+    TempFileMultipartFile copy = TempFileMultipartFile.copyOf(file);
+    return submitPopulate(normalizedDomain, copy, copy::delete, mode, mergeKey);
+  }
+
+  /**
+   * Like {@link #submitPopulate(String, MultipartFile, PopulationMode, String)} for a completed resumable upload,
+   * which the job claims and reads in place.
+   */
+  public ImportJobResponse submitPopulate(String domain, UUID uploadId, PopulationMode mode, String mergeKey) {
+    String normalizedDomain = normalizeDomain(domain);
+    domainImportService.validatePopulationUpload(normalizedDomain, uploadService.peek(uploadId));
+    domainImportService.tableForDomain(normalizedDomain);
+    return submitPopulate(normalizedDomain, uploadService.claim(uploadId), () -> uploadService.release(uploadId), mode,
+        mergeKey);
+  }
+
+  private ImportJobResponse submitConfigure(String domain, TempFileMultipartFile upload, Runnable notStarted) {
+    ImportJob job = new ImportJob(ImportJob.Kind.CONFIGURE, domain, upload.getOriginalFilename(), requester());
+    return submit(job, upload::delete, notStarted, onProgress -> {
+      TemplateAnalysisResponse analysis = domainImportService.configureFromFile(domain, upload, onProgress);
+      return JobWarnings.of(analysis);
+    });
+  }
+
+  private ImportJobResponse submitPopulate(String domain, TempFileMultipartFile upload, Runnable notStarted,
+                                           PopulationMode mode, String mergeKey) {
+    ImportJob job = new ImportJob(ImportJob.Kind.POPULATE, domain, upload.getOriginalFilename(), requester());
+    return submit(job, upload::delete, notStarted, onProgress -> {
+      DomainPopulationResponse response =
+          domainImportService.populateFromCsv(domain, upload, mode, mergeKey, onProgress);
+      return new JobWarnings(response.getWarnings(), response.getOmittedWarnings());
+    });
+  }
+
+  public ImportJobResponse submitGoogleConnect(GoogleSheetConnectRequest request) {
+    String normalizedDomain = normalizeDomain(request.domain());
+    domainImportService.tableForDomain(normalizedDomain);
+    String sourceName = request.tabName() == null ? request.spreadsheetId() : request.tabName().trim();
+    ImportJob job = new ImportJob(ImportJob.Kind.GOOGLE_CONNECT, normalizedDomain, sourceName, requester());
+    return submit(job, () -> {}, () -> {}, onProgress -> {
+      TemplateAnalysisResponse analysis = googleSheetImportService.connectAndImport(request, onProgress);
+      return JobWarnings.of(analysis);
+    });
+  }
+
+  public ImportJobResponse get(UUID id) {
+    return ImportJobResponse.from(find(id));
+  }
+
+  public List<ImportJobResponse> list(String domain, Integer limit) {
+    int size = limit == null ? DEFAULT_LIST_LIMIT : Math.max(1, Math.min(limit, MAX_LIST_LIMIT));
+    PageRequest page = PageRequest.of(0, size);
+    List<ImportJob> jobs = domain == null || domain.isBlank()
+        ? repository.findAllByOrderByCreatedAtDesc(page)
+        : repository.findAllByDomainOrderByCreatedAtDesc(normalizeDomain(domain), page);
+    return jobs.stream().map(ImportJobResponse::from).toList();
+  }
+
+  /**
+   * Requests cancellation. A queued job is cancelled immediately; a running job stops at its next progress report
+   * and rolls back.
+   */
+  public ImportJobResponse cancel(UUID id) {
+    ImportJob job = find(id);
+    if (job.getStatus().isFinal()) {
+      return ImportJobResponse.from(job);
+    }
+    ActiveJob active = activeJobs.get(id);
+    if (active == null) {
+      // No worker owns the job any more (for example after a restart), so close it here
+      job.setStatus(ImportJob.Status.CANCELLED);
+      job.setFinishedAt(Instant.now());
+      return ImportJobResponse.from(save(job));
+    }
+    active.cancelRequested.set(true);
+    Future<?> future = active.future;
+    if (future != null && future.cancel(false) && activeJobs.remove(id, active)) {
+      active.cleanup.run();
+      job.setStatus(ImportJob.Status.CANCELLED);
+      job.setFinishedAt(Instant.now());
+      return ImportJobResponse.from(save(job));
+    }
+    return ImportJobResponse.from(job);
+  }
+
+  /**
+   * Jobs left queued or running by a previous process can never finish; mark them failed on startup.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void failInterruptedJobs() {
+    stateTransaction.executeWithoutResult(status -> {
+      List<ImportJob> stale = repository.findAllByStatusIn(EnumSet.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING));
+      for (ImportJob job : stale) {
+        job.setStatus(ImportJob.Status.FAILED);
+        job.setErrorMessage("Interrupted by an application restart");
+        job.setFinishedAt(Instant.now());
+      }
+      if (!stale.isEmpty()) {
+        repository.saveAll(stale);
+        log.warn("Marked {} interrupted import job(s) as failed", stale.size());
+      }
+    });
+  }
+
+  /**
+   * Queues {@code work} for {@code job}. {@code cleanup} runs once a queued job ends; {@code notStarted} runs instead
+   * when the job cannot be queued, so a claimed upload can be handed back rather than deleted.
+   */
+  private ImportJobResponse submit(ImportJob job, Runnable cleanup, Runnable notStarted, JobWork work) {
+    ImportJob saved;
+    try {
+      saved = save(job);
+    } catch (RuntimeException ex) {
+      notStarted.run();
+      throw ex;
+    }
+    ActiveJob active = new ActiveJob(cleanup);
+    activeJobs.put(saved.getId(), active);
+    try {
+      active.future = executor.submit(() -> execute(saved, active, work));
+    } catch (TaskRejectedException ex) {
+      activeJobs.remove(saved.getId());
+      notStarted.run();
+      saved.setStatus(ImportJob.Status.FAILED);
+      saved.setErrorMessage("Too many import jobs are queued; try again later");
+      saved.setFinishedAt(Instant.now());
+      save(saved);
+      throw new IllegalStateException("Too many import jobs are queued; try again later", ex);
+    }
+    return ImportJobResponse.from(saved);
+  }
+
+  private void execute(ImportJob job, ActiveJob active, JobWork work) {
+    TemplateImportPipeline.Counters[] live = {null};
+    try {
+      if (active.cancelRequested.get()) {
+        throw new JobCancelledException();
+      }
+      job.setStatus(ImportJob.Status.RUNNING);
+      job.setStartedAt(Instant.now());
+      save(job);
+
+      long[] lastSave = {System.nanoTime()};
+      JobWarnings warnings = jobTransaction.execute(status -> work.run(counters -> {
+        live[0] = counters;
+        if (active.cancelRequested.get()) {
+          throw new JobCancelledException();
+        }
+        long now = System.nanoTime();
+        if (now - lastSave[0] >= PROGRESS_SAVE_INTERVAL_NANOS) {
+          applyCounters(job, counters, true);
+          save(job);
+          lastSave[0] = now;
+        }
+      }));
+      applyCounters(job, live[0], true);
+      applyWarnings(job, warnings);
+      finish(job, ImportJob.Status.DONE, null);
+    } catch (JobCancelledException ex) {
+      // The import transaction was rolled back, so nothing it wrote remains
+      applyCounters(job, live[0], false);
+      finish(job, ImportJob.Status.CANCELLED, null);
+    } catch (RuntimeException ex) {
+      log.warn("Import job {} ({} {}) failed: {}", job.getId(), job.getKind(), job.getDomain(), ex.getMessage(), ex);
+      applyCounters(job, live[0], false);
+      finish(job, ImportJob.Status.FAILED, ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
+    } finally {
+      activeJobs.remove(job.getId(), active);
+      active.cleanup.run();
+    }
+  }
+
+  private void applyCounters(ImportJob job, TemplateImportPipeline.Counters counters, boolean written) {
+    if (counters == null) {
+      if (!written) {
+        job.setRowsWritten(0);
+      }
+      return;
+    }
+    job.setRowsRead(counters.read());
+    job.setRowsWritten(written ? counters.written() : 0);
+    job.setRowsWarned(counters.warned());
+  }
+
+  private void applyWarnings(ImportJob job, JobWarnings warnings) {
+    if (warnings == null || warnings.listed() == null || warnings.listed().isEmpty()) {
+      return;
+    }
+    job.setWarningCount((int) Math.min(Integer.MAX_VALUE, warnings.listed().size() + warnings.omitted()));
+    job.setWarnings(String.join("\n", warnings.listed().stream()
+        .limit(properties.warningLimit())
+        .map(warning -> warning == null ? "" : warning.replace('\n', ' ').replace('\r', ' '))
+        .toList()));
+  }
+
+  private void finish(ImportJob job, ImportJob.Status status, String errorMessage) {
+    job.setStatus(status);
+    job.setErrorMessage(errorMessage);
+    job.setFinishedAt(Instant.now());
+    try {
+      save(job);
+    } catch (RuntimeException ex) {
+      log.error("Failed to record the outcome of import job {}: {}", job.getId(), ex.getMessage(), ex);
+    }
+  }
+
+  private ImportJob save(ImportJob job) {
+    return stateTransaction.execute(status -> repository.save(job));
+  }
+
+  private ImportJob find(UUID id) {
+    return repository.findById(id).orElseThrow(() -> new NotFoundException("Import job not found"));
+  }
+
+  private String requester() {
+    return currentUserService.getCurrentUser().map(User::getUsername).orElse(null);
+  }
+
+  private String normalizeDomain(String domain) {
+    String normalized = domain == null ? "" : domain.trim().toLowerCase(Locale.ROOT);
+    if (normalized.isEmpty()) {
+      throw new IllegalArgumentException("Domain is required");
+    }
+    return normalized;
+  }
+}
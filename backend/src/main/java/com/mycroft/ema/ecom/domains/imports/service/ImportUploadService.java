@@ -0,0 +1,296 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.auth.domain.User;
+import com.mycroft.ema.ecom.auth.service.CurrentUserService;
+import com.mycroft.ema.ecom.common.error.NotFoundException;
+import com.mycroft.ema.ecom.domains.imports.config.ImportUploadProperties;
+import com.mycroft.ema.ecom.domains.imports.domain.ImportUpload;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportUploadInitRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportUploadResponse;
+import com.mycroft.ema.ecom.domains.imports.repo.ImportUploadRepository;
+import com.mycroft.ema.ecom.domains.imports.util.TempFileMultipartFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Resumable uploads for import files larger than the multipart limit. A client opens an upload with the file's size
+ * and SHA-256, sends chunks with their byte offsets (re-sending any chunk is allowed, skipping ahead is not), then
+ * completes it; completion verifies the checksum. Bytes go straight from the request to a file on local disk, so
+ * uploads of any size never sit in memory, and an import job later claims the file without copying it.
+ *
+ * <p>Partial files live on the node that received them, so all chunks of one upload must reach the same instance.
+ */
+@Service
+public class ImportUploadService {
+
+  private static final Logger log = LoggerFactory.getLogger(ImportUploadService.class);
+  private static final HexFormat HEX = HexFormat.of();
+  private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+  private final ImportUploadRepository repository;
+  private final ImportUploadProperties properties;
+  private final CurrentUserService currentUserService;
+  private final TransactionTemplate transactionTemplate;
+  private final Map<UUID, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+  public ImportUploadService(ImportUploadRepository repository,
+                             ImportUploadProperties properties,
+                             CurrentUserService currentUserService,
+                             PlatformTransactionManager transactionManager) {
+    this.repository = repository;
+    this.properties = properties;
+    this.currentUserService = currentUserService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  public ImportUploadResponse init(ImportUploadInitRequest request) {
+    String fileName = request.fileName().trim();
+    String lower = fileName.toLowerCase(Locale.ROOT);
+    if (!(lower.endsWith(".xlsx") || lower.endsWith(".xls") || lower.endsWith(".csv")
+        || CompressedCsv.hasCompressedName(lower))) {
+      throw new IllegalArgumentException("Unsupported file format. Please upload an Excel (.xlsx/.xls), CSV (.csv) "
+          + "or compressed CSV (.csv.gz/.zip) file");
+    }
+    if (request.size() > properties.maxFileSize().toBytes()) {
+      throw new IllegalArgumentException("The file exceeds the maximum upload size of " + properties.maxFileSize());
+    }
+    ImportUpload upload = new ImportUpload(fileName, request.contentType(), request.size(),
+        request.sha256().toLowerCase(Locale.ROOT), requester(), Instant.now().plus(properties.expiry()));
+    ImportUpload saved = transactionTemplate.execute(status -> repository.save(upload));
+    try {
+      Files.createDirectories(properties.resolvedDirectory());
+      Files.deleteIfExists(pathOf(saved.getId()));
+      Files.createFile(pathOf(saved.getId()));
+    } catch (IOException ex) {
+      transactionTemplate.executeWithoutResult(status -> repository.deleteById(saved.getId()));
+      throw new UncheckedIOException("Failed to prepare the upload: " + ex.getMessage(), ex);
+    }
+    return ImportUploadResponse.from(saved);
+  }
+
+  public ImportUploadResponse get(UUID id) {
+    return ImportUploadResponse.from(find(id));
+  }
+
+  /**
+   * Writes the bytes of {@code body} at {@code offset}. The offset may repeat already received bytes but must not
+   * leave a gap; the data is flushed to disk before the received byte count is advanced.
+   */
+  public ImportUploadResponse appendChunk(UUID id, long offset, InputStream body) {
+    return withLock(id, () -> {
+      ImportUpload upload = find(id);
+      requireStatus(upload, ImportUpload.Status.UPLOADING);
+      if (offset < 0 || offset > upload.getReceivedBytes()) {
+        throw new IllegalArgumentException("Chunk offset " + offset + " does not continue the upload; resume at offset "
+            + upload.getReceivedBytes());
+      }
+      long limit = Math.min(properties.maxChunkSize().toBytes(), upload.getTotalSize() - offset);
+      long written = write(pathOf(id), offset, body, limit);
+      upload.setReceivedBytes(Math.max(upload.getReceivedBytes(), offset + written));
+      return ImportUploadResponse.from(transactionTemplate.execute(status -> repository.save(upload)));
+    });
+  }
+
+  /**
+   * Marks a fully received upload complete after checking its SHA-256. On a mismatch the upload stays open so the
+   * damaged range can be sent again.
+   */
+  public ImportUploadResponse complete(UUID id) {
+    return withLock(id, () -> {
+      ImportUpload upload = find(id);
+      if (upload.getStatus() == ImportUpload.Status.COMPLETE) {
+        return ImportUploadResponse.from(upload);
+      }
+      requireStatus(upload, ImportUpload.Status.UPLOADING);
+      if (upload.getReceivedBytes() != upload.getTotalSize()) {
+        throw new IllegalArgumentException("Upload is incomplete: received " + upload.getReceivedBytes() + " of "
+            + upload.getTotalSize() + " bytes");
+      }
+      String actual = sha256(pathOf(id));
+      if (!actual.equals(upload.getSha256())) {
+        throw new IllegalArgumentException("Checksum mismatch: expected " + upload.getSha256() + " but the received file has "
+            + actual);
+      }
+      upload.setStatus(ImportUpload.Status.COMPLETE);
+      return ImportUploadResponse.from(transactionTemplate.execute(status -> repository.save(upload)));
+    });
+  }
+
+  /**
+   * Read-only view of a completed upload, for validating it before it is claimed.
+   */
+  public TempFileMultipartFile peek(UUID id) {
+    ImportUpload upload = find(id);
+    requireStatus(upload, ImportUpload.Status.COMPLETE);
+    return TempFileMultipartFile.of(pathOf(id), upload.getFileName(), upload.getContentType());
+  }
+
+  /**
+   * Hands a completed upload over to its consumer, at most once. The returned file belongs to the caller, which
+   * deletes it when done.
+   */
+  public TempFileMultipartFile claim(UUID id) {
+    ImportUpload upload = find(id);
+    Integer claimed = transactionTemplate.execute(status -> repository.transition(id, ImportUpload.Status.COMPLETE,
+        ImportUpload.Status.CONSUMED, Instant.now()));
+    if (claimed == null || claimed == 0) {
+      throw new IllegalArgumentException("Upload " + id + " is not complete or has already been used");
+    }
+    locks.remove(id);
+    return TempFileMultipartFile.of(pathOf(id), upload.getFileName(), upload.getContentType());
+  }
+
+  /**
+   * Returns a claimed upload whose job never started to the completed state, keeping its file so the client can
+   * submit it again without re-uploading.
+   */
+  public void release(UUID id) {
+    Integer released = transactionTemplate.execute(status -> repository.transition(id, ImportUpload.Status.CONSUMED,
+        ImportUpload.Status.COMPLETE, Instant.now()));
+    if (released == null || released == 0) {
+      log.warn("Import upload {} could not be released; it is no longer claimed", id);
+    }
+  }
+
+  public void abort(UUID id) {
+    withLock(id, () -> {
+      ImportUpload upload = find(id);
+      if (upload.getStatus() == ImportUpload.Status.CONSUMED) {
+        throw new IllegalArgumentException("Upload " + id + " has already been used by an import");
+      }
+      transactionTemplate.executeWithoutResult(status -> repository.delete(upload));
+      deleteQuietly(pathOf(id));
+      return null;
+    });
+    locks.remove(id);
+  }
+
+  /**
+   * Drops expired uploads and their partial files. Claimed uploads only lose their record; the file belongs to the
+   * import job.
+   */
+  @Scheduled(fixedDelayString = "${app.import.uploads.purge-interval:PT1H}")
+  public void purgeExpired() {
+    List<ImportUpload> expired = transactionTemplate.execute(status ->
+        repository.findAllByExpiresAtBefore(Instant.now()));
+    if (expired == null || expired.isEmpty()) {
+      return;
+    }
+    for (ImportUpload upload : expired) {
+      try {
+        transactionTemplate.executeWithoutResult(status -> repository.delete(upload));
+        if (upload.getStatus() != ImportUpload.Status.CONSUMED) {
+          deleteQuietly(pathOf(upload.getId()));
+        }
+        locks.remove(upload.getId());
+      } catch (RuntimeException ex) {
+        log.warn("Failed to purge import upload {}: {}", upload.getId(), ex.getMessage());
+      }
+    }
+    log.info("Purged {} expired import upload(s)", expired.size());
+  }
+
+  private long write(Path path, long offset, InputStream body, long limit) {
+    long written = 0;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.position(offset);
+      byte[] buffer = new byte[IO_BUFFER_BYTES];
+      int read;
+      while ((read = body.read(buffer)) != -1) {
+        if (written + read > limit) {
+          throw new IllegalArgumentException("Chunk is larger than allowed: at most " + limit
+              + " bytes can be written at offset " + offset);
+        }
+        ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+        while (data.hasRemaining()) {
+          channel.write(data);
+        }
+        written += read;
+      }
+      channel.force(false);
+      return written;
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to store the upload chunk: " + ex.getMessage(), ex);
+    }
+  }
+
+  private String sha256(Path path) {
+    try (InputStream input = Files.newInputStream(path)) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] buffer = new byte[IO_BUFFER_BYTES];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+      return HEX.formatHex(digest.digest());
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to read the uploaded file: " + ex.getMessage(), ex);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 not available", ex);
+    }
+  }
+
+  private <T> T withLock(UUID id, Supplier<T> work) {
+    ReentrantLock lock = locks.computeIfAbsent(id, key -> new ReentrantLock());
+    lock.lock();
+    try {
+      return work.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void requireStatus(ImportUpload upload, ImportUpload.Status expected) {
+    if (upload.getStatus() != expected) {
+      throw new IllegalArgumentException("Upload " + upload.getId() + " is " + upload.getStatus().name().toLowerCase(Locale.ROOT));
+    }
+  }
+
+  private ImportUpload find(UUID id) {
+    ImportUpload upload = repository.findById(id).orElseThrow(() -> new NotFoundException("Upload not found"));
+    if (upload.getStatus() != ImportUpload.Status.CONSUMED && upload.getExpiresAt().isBefore(Instant.now())) {
+      throw new NotFoundException("Upload has expired");
+    }
+    return upload;
+  }
+
+  private Path pathOf(UUID id) {
+    return properties.resolvedDirectory().resolve(id + ".upload");
+  }
+
+  private void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ex) {
+      log.warn("Failed to delete upload file {}: {}", path, ex.getMessage());
+    }
+  }
+
+  private String requester() {
+    return currentUserService.getCurrentUser().map(User::getUsername).orElse(null);
+  }
+}
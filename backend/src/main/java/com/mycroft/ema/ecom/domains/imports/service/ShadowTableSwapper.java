@@ -0,0 +1,207 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reloads a dynamic table by filling an index-less copy of it, building the indexes once loaded and swapping the
+ * table names in one short transaction. Readers keep seeing the old rows until the swap, and the old table is
+ * dropped in the background afterwards. Serial columns keep their sequence: the shadow shares the default and takes
+ * over ownership of the sequence before the old table is dropped. Tables with objects a rename would not carry over
+ * (dependent views, foreign keys, triggers, identity columns, exclusion constraints) are not eligible.
+ */
+@Component
+public class ShadowTableSwapper {
+
+  private static final Logger log = LoggerFactory.getLogger(ShadowTableSwapper.class);
+  private static final String LOCK_TIMEOUT = "5s";
+  private static final Pattern INDEX_HEAD = Pattern.compile("^(CREATE (?:UNIQUE )?INDEX) \\S+ ON (?:ONLY )?\\S+");
+
+  /**
+   * Index of the live table, with the constraint it backs when there is one.
+   */
+  private record IndexDefinition(String name, String definition, String constraintType) {}
+
+  /**
+   * Sequence owned by a column of the live table, as created for serial columns.
+   */
+  private record OwnedSequence(String sequence, String column) {}
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public ShadowTableSwapper(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Creates an empty shadow of {@code table} with the same columns, defaults and check constraints but no indexes.
+   *
+   * @return the shadow table name, or {@code null} when {@code table} cannot be swapped safely
+   */
+  public String createShadow(String table) {
+    String blocker = swapBlocker(table);
+    if (blocker != null) {
+      log.info("Reloading {} in place: {}", table, blocker);
+      return null;
+    }
+    String shadow = table + "_shadow_" + suffix();
+    inTransaction(() -> {
+      jdbcTemplate.execute("CREATE TABLE " + shadow + " (LIKE " + table
+          + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING GENERATED INCLUDING STORAGE INCLUDING COMMENTS)");
+      return null;
+    });
+    return shadow;
+  }
+
+  /**
+   * Builds the indexes of {@code table} on the loaded {@code shadow}, swaps the two tables and schedules the old one
+   * to be dropped once the swap is committed.
+   */
+  public void swap(String table, String shadow) {
+    List<IndexDefinition> indexes = jdbcTemplate.query(
+        "select i.relname, pg_get_indexdef(x.indexrelid), c.contype"
+            + " from pg_index x"
+            + " join pg_class i on i.oid = x.indexrelid"
+            + " left join pg_constraint c on c.conindid = x.indexrelid and c.conrelid = x.indrelid"
+            + " where x.indrelid = to_regclass(?)"
+            + " order by i.relname",
+        (rs, rowNum) -> new IndexDefinition(rs.getString(1), rs.getString(2), rs.getString(3)),
+        table);
+    List<OwnedSequence> sequences = jdbcTemplate.query(
+        "select d.objid::regclass::text, quote_ident(a.attname)"
+            + " from pg_depend d"
+            + " join pg_class s on s.oid = d.objid and s.relkind = 'S'"
+            + " join pg_attribute a on a.attrelid = d.refobjid and a.attnum = d.refobjsubid"
+            + " where d.classid = 'pg_class'::regclass and d.refobjid = to_regclass(?) and d.deptype = 'a'",
+        (rs, rowNum) -> new OwnedSequence(rs.getString(1), rs.getString(2)),
+        table);
+    String suffix = suffix();
+    List<String> shadowIndexes = new ArrayList<>();
+    inTransaction(() -> {
+      for (int i = 0; i < indexes.size(); i++) {
+        IndexDefinition index = indexes.get(i);
+        String shadowIndex = "ix_new_" + suffix + "_" + i;
+        Matcher head = INDEX_HEAD.matcher(index.definition());
+        if (!head.find()) {
+          throw new IllegalStateException("Unexpected index definition for " + index.name() + ": " + index.definition());
+        }
+        jdbcTemplate.execute(head.replaceFirst(Matcher.quoteReplacement(head.group(1) + " " + shadowIndex + " ON " + shadow)));
+        if ("p".equals(index.constraintType())) {
+          jdbcTemplate.execute("ALTER TABLE " + shadow + " ADD CONSTRAINT " + shadowIndex + " PRIMARY KEY USING INDEX " + shadowIndex);
+        } else if ("u".equals(index.constraintType())) {
+          jdbcTemplate.execute("ALTER TABLE " + shadow + " ADD CONSTRAINT " + shadowIndex + " UNIQUE USING INDEX " + shadowIndex);
+        }
+        shadowIndexes.add(shadowIndex);
+      }
+      jdbcTemplate.execute("ANALYZE " + shadow);
+      return null;
+    });
+
+    String retired = table + "_old_" + suffix;
+    inTransaction(() -> {
+      String previousTimeout = jdbcTemplate.queryForObject("select current_setting('lock_timeout')", String.class);
+      // Fail fast rather than queue every reader behind the exclusive lock while a long query finishes
+      jdbcTemplate.queryForObject("select set_config('lock_timeout', ?, true)", String.class, LOCK_TIMEOUT);
+      jdbcTemplate.execute("LOCK TABLE " + table + " IN ACCESS EXCLUSIVE MODE");
+      jdbcTemplate.queryForObject("select set_config('lock_timeout', ?, true)", String.class, previousTimeout);
+      for (OwnedSequence sequence : sequences) {
+        // Dropping the retired table would otherwise drop the sequence the shadow's default still uses
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence.sequence() + " OWNED BY " + shadow + "." + sequence.column());
+      }
+      jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + retired);
+      for (int i = 0; i < indexes.size(); i++) {
+        // Renaming a constraint's index renames the constraint too
+        jdbcTemplate.execute("ALTER INDEX " + indexes.get(i).name() + " RENAME TO ix_old_" + suffix + "_" + i);
+      }
+      for (int i = 0; i < indexes.size(); i++) {
+        jdbcTemplate.execute("ALTER INDEX " + shadowIndexes.get(i) + " RENAME TO " + indexes.get(i).name());
+      }
+      jdbcTemplate.execute("ALTER TABLE " + shadow + " RENAME TO " + table);
+      return null;
+    });
+    afterCommit(() -> dropInBackground(retired));
+  }
+
+  /**
+   * Drops a shadow table after a failed load. Inside a caller transaction the rollback removes it instead.
+   */
+  public void discard(String shadow) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return;
+    }
+    try {
+      inTransaction(() -> {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + shadow);
+        return null;
+      });
+    } catch (RuntimeException ex) {
+      log.warn("Failed to drop shadow table {}: {}", shadow, ex.getMessage());
+    }
+  }
+
+  private String swapBlocker(String table) {
+    Integer dependents = jdbcTemplate.queryForObject(
+        "select"
+            + " (select count(*) from pg_depend d join pg_rewrite r on r.oid = d.objid"
+            + "   where d.refobjid = to_regclass(?) and r.ev_class <> to_regclass(?))"
+            + " + (select count(*) from pg_constraint where (confrelid = to_regclass(?) or conrelid = to_regclass(?))"
+            + "   and contype in ('f', 'x'))"
+            + " + (select count(*) from pg_trigger where tgrelid = to_regclass(?) and not tgisinternal)"
+            + " + (select count(*) from pg_attribute where attrelid = to_regclass(?) and attidentity <> '')",
+        Integer.class, table, table, table, table, table, table);
+    if (dependents != null && dependents > 0) {
+      return "it has dependent views, foreign keys, triggers, identity columns or exclusion constraints";
+    }
+    return null;
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+
+  private void dropInBackground(String retired) {
+    Thread.ofVirtual().name("drop-" + retired).start(() -> {
+      try {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + retired));
+        log.debug("Dropped retired table {}", retired);
+      } catch (RuntimeException ex) {
+        log.warn("Failed to drop retired table {}: {}", retired, ex.getMessage());
+      }
+    });
+  }
+
+  private <T> T inTransaction(Supplier<T> work) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return work.get();
+    }
+    return transactionTemplate.execute(status -> work.get());
+  }
+
+  private static String suffix() {
+    return UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+  }
+}
@@ -0,0 +1,311 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.domains.imports.util.TempFileMultipartFile;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of the first sheet of an uploaded workbook. {@code .xlsx} files are streamed with the XSSF event
+ * model so memory stays constant regardless of sheet size; legacy {@code .xls} files fall back to the in-memory model.
+ */
+final class SpreadsheetRowReader {
+
+  /**
+   * Receives each physical row in order. Cells are positioned by column index and hold {@code String},
+   * {@code Long}, {@code BigDecimal}, {@code Boolean}, {@code LocalDate} or {@code null}.
+   */
+  @FunctionalInterface
+  interface RowCallback {
+    /**
+     * @return {@code false} to stop reading
+     */
+    boolean onRow(int rowIndex, Object[] cells) throws Exception;
+  }
+
+  private SpreadsheetRowReader() {
+  }
+
+  static void read(MultipartFile file, RowCallback callback) throws Exception {
+    boolean ooxml;
+    try (InputStream is = FileMagic.prepareToCheckMagic(file.getInputStream())) {
+      ooxml = FileMagic.valueOf(is) == FileMagic.OOXML;
+    }
+    if (ooxml) {
+      readXlsx(file, callback);
+    } else {
+      readWorkbook(file, callback);
+    }
+  }
+
+  private static void readXlsx(MultipartFile file, RowCallback callback) throws Exception {
+    if (file instanceof TempFileMultipartFile stored) {
+      readXlsx(stored.getPath(), callback);
+      return;
+    }
+    // OPCPackage reads entries lazily from a file but buffers a whole stream, so spool the upload to disk first
+    Path temp = Files.createTempFile("template-import-", ".xlsx");
+    try {
+      try (InputStream is = file.getInputStream()) {
+        Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+      }
+      readXlsx(temp, callback);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static void readXlsx(Path path, RowCallback callback) throws Exception {
+    try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+      XSSFReader reader = new XSSFReader(pkg);
+      ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+      StylesTable styles = reader.getStylesTable();
+      Iterator<InputStream> sheets = reader.getSheetsData();
+      if (!sheets.hasNext()) {
+        return;
+      }
+      try (InputStream sheet = new BufferedInputStream(sheets.next())) {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new SheetHandler(strings, styles, callback));
+        try {
+          parser.parse(new InputSource(sheet));
+        } catch (StopReading ignored) {
+          // callback asked to stop
+        } catch (CallbackFailure failure) {
+          throw failure.cause;
+        }
+      }
+    }
+  }
+
+  private static void readWorkbook(MultipartFile file, RowCallback callback) throws Exception {
+    try (InputStream is = file.getInputStream(); Workbook wb = WorkbookFactory.create(is)) {
+      Sheet sheet = wb.getNumberOfSheets() > 0 ? wb.getSheetAt(0) : null;
+      if (sheet == null) {
+        return;
+      }
+      for (int r = sheet.getFirstRowNum(); r <= sheet.getLastRowNum(); r++) {
+        Row row = sheet.getRow(r);
+        if (row == null) {
+          continue;
+        }
+        int last = Math.max(row.getLastCellNum(), 0);
+        Object[] cells = new Object[last];
+        for (int c = 0; c < last; c++) {
+          Cell cell = row.getCell(c);
+          cells[c] = cell == null ? null : cellValue(cell);
+        }
+        if (!callback.onRow(r, cells)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static Object cellValue(Cell cell) {
+    return switch (cell.getCellType()) {
+      case STRING -> cell.getStringCellValue();
+      case NUMERIC -> {
+        if (DateUtil.isCellDateFormatted(cell)) {
+          Date d = cell.getDateCellValue();
+          yield LocalDate.ofInstant(d.toInstant(), ZoneId.systemDefault());
+        }
+        yield numeric(cell.getNumericCellValue());
+      }
+      case BOOLEAN -> cell.getBooleanCellValue();
+      case FORMULA -> {
+        try {
+          FormulaEvaluator ev = cell.getSheet().getWorkbook().getCreationHelper().createFormulaEvaluator();
+          CellValue cv = ev.evaluate(cell);
+          yield switch (cv.getCellType()) {
+            case STRING -> cv.getStringValue();
+            case NUMERIC -> {
+              if (DateUtil.isCellDateFormatted(cell)) {
+                Date d = cell.getDateCellValue();
+                yield LocalDate.ofInstant(d.toInstant(), ZoneId.systemDefault());
+              }
+              yield numeric(cv.getNumberValue());
+            }
+            case BOOLEAN -> cv.getBooleanValue();
+            default -> null;
+          };
+        } catch (Exception ex) {
+          yield null;
+        }
+      }
+      default -> null;
+    };
+  }
+
+  private static Object numeric(double n) {
+    if (n == Math.rint(n)) {
+      return (long) n;
+    }
+    return BigDecimal.valueOf(n);
+  }
+
+  /**
+   * SAX handler for a worksheet part. Formula cells use the value cached by Excel at save time.
+   */
+  private static final class SheetHandler extends DefaultHandler {
+
+    private final ReadOnlySharedStringsTable strings;
+    private final StylesTable styles;
+    private final RowCallback callback;
+    private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+    private final List<Object> cells = new ArrayList<>();
+
+    private int rowIndex = -1;
+    private int nextRowIndex;
+    private int column;
+    private String cellType;
+    private int styleIndex;
+    private boolean collecting;
+    private boolean hasValue;
+
+    SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, RowCallback callback) {
+      this.strings = strings;
+      this.styles = styles;
+      this.callback = callback;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      switch (localName) {
+        case "row" -> {
+          String r = attributes.getValue("r");
+          rowIndex = r == null ? nextRowIndex : Integer.parseInt(r) - 1;
+          nextRowIndex = rowIndex + 1;
+          cells.clear();
+          column = 0;
+        }
+        case "c" -> {
+          String ref = attributes.getValue("r");
+          column = ref == null ? column : new CellReference(ref).getCol();
+          cellType = attributes.getValue("t");
+          String s = attributes.getValue("s");
+          styleIndex = s == null ? -1 : Integer.parseInt(s);
+          hasValue = false;
+          text.setLength(0);
+        }
+        case "v", "t" -> {
+          collecting = true;
+          if ("v".equals(localName)) {
+            text.setLength(0);
+          }
+        }
+        default -> {
+        }
+      }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      if (collecting) {
+        text.append(ch, start, length);
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      switch (localName) {
+        case "v", "t" -> {
+          collecting = false;
+          hasValue = true;
+        }
+        case "c" -> {
+          while (cells.size() <= column) {
+            cells.add(null);
+          }
+          cells.set(column, hasValue ? value(text.toString()) : null);
+          column++;
+        }
+        case "row" -> {
+          boolean more;
+          try {
+            more = callback.onRow(rowIndex, cells.toArray());
+          } catch (Exception ex) {
+            throw new CallbackFailure(ex);
+          }
+          if (!more) {
+            throw new StopReading();
+          }
+        }
+        default -> {
+        }
+      }
+    }
+
+    private Object value(String raw) {
+      if (cellType == null || "n".equals(cellType)) {
+        if (raw.isEmpty()) {
+          return null;
+        }
+        double n = Double.parseDouble(raw);
+        if (isDateStyle() && DateUtil.isValidExcelDate(n)) {
+          Date d = DateUtil.getJavaDate(n);
+          return LocalDate.ofInstant(d.toInstant(), ZoneId.systemDefault());
+        }
+        return numeric(n);
+      }
+      return switch (cellType) {
+        case "s" -> strings.getItemAt(Integer.parseInt(raw.trim())).getString();
+        case "b" -> "1".equals(raw.trim());
+        case "e" -> null;
+        default -> raw; // inlineStr, str (formula string) and d (ISO date)
+      };
+    }
+
+    private boolean isDateStyle() {
+      if (styleIndex < 0 || styles == null) {
+        return false;
+      }
+      return dateStyles.computeIfAbsent(styleIndex, index -> {
+        XSSFCellStyle style = styles.getStyleAt(index);
+        return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+      });
+    }
+  }
+
+  private static final class StopReading extends SAXException {
+  }
+
+  private static final class CallbackFailure extends SAXException {
+    private final Exception cause;
+
+    CallbackFailure(Exception cause) {
+      super(cause);
+      this.cause = cause;
+    }
+  }
+}
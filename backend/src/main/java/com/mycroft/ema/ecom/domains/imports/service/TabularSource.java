@@ -0,0 +1,85 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Rows of tabular data fed to template analysis and loading: an uploaded CSV or workbook, or values already held in
+ * memory such as a Google Sheet tab. The first row delivered is the header; the next one may hold type markers.
+ */
+@FunctionalInterface
+public interface TabularSource {
+
+  /**
+   * Receives each row in order. Cells are positioned by column index and hold {@code String}, {@code Long},
+   * {@code BigDecimal}, {@code Boolean}, {@code LocalDate} or {@code null}.
+   */
+  @FunctionalInterface
+  interface RowCallback {
+    /**
+     * @return {@code false} to stop reading
+     */
+    boolean onRow(int rowIndex, Object[] cells) throws Exception;
+  }
+
+  /**
+   * Streams the rows to {@code callback}; may be called more than once.
+   */
+  void read(RowCallback callback) throws Exception;
+
+  /**
+   * Reads a CSV upload with {@link CsvRowReader} and anything else as a workbook with {@link SpreadsheetRowReader}.
+   * Gzip uploads and zip archives holding a single CSV file are decompressed on the fly into the CSV reader.
+   */
+  static TabularSource of(MultipartFile file) {
+    CompressedCsv.Format format = CompressedCsv.detect(file);
+    if (format == CompressedCsv.Format.GZIP) {
+      return CompressedCsv.source(file, format, null);
+    }
+    if (format == CompressedCsv.Format.ZIP) {
+      List<String> entries = CompressedCsv.csvEntries(file);
+      if (entries.size() != 1) {
+        throw new IllegalArgumentException("The zip archive must contain exactly one CSV file, found " + entries.size());
+      }
+      return CompressedCsv.source(file, format, entries.get(0));
+    }
+    if (isCsv(file)) {
+      return callback -> CsvRowReader.read(file, callback::onRow);
+    }
+    return callback -> SpreadsheetRowReader.read(file, callback::onRow);
+  }
+
+  /**
+   * Serves rows held in memory, as returned by the Sheets API. Cells are passed on as text, the way a CSV export of
+   * the same rows would read, and empty rows are skipped.
+   */
+  static TabularSource of(List<List<Object>> rows) {
+    return callback -> {
+      int rowIndex = 0;
+      for (List<Object> row : rows) {
+        if (row == null || row.isEmpty()) {
+          continue;
+        }
+        Object[] cells = new Object[row.size()];
+        for (int c = 0; c < cells.length; c++) {
+          Object value = row.get(c);
+          cells[c] = value == null ? "" : value.toString();
+        }
+        if (!callback.onRow(rowIndex++, cells)) {
+          return;
+        }
+      }
+    };
+  }
+
+  static boolean isCsv(MultipartFile file) {
+    String filename = Optional.ofNullable(file.getOriginalFilename()).orElse("");
+    String contentType = Optional.ofNullable(file.getContentType()).orElse("");
+    return filename.toLowerCase(Locale.ROOT).endsWith(".csv")
+        || "text/csv".equalsIgnoreCase(contentType)
+        || "application/csv".equalsIgnoreCase(contentType);
+  }
+}
@@ -0,0 +1,337 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.domains.imports.config.TemplateImportProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs a template import as three stages connected by bounded queues: parsing on one thread, value conversion on a
+ * second, and chunked writes on the calling thread so they join the caller's transaction. Memory is bounded by the
+ * queue capacity and chunk size rather than by the file size.
+ */
+@Component
+public class TemplateImportPipeline {
+
+  /** Column added to staging tables holding each row's position in the file. */
+  public static final String STAGE_ROW_COLUMN = "import_stage_row";
+
+  private static final Logger log = LoggerFactory.getLogger(TemplateImportPipeline.class);
+  private static final int STAGE_BATCH = 256;
+  private static final List<ImportRow> END = List.of();
+
+  /**
+   * Raw row read from the upload with its 1-based row number in the source file.
+   */
+  public record ImportRow(int rowNumber, Object[] values) {}
+
+  /**
+   * Parse stage: emits raw rows in file order.
+   */
+  @FunctionalInterface
+  public interface RowSource {
+    void read(Consumer<ImportRow> emit) throws Exception;
+  }
+
+  /**
+   * Per-row step of the convert or write stage: returns the values to pass on, or {@code null} to skip the row.
+   */
+  @FunctionalInterface
+  public interface RowStage {
+    Object[] convert(ImportRow row, Counters counters);
+  }
+
+  /**
+   * Moves the rows collected in a staging table into the target table and returns the outcome.
+   */
+  @FunctionalInterface
+  public interface StagedMerge<T> {
+    T merge(String stagingTable);
+  }
+
+  /**
+   * Live row counters shared by the stages.
+   */
+  public static final class Counters {
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong warned = new AtomicLong();
+
+    public void markWarned() {
+      warned.incrementAndGet();
+    }
+
+    public long read() {
+      return read.get();
+    }
+
+    public long written() {
+      return written.get();
+    }
+
+    public long warned() {
+      return warned.get();
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final TemplateImportProperties properties;
+
+  public TemplateImportPipeline(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                TemplateImportProperties properties) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.properties = properties;
+  }
+
+  /**
+   * Imports all rows from {@code source} into {@code table}. Each chunk is written with one bulk statement; when no
+   * transaction is active on the calling thread each chunk also commits on its own. {@code onChunk} is invoked on
+   * the calling thread after every chunk is written.
+   *
+   * @return number of rows written
+   */
+  public long run(String table,
+                  List<String> columns,
+                  RowSource source,
+                  RowStage convert,
+                  RowStage beforeWrite,
+                  Consumer<Counters> onChunk) {
+    return stream(table, columns, source, convert, beforeWrite, onChunk);
+  }
+
+  /**
+   * Like {@link #run} but loads the rows into an unlogged staging table shaped like {@code table} and then hands it
+   * to {@code merge}, so set-wise checks against the target run in the database instead of in memory. The staging
+   * table has an extra {@value #STAGE_ROW_COLUMN} column numbering rows in file order and is dropped afterwards.
+   *
+   * @return the result of {@code merge}
+   */
+  public <T> T runStaged(String table,
+                        List<String> columns,
+                        RowSource source,
+                        RowStage convert,
+                        RowStage beforeWrite,
+                        Consumer<Counters> onChunk,
+                        StagedMerge<T> merge) {
+    String staging = "import_stage_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    inTransaction(() -> {
+      jdbcTemplate.execute("CREATE UNLOGGED TABLE " + staging + " (LIKE " + table
+          + " INCLUDING DEFAULTS INCLUDING IDENTITY INCLUDING GENERATED)");
+      jdbcTemplate.execute("ALTER TABLE " + staging + " ADD COLUMN " + STAGE_ROW_COLUMN + " BIGSERIAL");
+      return null;
+    });
+    boolean merged = false;
+    try {
+      stream(staging, columns, source, convert, beforeWrite, onChunk);
+      T result = inTransaction(() -> merge.merge(staging));
+      merged = true;
+      return result;
+    } finally {
+      // A failed caller transaction rolls the staging table back with everything else
+      if (merged || !TransactionSynchronizationManager.isActualTransactionActive()) {
+        dropQuietly(staging);
+      }
+    }
+  }
+
+  private long stream(String table,
+                      List<String> columns,
+                      RowSource source,
+                      RowStage convert,
+                      RowStage beforeWrite,
+                      Consumer<Counters> onChunk) {
+    int capacity = Math.max(2, properties.queueCapacity() / STAGE_BATCH);
+    BlockingQueue<List<ImportRow>> parsed = new ArrayBlockingQueue<>(capacity);
+    BlockingQueue<List<ImportRow>> converted = new ArrayBlockingQueue<>(capacity);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    Counters counters = new Counters();
+
+    Thread parser = Thread.ofVirtual().name("import-parse-" + table).start(() -> {
+      List<ImportRow> batch = new ArrayList<>(STAGE_BATCH);
+      try {
+        source.read(row -> {
+          counters.read.incrementAndGet();
+          batch.add(row);
+          if (batch.size() >= STAGE_BATCH) {
+            put(parsed, List.copyOf(batch), cancelled);
+            batch.clear();
+          }
+        });
+        if (!batch.isEmpty()) {
+          put(parsed, List.copyOf(batch), cancelled);
+        }
+      } catch (CancellationException ignored) {
+        // writer failed; nothing left to do
+      } catch (RuntimeException ex) {
+        failure.compareAndSet(null, ex);
+      } catch (Exception ex) {
+        failure.compareAndSet(null, new IllegalStateException(ex.getMessage(), ex));
+      } finally {
+        putEnd(parsed, cancelled);
+      }
+    });
+
+    Thread converter = Thread.ofVirtual().name("import-convert-" + table).start(() -> {
+      try {
+        while (true) {
+          List<ImportRow> batch = take(parsed, cancelled);
+          if (batch == END) {
+            break;
+          }
+          List<ImportRow> out = new ArrayList<>(batch.size());
+          for (ImportRow row : batch) {
+            Object[] values = convert.convert(row, counters);
+            if (values != null) {
+              out.add(new ImportRow(row.rowNumber(), values));
+            }
+          }
+          if (!out.isEmpty()) {
+            put(converted, out, cancelled);
+          }
+        }
+      } catch (CancellationException ignored) {
+        // writer failed; nothing left to do
+      } catch (RuntimeException ex) {
+        failure.compareAndSet(null, ex);
+        cancelled.set(true);
+      } finally {
+        putEnd(converted, cancelled);
+      }
+    });
+
+    try {
+      List<Object[]> chunk = new ArrayList<>(Math.min(properties.chunkSize(), 65_536));
+      while (true) {
+        List<ImportRow> batch = take(converted, cancelled);
+        if (batch == END) {
+          break;
+        }
+        for (ImportRow row : batch) {
+          Object[] values = beforeWrite.convert(row, counters);
+          if (values == null) {
+            continue;
+          }
+          chunk.add(values);
+          if (chunk.size() >= properties.chunkSize()) {
+            writeChunk(table, columns, chunk, counters);
+            onChunk.accept(counters);
+          }
+        }
+      }
+      RuntimeException stageFailure = failure.get();
+      if (stageFailure != null) {
+        throw stageFailure;
+      }
+      if (!chunk.isEmpty()) {
+        writeChunk(table, columns, chunk, counters);
+        onChunk.accept(counters);
+      }
+      return counters.written();
+    } catch (CancellationException ex) {
+      // A stage stopped early; surface its failure rather than the cancellation
+      cancelled.set(true);
+      RuntimeException stageFailure = failure.get();
+      throw stageFailure != null ? stageFailure : new IllegalStateException("Import was cancelled", ex);
+    } catch (RuntimeException ex) {
+      cancelled.set(true);
+      throw ex;
+    } finally {
+      join(parser);
+      join(converter);
+    }
+  }
+
+  private void writeChunk(String table, List<String> columns, List<Object[]> chunk, Counters counters) {
+    BulkRowLoader.RowSource rows = sink -> chunk.forEach(sink);
+    counters.written.addAndGet(inTransaction(() -> BulkRowLoader.load(jdbcTemplate, table, columns, rows)));
+    chunk.clear();
+  }
+
+  /**
+   * Joins the caller's transaction when there is one, otherwise commits {@code work} on its own.
+   */
+  private <T> T inTransaction(Supplier<T> work) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return work.get();
+    }
+    return transactionTemplate.execute(status -> work.get());
+  }
+
+  private void dropQuietly(String staging) {
+    try {
+      inTransaction(() -> {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+        return null;
+      });
+    } catch (RuntimeException ex) {
+      log.warn("Failed to drop import staging table {}: {}", staging, ex.getMessage());
+    }
+  }
+
+  private static void put(BlockingQueue<List<ImportRow>> queue, List<ImportRow> batch, AtomicBoolean cancelled) {
+    try {
+      while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+        if (cancelled.get()) {
+          throw new CancellationException();
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException();
+    }
+  }
+
+  private static void putEnd(BlockingQueue<List<ImportRow>> queue, AtomicBoolean cancelled) {
+    try {
+      put(queue, END, cancelled);
+    } catch (CancellationException ignored) {
+      // the consumer has stopped reading
+    }
+  }
+
+  private static List<ImportRow> take(BlockingQueue<List<ImportRow>> queue, AtomicBoolean cancelled) {
+    try {
+      while (true) {
+        List<ImportRow> batch = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (batch != null) {
+          return batch;
+        }
+        if (cancelled.get()) {
+          throw new CancellationException();
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Import was interrupted", ex);
+    }
+  }
+
+  private static void join(Thread thread) {
+    try {
+      thread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,69 +0,0 @@
-package com.mycroft.ema.ecom.domains.imports.util;
-
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-
-/**
- * In-memory {@link MultipartFile} implementation used to reuse the file processing pipeline with generated data.
- */
-public class MemoryMultipartFile implements MultipartFile {
-
-  private final String name;
-  private final String originalFilename;
-  private final String contentType;
-  private final byte[] content;
-
-  public MemoryMultipartFile(String name, String originalFilename, String contentType, byte[] content) {
-    this.name = name;
-    this.originalFilename = originalFilename;
-    this.contentType = contentType;
-    this.content = content != null ? content : new byte[0];
-  }
-
-  @Override
-  public String getName() {
-    return name;
-  }
-
-  @Override
-  public String getOriginalFilename() {
-    return originalFilename;
-  }
-
-  @Override
-  public String getContentType() {
-    return contentType;
-  }
-
-  @Override
-  public boolean isEmpty() {
-    return content.length == 0;
-  }
-
-  @Override
-  public long getSize() {
-    return content.length;
-  }
-
-  @Override
-  public byte[] getBytes() {
-    return content.clone();
-  }
-
-  @Override
-  public InputStream getInputStream() {
-    return new ByteArrayInputStream(content);
-  }
-
-  @Override
-  public void transferTo(File dest) throws IOException {
-    try (InputStream input = getInputStream(); FileOutputStream output = new FileOutputStream(dest)) {
-      input.transferTo(output);
-    }
-  }
-}
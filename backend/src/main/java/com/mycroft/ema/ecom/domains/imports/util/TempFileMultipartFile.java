@@ -0,0 +1,122 @@
+package com.mycroft.ema.ecom.domains.imports.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * {@link MultipartFile} backed by a private temporary copy of an upload so it can be processed after the request ends.
+ * {@link #delete()} removes the copy once processing is over.
+ */
+public class TempFileMultipartFile implements MultipartFile {
+
+  private final String name;
+  private final String originalFilename;
+  private final String contentType;
+  private final Path path;
+  private final long size;
+
+  private TempFileMultipartFile(String name, String originalFilename, String contentType, Path path, long size) {
+    this.name = name;
+    this.originalFilename = originalFilename;
+    this.contentType = contentType;
+    this.path = path;
+    this.size = size;
+  }
+
+  /**
+   * Copies {@code upload} to a new temporary file.
+   */
+  public static TempFileMultipartFile copyOf(MultipartFile upload) {
+    Path path = null;
+    try {
+      path = Files.createTempFile("import-job-", ".upload");
+      try (InputStream input = upload.getInputStream()) {
+        Files.copy(input, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return new TempFileMultipartFile(upload.getName(), upload.getOriginalFilename(), upload.getContentType(),
+          path, Files.size(path));
+    } catch (IOException ex) {
+      if (path != null) {
+        try {
+          Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+          // best effort
+        }
+      }
+      throw new UncheckedIOException("Failed to store the uploaded file: " + ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Wraps an existing file, such as a completed resumable upload, without copying it. {@link #delete()} removes it.
+   */
+  public static TempFileMultipartFile of(Path path, String originalFilename, String contentType) {
+    try {
+      return new TempFileMultipartFile("file", originalFilename, contentType, path, Files.size(path));
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to open the uploaded file: " + ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * The backing file, for readers that can open a file directly instead of streaming it.
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  public void delete() {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ignored) {
+      // the temp directory is cleaned by the OS eventually
+    }
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String getOriginalFilename() {
+    return originalFilename;
+  }
+
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public long getSize() {
+    return size;
+  }
+
+  @Override
+  public byte[] getBytes() throws IOException {
+    return Files.readAllBytes(path);
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return Files.newInputStream(path);
+  }
+
+  @Override
+  public void transferTo(File dest) throws IOException {
+    Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+}
@@ -1,10 +1,15 @@
 package com.mycroft.ema.ecom.domains.imports.web;
 
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectAllRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectAllResponse;
 import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectRequest;
 import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectResponse;
 import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetMetadataResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetResyncRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetResyncResponse;
 import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetWebhookPayload;
 import com.mycroft.ema.ecom.domains.imports.service.GoogleSheetImportService;
+import com.mycroft.ema.ecom.domains.imports.service.GoogleSheetResyncService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -25,9 +30,11 @@ public class GoogleImportController {
   private static final Logger log = LoggerFactory.getLogger(GoogleImportController.class);
 
   private final GoogleSheetImportService importService;
+  private final GoogleSheetResyncService resyncService;
 
-  public GoogleImportController(GoogleSheetImportService importService) {
+  public GoogleImportController(GoogleSheetImportService importService, GoogleSheetResyncService resyncService) {
     this.importService = importService;
+    this.resyncService = resyncService;
   }
 
   @PostMapping("/connect")
@@ -38,6 +45,20 @@ public class GoogleImportController {
     return GoogleSheetConnectResponse.configuredResponse();
   }
 
+  @PostMapping("/connect-all")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Connect every store tab", description = "Fetches all (or the selected) tabs of a spreadsheet in one batch read and imports them concurrently, reporting the outcome per tab.")
+  public GoogleSheetConnectAllResponse connectAll(@Valid @RequestBody GoogleSheetConnectAllRequest request) {
+    return importService.connectAllStores(request);
+  }
+
+  @PostMapping("/resync")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Resynchronize a connected Google Sheet", description = "Re-reads a connected tab and writes only the rows whose content changed since the previous resync.")
+  public GoogleSheetResyncResponse resync(@Valid @RequestBody GoogleSheetResyncRequest request) {
+    return resyncService.resync(request);
+  }
+
   @GetMapping("/spreadsheets/{spreadsheetId}/sheets")
   @PreAuthorize("hasAuthority('import:configure')")
   @Operation(summary = "List sheets within a spreadsheet", description = "Returns the available sheet tabs for the given spreadsheet.")
@@ -1,12 +1,17 @@
 package com.mycroft.ema.ecom.domains.imports.web;
 
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
 import com.mycroft.ema.ecom.domains.imports.domain.GoogleImportConfig;
 import com.mycroft.ema.ecom.domains.imports.dto.DomainPopulationResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportValidationReport;
+import com.mycroft.ema.ecom.domains.imports.dto.PopulationMode;
 import com.mycroft.ema.ecom.domains.imports.dto.TemplateAnalysisResponse;
 import com.mycroft.ema.ecom.domains.imports.service.DomainImportService;
 import com.mycroft.ema.ecom.domains.imports.repo.GoogleImportConfigRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.dao.DataAccessException;
@@ -34,34 +39,27 @@ public class ImportConfigureController {
   private final DomainImportService domainImportService;
   private final JdbcTemplate jdbcTemplate;
   private final GoogleImportConfigRepository googleImportConfigRepository;
+  private final TableSchemaCache schemaCache;
+  private final ApplicationEventPublisher eventPublisher;
 
   public ImportConfigureController(DomainImportService domainImportService,
                                    JdbcTemplate jdbcTemplate,
-                                   GoogleImportConfigRepository googleImportConfigRepository) {
+                                   GoogleImportConfigRepository googleImportConfigRepository,
+                                   TableSchemaCache schemaCache,
+                                   ApplicationEventPublisher eventPublisher) {
     this.domainImportService = domainImportService;
     this.jdbcTemplate = jdbcTemplate;
     this.googleImportConfigRepository = googleImportConfigRepository;
+    this.schemaCache = schemaCache;
+    this.eventPublisher = eventPublisher;
   }
 
   @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   @PreAuthorize("hasAuthority('import:configure')")
   @Transactional
-  @Operation(summary = "Configure domain from template", description = "Upload a filled Excel template (.xlsx/.xls/.csv) and specify domain=product. The service will infer columns and create/update the corresponding table.")
+  @Operation(summary = "Configure domain from template", description = "Upload a filled Excel template (.xlsx/.xls/.csv, or a .csv.gz/.zip compressed CSV) and specify domain=product. The service will infer columns and create/update the corresponding table.")
   public TemplateAnalysisResponse configure(@RequestParam("domain") String domain,
                                            @RequestPart("file") MultipartFile file){
-    // Validate file is not empty
-    if (file.isEmpty()) {
-      throw new IllegalArgumentException("Please upload a non-empty file");
-    }
-
-    // Validate file extension
-    String filename = file.getOriginalFilename();
-    if (filename == null || !(filename.toLowerCase().endsWith(".xlsx") || 
-                             filename.toLowerCase().endsWith(".xls") || 
-                             filename.toLowerCase().endsWith(".csv"))) {
-      throw new IllegalArgumentException("Unsupported file format. Please upload an Excel (.xlsx/.xls) or CSV (.csv) file");
-    }
-
     TemplateAnalysisResponse analysis = domainImportService.configureFromFile(domain, file);
     return analysis;
   }
@@ -69,27 +67,35 @@ public class ImportConfigureController {
   @PostMapping(value = "/populate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   @PreAuthorize("hasAuthority('import:configure')")
   @Transactional
-  @Operation(summary = "Populate data for an existing domain", description = "Upload a CSV file whose columns match the configured component to repopulate the table.")
+  @Operation(summary = "Populate data for an existing domain", description = "Upload a CSV file (optionally .csv.gz or a single-file .zip) whose columns match the configured component to repopulate the table. mode=append|replace|merge overrides replaceExisting; merge upserts rows by mergeKey (default: the domain's configured natural key).")
   public DomainPopulationResponse populate(@RequestParam("domain") String domain,
                                            @RequestPart("file") MultipartFile file,
-                                           @RequestParam(value = "replaceExisting", defaultValue = "true") boolean replaceExisting) {
-    String normalizedDomain = (domain == null ? "" : domain.trim());
-    if (normalizedDomain.isEmpty()) {
-      throw new IllegalArgumentException("Domain is required");
-    }
-    if (file == null || file.isEmpty()) {
-      throw new IllegalArgumentException("Please upload a non-empty CSV file.");
-    }
-    String filename = (file.getOriginalFilename() == null ? "" : file.getOriginalFilename()).toLowerCase(Locale.ROOT);
-    String contentType = (file.getContentType() == null ? "" : file.getContentType()).toLowerCase(Locale.ROOT);
-    boolean isCsv = filename.endsWith(".csv")
-        || "text/csv".equalsIgnoreCase(contentType)
-        || "application/csv".equalsIgnoreCase(contentType)
-        || "application/vnd.ms-excel".equalsIgnoreCase(contentType);
-    if (!isCsv) {
-      throw new IllegalArgumentException("Only CSV files are supported when populating data.");
-    }
-    return domainImportService.populateFromCsv(domain, file, replaceExisting);
+                                           @RequestParam(value = "replaceExisting", defaultValue = "true") boolean replaceExisting,
+                                           @RequestParam(value = "mode", required = false) String mode,
+                                           @RequestParam(value = "mergeKey", required = false) String mergeKey) {
+    return domainImportService.populateFromCsv(domain, file, PopulationMode.resolve(mode, replaceExisting), mergeKey,
+        counters -> {});
+  }
+
+  @PostMapping(value = "/populate/validate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Dry-run a population", description = "Checks a CSV file against an existing domain in one streaming pass without writing anything. Returns issue counts per column and rule and the first issue messages.")
+  public ImportValidationReport validatePopulate(@RequestParam("domain") String domain,
+                                                 @RequestPart("file") MultipartFile file,
+                                                 @RequestParam(value = "replaceExisting", defaultValue = "true") boolean replaceExisting,
+                                                 @RequestParam(value = "mode", required = false) String mode,
+                                                 @RequestParam(value = "mergeKey", required = false) String mergeKey) {
+    return domainImportService.validatePopulation(domain, file, PopulationMode.resolve(mode, replaceExisting), mergeKey);
+  }
+
+  @PostMapping(value = "/populate/archive", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Transactional
+  @Operation(summary = "Populate several domains from a zip archive", description = "Upload a .zip holding one CSV file per domain, each named after its domain (e.g. orders.csv, products.csv). Entries are streamed out of the archive into their tables; mode=append|replace|merge overrides replaceExisting.")
+  public List<DomainPopulationResponse> populateArchive(@RequestPart("file") MultipartFile file,
+                                                        @RequestParam(value = "replaceExisting", defaultValue = "true") boolean replaceExisting,
+                                                        @RequestParam(value = "mode", required = false) String mode) {
+    return domainImportService.populateFromArchive(file, PopulationMode.resolve(mode, replaceExisting), counters -> {});
   }
 
   @GetMapping(value = "/template-example")
@@ -178,6 +184,7 @@ public class ImportConfigureController {
       try (java.sql.Statement stmt = conn.createStatement()) {
         stmt.execute("drop table if exists " + table + " cascade");
       }
+      schemaCache.invalidate(table);
       jdbcTemplate.update("delete from column_semantics where table_name = ?", table);
       googleImportConfigRepository.deleteAll(googleImportConfigRepository.findAllByDomain(normalizedDomain));
       domainImportService.cleanupLegacyPermissions(normalizedDomain);
@@ -187,6 +194,7 @@ public class ImportConfigureController {
           "delete from roles_permissions where permission_id in (select id from permissions where lower(name) like ?)",
           accessPattern);
       jdbcTemplate.update("delete from permissions where lower(name) like ?", accessPattern);
+      eventPublisher.publishEvent(DomainDataChangedEvent.all(normalizedDomain));
       return ResponseEntity.noContent().build();
     } catch (DataAccessException ex) {
       throw new RuntimeException("Failed to drop table '" + table + "': " + ex.getMessage(), ex);
@@ -0,0 +1,102 @@
+package com.mycroft.ema.ecom.domains.imports.web;
+
+import com.mycroft.ema.ecom.domains.imports.dto.GoogleSheetConnectRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportJobResponse;
+import com.mycroft.ema.ecom.domains.imports.dto.PopulationMode;
+import com.mycroft.ema.ecom.domains.imports.service.ImportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Background variants of the configure, populate and Google Sheet connect imports, plus job polling and cancellation.
+ */
+@RestController
+@RequestMapping("/api/import/jobs")
+@Tag(name = "Import Jobs", description = "Run imports in the background and follow their progress")
+public class ImportJobController {
+
+  private final ImportJobService jobService;
+
+  public ImportJobController(ImportJobService jobService) {
+    this.jobService = jobService;
+  }
+
+  @PostMapping(value = "/configure", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Queue a template configuration", description = "Stores the uploaded template and configures the domain in the background. Poll the returned job for progress.")
+  public ResponseEntity<ImportJobResponse> configure(@RequestParam("domain") String domain,
+                                                     @RequestPart("file") MultipartFile file) {
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submitConfigure(domain, file));
+  }
+
+  @PostMapping(value = "/populate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Queue a data population", description = "Stores the uploaded CSV and loads it into the configured component in the background. Accepts the same mode and mergeKey options as the synchronous populate endpoint.")
+  public ResponseEntity<ImportJobResponse> populate(@RequestParam("domain") String domain,
+                                                    @RequestPart("file") MultipartFile file,
+                                                    @RequestParam(value = "replaceExisting", defaultValue = "true") boolean replaceExisting,
+                                                    @RequestParam(value = "mode", required = false) String mode,
+                                                    @RequestParam(value = "mergeKey", required = false) String mergeKey) {
+    PopulationMode populationMode = PopulationMode.resolve(mode, replaceExisting);
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submitPopulate(domain, file, populationMode, mergeKey));
+  }
+
+  @PostMapping("/uploads/{uploadId}/configure")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Queue a template configuration from an upload", description = "Configures the domain in the background from a completed resumable upload.")
+  public ResponseEntity<ImportJobResponse> configureUpload(@PathVariable UUID uploadId,
+                                                           @RequestParam("domain") String domain) {
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submitConfigure(domain, uploadId));
+  }
+
+  @PostMapping("/uploads/{uploadId}/populate")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Queue a data population from an upload", description = "Loads a completed resumable CSV upload into the configured component in the background. Accepts the same mode and mergeKey options as the populate endpoint.")
+  public ResponseEntity<ImportJobResponse> populateUpload(@PathVariable UUID uploadId,
+                                                          @RequestParam("domain") String domain,
+                                                          @RequestParam(value = "replaceExisting", defaultValue = "true") boolean replaceExisting,
+                                                          @RequestParam(value = "mode", required = false) String mode,
+                                                          @RequestParam(value = "mergeKey", required = false) String mergeKey) {
+    PopulationMode populationMode = PopulationMode.resolve(mode, replaceExisting);
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submitPopulate(domain, uploadId, populationMode, mergeKey));
+  }
+
+  @PostMapping("/google/connect")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Queue a Google Sheet connection", description = "Reads the Google Sheet tab and configures the target domain in the background.")
+  public ResponseEntity<ImportJobResponse> connectGoogleSheet(@Valid @RequestBody GoogleSheetConnectRequest request) {
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submitGoogleConnect(request));
+  }
+
+  @GetMapping
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "List import jobs", description = "Returns the most recent import jobs, optionally for one domain.")
+  public List<ImportJobResponse> list(@RequestParam(value = "domain", required = false) String domain,
+                                      @RequestParam(value = "limit", required = false) Integer limit) {
+    return jobService.list(domain, limit);
+  }
+
+  @GetMapping("/{id}")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Get an import job", description = "Returns the status, row counters, warnings and timings of an import job.")
+  public ImportJobResponse get(@PathVariable UUID id) {
+    return jobService.get(id);
+  }
+
+  @PostMapping("/{id}/cancel")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Cancel an import job", description = "Cancels a queued job immediately; a running job stops at its next chunk and rolls back.")
+  public ImportJobResponse cancel(@PathVariable UUID id) {
+    return jobService.cancel(id);
+  }
+}
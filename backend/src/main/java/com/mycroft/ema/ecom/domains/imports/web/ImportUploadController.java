@@ -0,0 +1,70 @@
+package com.mycroft.ema.ecom.domains.imports.web;
+
+import com.mycroft.ema.ecom.domains.imports.dto.ImportUploadInitRequest;
+import com.mycroft.ema.ecom.domains.imports.dto.ImportUploadResponse;
+import com.mycroft.ema.ecom.domains.imports.service.ImportUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Resumable chunked uploads for import files above the multipart size limit. Completed uploads are imported through
+ * the upload variants of the import job endpoints.
+ */
+@RestController
+@RequestMapping("/api/import/uploads")
+@Tag(name = "Import Uploads", description = "Upload large import files in resumable chunks")
+public class ImportUploadController {
+
+  private final ImportUploadService uploadService;
+
+  public ImportUploadController(ImportUploadService uploadService) {
+    this.uploadService = uploadService;
+  }
+
+  @PostMapping
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Start a resumable upload", description = "Declares the file name, exact size and SHA-256 of the file about to be uploaded in chunks.")
+  public ResponseEntity<ImportUploadResponse> init(@Valid @RequestBody ImportUploadInitRequest request) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.init(request));
+  }
+
+  @GetMapping("/{id}")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Get an upload", description = "Returns how many bytes were received, i.e. the offset to resume from.")
+  public ImportUploadResponse get(@PathVariable UUID id) {
+    return uploadService.get(id);
+  }
+
+  @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Upload a chunk", description = "Writes the raw request body at the given byte offset. The offset may repeat received bytes but must not skip ahead of them.")
+  public ImportUploadResponse putChunk(@PathVariable UUID id,
+                                       @RequestParam("offset") long offset,
+                                       InputStream body) {
+    return uploadService.appendChunk(id, offset, body);
+  }
+
+  @PostMapping("/{id}/complete")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Complete an upload", description = "Verifies that every byte arrived and that the SHA-256 matches; the upload can then be imported once.")
+  public ImportUploadResponse complete(@PathVariable UUID id) {
+    return uploadService.complete(id);
+  }
+
+  @DeleteMapping("/{id}")
+  @PreAuthorize("hasAuthority('import:configure')")
+  @Operation(summary = "Abort an upload", description = "Discards an upload that has not been imported and its received bytes.")
+  public ResponseEntity<Void> abort(@PathVariable UUID id) {
+    uploadService.abort(id);
+    return ResponseEntity.noContent().build();
+  }
+}
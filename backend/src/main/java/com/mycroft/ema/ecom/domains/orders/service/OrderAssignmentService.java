@@ -5,6 +5,7 @@ import com.mycroft.ema.ecom.auth.domain.User;
 import com.mycroft.ema.ecom.auth.repo.UserRepository;
 import com.mycroft.ema.ecom.auth.service.CurrentUserService;
 import com.mycroft.ema.ecom.common.error.BadRequestException;
+import com.mycroft.ema.ecom.common.events.DomainDataChangedEvent;
 import com.mycroft.ema.ecom.domains.hybrid.dto.HybridUpdateDto;
 import com.mycroft.ema.ecom.domains.hybrid.dto.HybridViewDto;
 import com.mycroft.ema.ecom.domains.hybrid.service.HybridEntityService;
@@ -13,6 +14,7 @@ import com.mycroft.ema.ecom.domains.orders.dto.AgentOrderStatusDto;
 import com.mycroft.ema.ecom.domains.orders.dto.OrderAgentDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,18 +36,21 @@ public class OrderAssignmentService {
   private final JdbcTemplate jdbcTemplate;
   private final DomainImportService domainImportService;
   private final CurrentUserService currentUserService;
+  private final ApplicationEventPublisher eventPublisher;
   private final AtomicBoolean assignmentColumnsEnsured = new AtomicBoolean(false);
 
   public OrderAssignmentService(UserRepository userRepository,
                                 HybridEntityService hybridEntityService,
                                 JdbcTemplate jdbcTemplate,
                                 DomainImportService domainImportService,
-                                CurrentUserService currentUserService) {
+                                CurrentUserService currentUserService,
+                                ApplicationEventPublisher eventPublisher) {
     this.userRepository = userRepository;
     this.hybridEntityService = hybridEntityService;
     this.jdbcTemplate = jdbcTemplate;
     this.domainImportService = domainImportService;
     this.currentUserService = currentUserService;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<OrderAgentDto> listAgents() {
@@ -165,6 +170,9 @@ public class OrderAssignmentService {
            and coalesce(lower(trim(status)), '') = ?
         """.formatted(ordersTable());
     int updated = jdbcTemplate.update(sql, args.toArray());
+    if (updated > 0) {
+      eventPublisher.publishEvent(DomainDataChangedEvent.row("orders", orderId));
+    }
     return updated > 0;
   }
 
@@ -4,9 +4,9 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Configuration;
 
 /**
- * Module configuration that activates binding for {@link GoogleSheetsProperties}.
+ * Module configuration that activates binding for {@link GoogleSheetsProperties} and {@link GoogleSheetsQuotaProperties}.
  */
 @Configuration
-@EnableConfigurationProperties(GoogleSheetsProperties.class)
+@EnableConfigurationProperties({GoogleSheetsProperties.class, GoogleSheetsQuotaProperties.class})
 public class GoogleIntegrationConfig {
 }
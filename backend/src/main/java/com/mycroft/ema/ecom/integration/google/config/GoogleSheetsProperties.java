@@ -3,6 +3,8 @@ package com.mycroft.ema.ecom.integration.google.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.bind.DefaultValue;
 
+import java.time.Duration;
+
 /**
  * Configuration properties backing the Google Sheets integration, including credential sources and default ranges.
  */
@@ -11,11 +13,18 @@ public record GoogleSheetsProperties(
     @DefaultValue("classpath:google/service-account.json") String credentialsPath,
     @DefaultValue("EMA E-Commerce Importer") String applicationName,
     @DefaultValue("A:ZZ") String defaultReadRange,
-    String webhookSecret
+    String webhookSecret,
+    @DefaultValue("4") int importParallelism,
+    String rootUrl,
+    @DefaultValue("5s") Duration credentialCheckInterval,
+    @DefaultValue("64") int syncLockStripes
 ) {
   public GoogleSheetsProperties {
     if (webhookSecret == null || webhookSecret.isBlank()) {
       throw new IllegalStateException("google.sheets.webhook-secret must be configured (use GOOGLE_SHEETS_WEBHOOK_SECRET)");
     }
+    if (importParallelism < 1) {
+      throw new IllegalStateException("google.sheets.import-parallelism must be at least 1");
+    }
   }
 }
@@ -0,0 +1,33 @@
+package com.mycroft.ema.ecom.integration.google.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Client-side quota, retry and circuit-breaker settings applied to every Google Sheets API call.
+ */
+@ConfigurationProperties(prefix = "google.sheets.quota")
+public record GoogleSheetsQuotaProperties(
+    @DefaultValue("60") int credentialRequestsPerMinute,
+    @DefaultValue("30") int spreadsheetRequestsPerMinute,
+    @DefaultValue("30s") Duration maxQueueWait,
+    @DefaultValue("5") int maxAttempts,
+    @DefaultValue("500ms") Duration initialBackoff,
+    @DefaultValue("30s") Duration maxBackoff,
+    @DefaultValue("5") int circuitFailureThreshold,
+    @DefaultValue("60s") Duration circuitOpenDuration
+) {
+  public GoogleSheetsQuotaProperties {
+    if (credentialRequestsPerMinute < 1 || spreadsheetRequestsPerMinute < 1) {
+      throw new IllegalStateException("google.sheets.quota request rates must be at least 1 per minute");
+    }
+    if (maxAttempts < 1) {
+      throw new IllegalStateException("google.sheets.quota.max-attempts must be at least 1");
+    }
+    if (circuitFailureThreshold < 1) {
+      throw new IllegalStateException("google.sheets.quota.circuit-failure-threshold must be at least 1");
+    }
+  }
+}
@@ -2,11 +2,18 @@ package com.mycroft.ema.ecom.integration.google.repository;
 
 import com.mycroft.ema.ecom.integration.google.domain.GoogleServiceAccountSecret;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * JPA repository for accessing the singleton {@link GoogleServiceAccountSecret} entity.
  */
 public interface GoogleServiceAccountSecretRepository extends JpaRepository<GoogleServiceAccountSecret, UUID> {
+
+  @Query("select s.updatedAt from GoogleServiceAccountSecret s where s.id = :id")
+  Optional<Instant> findUpdatedAtById(@Param("id") UUID id);
 }
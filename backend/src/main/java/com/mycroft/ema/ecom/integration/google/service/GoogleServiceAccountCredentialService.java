@@ -73,6 +73,15 @@ public class GoogleServiceAccountCredentialService {
         });
   }
 
+  /**
+   * Returns the last modification time of the stored credentials without decrypting them, so callers can cheaply
+   * detect whether a cached copy is stale.
+   */
+  @Transactional(readOnly = true)
+  public Optional<Instant> currentVersion() {
+    return repository.findUpdatedAtById(GoogleServiceAccountSecret.SINGLETON_ID);
+  }
+
   @Transactional(readOnly = true)
   public ServiceAccountStatus status() {
     return repository.findById(GoogleServiceAccountSecret.SINGLETON_ID)
@@ -5,6 +5,7 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
 import com.google.api.services.sheets.v4.model.ValueRange;
 import com.google.api.services.sheets.v4.model.Spreadsheet;
 import com.google.api.services.sheets.v4.model.Sheet;
@@ -20,9 +21,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.GeneralSecurityException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 
@@ -34,43 +37,83 @@ public class GoogleSheetsClient {
 
   private static final JacksonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
   private static final Pattern SPREADSHEET_ID_PATTERN = Pattern.compile("/spreadsheets/d/([a-zA-Z0-9-_]+)");
+  private static final String CLASSPATH_VERSION = "classpath";
 
   private final GoogleSheetsProperties properties;
   private final ResourceLoader resourceLoader;
   private final GoogleServiceAccountCredentialService credentialService;
+  private final GoogleSheetsQuotaGuard quotaGuard;
 
-  private volatile Sheets cachedSheets;
-  private volatile String cachedFingerprint;
+  private final Object rebuildLock = new Object();
+  private final AtomicBoolean versionCheckInProgress = new AtomicBoolean();
+  private volatile CachedService cached;
+  private volatile long lastVersionCheckNanos;
 
   public GoogleSheetsClient(GoogleSheetsProperties properties,
                             ResourceLoader resourceLoader,
-                            GoogleServiceAccountCredentialService credentialService) {
+                            GoogleServiceAccountCredentialService credentialService,
+                            GoogleSheetsQuotaGuard quotaGuard) {
     this.properties = properties;
     this.resourceLoader = resourceLoader;
     this.credentialService = credentialService;
+    this.quotaGuard = quotaGuard;
   }
 
-  public synchronized Sheets sheets() {
-    Optional<GoogleServiceAccountCredentialService.StoredServiceAccount> stored = credentialService.load();
-    if (stored.isPresent()) {
-      GoogleServiceAccountCredentialService.StoredServiceAccount account = stored.get();
-      String fingerprint = fingerprint(account);
-      if (cachedSheets == null || cachedFingerprint == null || !cachedFingerprint.equals(fingerprint)) {
-        cachedSheets = createSheetsServiceFromBytes(account.jsonBytes());
-        cachedFingerprint = fingerprint;
+  public Sheets sheets() {
+    return currentService().sheets();
+  }
+
+  /**
+   * Returns the cached Sheets service, re-checking the stored credential version at most once per
+   * {@code credentialCheckInterval}. Only one caller performs the check; the others keep using the current instance.
+   */
+  private CachedService currentService() {
+    CachedService current = cached;
+    if (current == null) {
+      synchronized (rebuildLock) {
+        if (cached == null) {
+          cached = buildService();
+          lastVersionCheckNanos = System.nanoTime();
+        }
+        return cached;
       }
-      return cachedSheets;
     }
-    if (cachedSheets == null) {
-      cachedSheets = createSheetsServiceFromClasspath();
-      cachedFingerprint = "classpath";
+    if (System.nanoTime() - lastVersionCheckNanos < properties.credentialCheckInterval().toNanos()
+        || !versionCheckInProgress.compareAndSet(false, true)) {
+      return current;
+    }
+    try {
+      String version = credentialService.currentVersion().map(this::versionOf).orElse(CLASSPATH_VERSION);
+      if (!version.equals(current.version())) {
+        synchronized (rebuildLock) {
+          if (cached == current) {
+            cached = buildService();
+          }
+        }
+      }
+      lastVersionCheckNanos = System.nanoTime();
+      CachedService latest = cached;
+      return latest != null ? latest : current;
+    } finally {
+      versionCheckInProgress.set(false);
     }
-    return cachedSheets;
   }
 
-  public synchronized void invalidateCache() {
-    this.cachedSheets = null;
-    this.cachedFingerprint = null;
+  public void invalidateCache() {
+    synchronized (rebuildLock) {
+      this.cached = null;
+      this.lastVersionCheckNanos = 0;
+    }
+  }
+
+  private CachedService buildService() {
+    Optional<GoogleServiceAccountCredentialService.StoredServiceAccount> stored = credentialService.load();
+    if (stored.isPresent()) {
+      GoogleServiceAccountCredentialService.StoredServiceAccount account = stored.get();
+      return new CachedService(createSheetsServiceFromBytes(account.jsonBytes()), account.clientEmail(),
+          versionOf(account.updatedAt()));
+    }
+    return new CachedService(createSheetsServiceFromClasspath(), "classpath", CLASSPATH_VERSION);
   }
 
   private Sheets createSheetsServiceFromBytes(byte[] jsonBytes) {
@@ -79,6 +122,7 @@ public class GoogleSheetsClient {
           .createScoped(List.of("https://www.googleapis.com/auth/spreadsheets"));
       return new Sheets.Builder(GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY, new HttpCredentialsAdapter(credentials))
           .setApplicationName(properties.applicationName())
+          .setRootUrl(rootUrl())
           .build();
     } catch (GeneralSecurityException | IOException ex) {
       throw new IllegalStateException("Failed to initialize Google Sheets service from uploaded credentials", ex);
@@ -96,6 +140,7 @@ public class GoogleSheetsClient {
             .createScoped(List.of("https://www.googleapis.com/auth/spreadsheets"));
         return new Sheets.Builder(GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY, new HttpCredentialsAdapter(credentials))
             .setApplicationName(properties.applicationName())
+            .setRootUrl(rootUrl())
             .build();
       }
     } catch (GeneralSecurityException | IOException ex) {
@@ -103,16 +148,24 @@ public class GoogleSheetsClient {
     }
   }
 
-  private String fingerprint(GoogleServiceAccountCredentialService.StoredServiceAccount account) {
-    return account.clientEmail() + ":" + Optional.ofNullable(account.updatedAt()).map(Instant::toEpochMilli).orElse(0L);
+  private String rootUrl() {
+    String rootUrl = properties.rootUrl();
+    if (rootUrl == null || rootUrl.isBlank()) {
+      return Sheets.DEFAULT_ROOT_URL;
+    }
+    return rootUrl.endsWith("/") ? rootUrl : rootUrl + "/";
+  }
+
+  private String versionOf(Instant updatedAt) {
+    return "stored:" + Optional.ofNullable(updatedAt).map(Instant::toEpochMilli).orElse(0L);
   }
 
   public List<List<Object>> readSheet(String spreadsheetId, String range) {
     String tabName = extractTabName(range);
     try {
-      ValueRange response = sheets().spreadsheets().values()
-          .get(spreadsheetId, range)
-          .execute();
+      CachedService service = currentService();
+      Sheets.Spreadsheets.Values.Get request = service.sheets().spreadsheets().values().get(spreadsheetId, range);
+      ValueRange response = quotaGuard.execute("values.get", spreadsheetId, service.credentialKey(), request::execute);
       List<List<Object>> values = response.getValues();
       return values != null ? values : List.of();
     } catch (GoogleJsonResponseException gjre) {
@@ -126,12 +179,44 @@ public class GoogleSheetsClient {
     }
   }
 
+  /**
+   * Reads several ranges of the same spreadsheet in a single {@code values.batchGet} call. The result is aligned with
+   * {@code ranges}; ranges without data yield an empty list.
+   */
+  public List<List<List<Object>>> batchReadSheets(String spreadsheetId, List<String> ranges) {
+    if (ranges == null || ranges.isEmpty()) {
+      return List.of();
+    }
+    try {
+      CachedService service = currentService();
+      Sheets.Spreadsheets.Values.BatchGet request = service.sheets().spreadsheets().values()
+          .batchGet(spreadsheetId)
+          .setRanges(ranges);
+      BatchGetValuesResponse response = quotaGuard.execute("values.batchGet", spreadsheetId, service.credentialKey(), request::execute);
+      List<ValueRange> valueRanges = response.getValueRanges() == null ? List.of() : response.getValueRanges();
+      List<List<List<Object>>> results = new ArrayList<>(ranges.size());
+      for (int i = 0; i < ranges.size(); i++) {
+        List<List<Object>> values = i < valueRanges.size() ? valueRanges.get(i).getValues() : null;
+        results.add(values != null ? values : List.of());
+      }
+      return results;
+    } catch (GoogleJsonResponseException gjre) {
+      if (isMissingTabError(gjre)) {
+        throw new IllegalArgumentException("One of the requested sheet tabs was not found in the spreadsheet.");
+      }
+      throw new IllegalStateException("Failed to read " + ranges.size() + " ranges from spreadsheet " + spreadsheetId, gjre);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to read " + ranges.size() + " ranges from spreadsheet " + spreadsheetId, ex);
+    }
+  }
+
   public List<GoogleSheetMetadataResponse> listSheets(String spreadsheetId) {
     try {
-      Spreadsheet spreadsheet = sheets().spreadsheets()
+      CachedService service = currentService();
+      Sheets.Spreadsheets.Get request = service.sheets().spreadsheets()
           .get(spreadsheetId)
-          .setFields("sheets.properties(sheetId,title,index)")
-          .execute();
+          .setFields("sheets.properties(sheetId,title,index)");
+      Spreadsheet spreadsheet = quotaGuard.execute("spreadsheets.get", spreadsheetId, service.credentialKey(), request::execute);
       if (spreadsheet.getSheets() == null) {
         return List.of();
       }
@@ -186,4 +271,9 @@ public class GoogleSheetsClient {
     }
     return status == 404 && normalized.contains("not found");
   }
+
+  /**
+   * Sheets service built from one version of the credentials, with the key used for per-credential quotas.
+   */
+  private record CachedService(Sheets sheets, String credentialKey, String version) {}
 }
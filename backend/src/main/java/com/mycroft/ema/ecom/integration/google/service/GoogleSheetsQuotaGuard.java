@@ -0,0 +1,241 @@
+package com.mycroft.ema.ecom.integration.google.service;
+
+import com.google.api.client.http.HttpResponseException;
+import com.mycroft.ema.ecom.common.error.RetryLaterException;
+import com.mycroft.ema.ecom.integration.google.config.GoogleSheetsQuotaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Wraps Google Sheets API calls with per-credential and per-spreadsheet token buckets, exponential backoff with jitter
+ * on 429/5xx responses and a circuit breaker that fails fast while the API keeps erroring.
+ */
+@Component
+public class GoogleSheetsQuotaGuard {
+
+  private static final Logger log = LoggerFactory.getLogger(GoogleSheetsQuotaGuard.class);
+  private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+
+  /**
+   * A single Sheets API request, typically {@code () -> request.execute()}.
+   */
+  @FunctionalInterface
+  public interface SheetsCall<T> {
+    T execute() throws IOException;
+  }
+
+  private final GoogleSheetsQuotaProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final LongSupplier nanoClock;
+  private final Map<String, TokenBucket> credentialBuckets = new ConcurrentHashMap<>();
+  private final Map<String, TokenBucket> spreadsheetBuckets = new ConcurrentHashMap<>();
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong circuitOpenUntil = new AtomicLong();
+  private final AtomicInteger circuitState = new AtomicInteger();
+  private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+  @Autowired
+  public GoogleSheetsQuotaGuard(GoogleSheetsQuotaProperties properties, MeterRegistry meterRegistry) {
+    this(properties, meterRegistry, System::nanoTime);
+  }
+
+  GoogleSheetsQuotaGuard(GoogleSheetsQuotaProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.nanoClock = nanoClock;
+    Gauge.builder("google.sheets.circuit.open", circuitState, AtomicInteger::get)
+        .description("1 while the Google Sheets circuit breaker is open")
+        .register(meterRegistry);
+  }
+
+  public <T> T execute(String operation, String spreadsheetId, String credentialKey, SheetsCall<T> call) throws IOException {
+    boolean probe = ensureCircuitClosed(operation);
+    try {
+      return executeWithRetries(operation, spreadsheetId, credentialKey, call);
+    } finally {
+      if (probe) {
+        probeInFlight.set(false);
+      }
+    }
+  }
+
+  private <T> T executeWithRetries(String operation, String spreadsheetId, String credentialKey, SheetsCall<T> call)
+      throws IOException {
+    int attempt = 0;
+    while (true) {
+      attempt++;
+      acquire(operation, credentialKey, spreadsheetId);
+      long started = nanoClock.getAsLong();
+      try {
+        T result = call.execute();
+        record(operation, "success", started);
+        onSuccess();
+        return result;
+      } catch (HttpResponseException ex) {
+        int status = ex.getStatusCode();
+        if (!isRetryable(status)) {
+          record(operation, "client_error", started);
+          throw ex;
+        }
+        record(operation, status == 429 ? "throttled" : "server_error", started);
+        if (status == 429) {
+          counter("google.sheets.throttled", operation, "remote").increment();
+        }
+        if (attempt >= properties.maxAttempts()) {
+          onFailure(operation);
+          throw ex;
+        }
+        backoff(operation, attempt, retryAfter(ex), status);
+      } catch (IOException ex) {
+        record(operation, "io_error", started);
+        if (attempt >= properties.maxAttempts()) {
+          onFailure(operation);
+          throw ex;
+        }
+        backoff(operation, attempt, Duration.ZERO, -1);
+      }
+    }
+  }
+
+  /**
+   * Rejects the call while the circuit is open. Once the open period has elapsed a single caller wins the probe slot
+   * and goes through; everyone else stays rejected until that trial call closes or re-opens the circuit. Returns
+   * whether the caller holds the probe slot.
+   */
+  private boolean ensureCircuitClosed(String operation) {
+    long openUntil = circuitOpenUntil.get();
+    if (openUntil == 0) {
+      return false;
+    }
+    if (nanoClock.getAsLong() >= openUntil && probeInFlight.compareAndSet(false, true)) {
+      return true;
+    }
+    counter("google.sheets.calls.rejected", operation, "circuit_open").increment();
+    // While a probe is in flight the circuit may already be past its open period; retry soon after the probe
+    Duration retryAfter = Duration.ofNanos(Math.max(openUntil - nanoClock.getAsLong(), MIN_RETRY_AFTER.toNanos()));
+    throw new RetryLaterException(HttpStatus.SERVICE_UNAVAILABLE,
+        "Google Sheets is temporarily unavailable after repeated failures. Please retry in a moment.", retryAfter);
+  }
+
+  private void acquire(String operation, String credentialKey, String spreadsheetId) {
+    long maxWait = properties.maxQueueWait().toNanos();
+    TokenBucket credentialBucket = credentialBuckets.computeIfAbsent(keyOf(credentialKey),
+        key -> new TokenBucket(properties.credentialRequestsPerMinute(), nanoClock));
+    TokenBucket spreadsheetBucket = spreadsheetBuckets.computeIfAbsent(keyOf(spreadsheetId),
+        key -> new TokenBucket(properties.spreadsheetRequestsPerMinute(), nanoClock));
+    // Reserve from both buckets or from neither
+    long credentialWait = credentialBucket.reserve(maxWait);
+    long spreadsheetWait = credentialWait < 0 ? -1 : spreadsheetBucket.reserve(maxWait);
+    if (credentialWait >= 0 && spreadsheetWait < 0) {
+      credentialBucket.release();
+    }
+    if (credentialWait < 0 || spreadsheetWait < 0) {
+      counter("google.sheets.throttled", operation, "local_rejected").increment();
+      TokenBucket exhausted = credentialWait < 0 ? credentialBucket : spreadsheetBucket;
+      Duration retryAfter = Duration.ofNanos(Math.max(exhausted.nanosUntilAvailable() - maxWait,
+          MIN_RETRY_AFTER.toNanos()));
+      throw new RetryLaterException(HttpStatus.TOO_MANY_REQUESTS,
+          "Google Sheets request quota is exhausted. Please retry in a moment.", retryAfter);
+    }
+    long wait = Math.max(credentialWait, spreadsheetWait);
+    if (wait > 0) {
+      counter("google.sheets.throttled", operation, "local_wait").increment();
+      sleep(wait);
+    }
+  }
+
+  private void backoff(String operation, int attempt, Duration retryAfter, int status) {
+    long base = properties.initialBackoff().toNanos() << Math.min(attempt - 1, 20);
+    long capped = Math.min(base, properties.maxBackoff().toNanos());
+    // Equal jitter: half of the exponential delay is fixed, the other half random
+    long delay = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    delay = Math.max(delay, retryAfter.toNanos());
+    counter("google.sheets.retries", operation, status < 0 ? "io" : String.valueOf(status)).increment();
+    log.debug("Retrying Google Sheets {} after status {} (attempt {}), waiting {} ms",
+        operation, status, attempt, TimeUnit.NANOSECONDS.toMillis(delay));
+    sleep(delay);
+  }
+
+  private void onSuccess() {
+    consecutiveFailures.set(0);
+    if (circuitOpenUntil.getAndSet(0) != 0) {
+      circuitState.set(0);
+      log.info("Google Sheets circuit breaker closed");
+    }
+  }
+
+  private void onFailure(String operation) {
+    int failures = consecutiveFailures.incrementAndGet();
+    // A failed trial call while half-open re-opens the circuit immediately
+    boolean halfOpen = circuitOpenUntil.get() != 0;
+    if (failures >= properties.circuitFailureThreshold() || halfOpen) {
+      circuitOpenUntil.set(nanoClock.getAsLong() + properties.circuitOpenDuration().toNanos());
+      circuitState.set(1);
+      log.warn("Google Sheets circuit breaker opened for {} after {} consecutive failed {} calls",
+          properties.circuitOpenDuration(), failures, operation);
+    }
+  }
+
+  private boolean isRetryable(int status) {
+    return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+  }
+
+  private Duration retryAfter(HttpResponseException ex) {
+    String header = ex.getHeaders() == null ? null : ex.getHeaders().getRetryAfter();
+    if (header == null || header.isBlank()) {
+      return Duration.ZERO;
+    }
+    try {
+      return Duration.ofSeconds(Math.min(Long.parseLong(header.trim()), properties.maxBackoff().toSeconds()));
+    } catch (NumberFormatException ignored) {
+      return Duration.ZERO;
+    }
+  }
+
+  private void record(String operation, String outcome, long startedNanos) {
+    Timer.builder("google.sheets.latency")
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .register(meterRegistry)
+        .record(nanoClock.getAsLong() - startedNanos, TimeUnit.NANOSECONDS);
+    counter("google.sheets.calls", operation, outcome).increment();
+  }
+
+  private Counter counter(String name, String operation, String outcome) {
+    return Counter.builder(name)
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private String keyOf(String value) {
+    return value == null ? "default" : value;
+  }
+
+  private void sleep(long nanos) {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for Google Sheets quota", ex);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.mycroft.ema.ecom.integration.google.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that hands out reservations: callers learn how long to wait for their token instead of spinning.
+ */
+class TokenBucket {
+
+  private final double capacity;
+  private final double tokensPerNano;
+  private final LongSupplier nanoClock;
+  private double tokens;
+  private long lastRefill;
+
+  TokenBucket(int permitsPerMinute, LongSupplier nanoClock) {
+    this.capacity = permitsPerMinute;
+    this.tokensPerNano = permitsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+    this.nanoClock = nanoClock;
+    this.tokens = permitsPerMinute;
+    this.lastRefill = nanoClock.getAsLong();
+  }
+
+  /**
+   * Reserves one token and returns the nanoseconds the caller must wait before using it, or {@code -1} when the
+   * wait would exceed {@code maxWaitNanos} (in which case nothing is reserved).
+   */
+  synchronized long reserve(long maxWaitNanos) {
+    long now = nanoClock.getAsLong();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+    lastRefill = now;
+    long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    if (waitNanos > maxWaitNanos) {
+      return -1;
+    }
+    tokens -= 1;
+    return waitNanos;
+  }
+
+  /**
+   * Nanoseconds until a token is available, without reserving it.
+   */
+  synchronized long nanosUntilAvailable() {
+    long now = nanoClock.getAsLong();
+    double available = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+    return available >= 1 ? 0 : (long) Math.ceil((1 - available) / tokensPerNano);
+  }
+
+  /**
+   * Hands back a token taken by {@link #reserve(long)} that will not be used.
+   */
+  synchronized void release() {
+    tokens = Math.min(capacity, tokens + 1);
+  }
+}
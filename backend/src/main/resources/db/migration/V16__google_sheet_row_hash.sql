@@ -0,0 +1,8 @@
+-- Per-row content hashes of connected Google Sheet tabs, used to diff full resyncs
+CREATE TABLE IF NOT EXISTS google_sheet_row_hash (
+    config_id UUID NOT NULL REFERENCES google_import_config(id) ON DELETE CASCADE,
+    row_id UUID NOT NULL,
+    row_hash VARCHAR(64) NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    CONSTRAINT pk_google_sheet_row_hash PRIMARY KEY (config_id, row_id)
+);
@@ -0,0 +1,21 @@
+-- Background import jobs (template configure/populate and Google Sheet connect) with their progress and outcome
+CREATE TABLE IF NOT EXISTS import_jobs (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    kind VARCHAR(32) NOT NULL,
+    domain VARCHAR(50) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    source_name VARCHAR(255),
+    requested_by VARCHAR(100),
+    rows_read BIGINT NOT NULL DEFAULT 0,
+    rows_written BIGINT NOT NULL DEFAULT 0,
+    rows_warned BIGINT NOT NULL DEFAULT 0,
+    warning_count INTEGER NOT NULL DEFAULT 0,
+    warnings TEXT,
+    error_message TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    started_at TIMESTAMPTZ,
+    finished_at TIMESTAMPTZ,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS idx_import_jobs_created_at ON import_jobs(created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_import_jobs_domain_created_at ON import_jobs(domain, created_at DESC);
@@ -0,0 +1,15 @@
+-- Resumable chunked uploads of large import files; the bytes live in a file on local disk until an import job claims them
+CREATE TABLE IF NOT EXISTS import_uploads (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    file_name VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255),
+    total_size BIGINT NOT NULL,
+    received_bytes BIGINT NOT NULL DEFAULT 0,
+    sha256 VARCHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    created_by VARCHAR(100),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    expires_at TIMESTAMPTZ NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_import_uploads_expires_at ON import_uploads(expires_at);
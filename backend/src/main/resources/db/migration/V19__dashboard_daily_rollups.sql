@@ -0,0 +1,40 @@
+-- Daily dashboard rollups of the dynamic orders and ads tables, maintained by the application as rows change
+CREATE TABLE IF NOT EXISTS orders_daily_rollup (
+    day DATE,
+    store_name TEXT,
+    assigned_agent TEXT,
+    product TEXT,
+    status TEXT,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_price NUMERIC(19,2) NOT NULL DEFAULT 0,
+    cost_of_goods NUMERIC(19,2) NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_orders_daily_rollup_day ON orders_daily_rollup(day);
+
+CREATE TABLE IF NOT EXISTS ads_daily_rollup (
+    day DATE,
+    media_buyer TEXT,
+    product_reference TEXT,
+    platform TEXT,
+    row_count BIGINT NOT NULL DEFAULT 0,
+    ad_spend NUMERIC(19,2) NOT NULL DEFAULT 0,
+    cpl NUMERIC(19,2) NOT NULL DEFAULT 0,
+    confirmed_orders BIGINT NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_ads_daily_rollup_day ON ads_daily_rollup(day);
+
+-- Day each source row was last rolled up under, so an edit or delete can also refresh the day the row left
+CREATE TABLE IF NOT EXISTS orders_rollup_rows (
+    id UUID PRIMARY KEY,
+    day DATE
+);
+CREATE TABLE IF NOT EXISTS ads_rollup_rows (
+    id UUID PRIMARY KEY,
+    day DATE
+);
+
+-- Domains whose rollups have been fully built and can answer dashboard queries
+CREATE TABLE IF NOT EXISTS dashboard_rollup_state (
+    domain VARCHAR(50) PRIMARY KEY,
+    built_at TIMESTAMPTZ NOT NULL
+);
@@ -0,0 +1,58 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DateTimeSnifferTest {
+
+  @Test
+  void parsesIsoAndSlashFormats() {
+    DateTimeSniffer sniffer = DateTimeSniffer.shared();
+    assertEquals(LocalDateTime.of(2024, 3, 5, 0, 0), sniffer.parse("2024-03-05"));
+    assertEquals(LocalDateTime.of(2024, 3, 5, 10, 15, 30, 120_000_000), sniffer.parse("2024-03-05T10:15:30.12"));
+    assertEquals(LocalDateTime.of(2024, 3, 5, 10, 15), sniffer.parse("2024/03/05 10:15"));
+    assertEquals(LocalDateTime.of(2024, 3, 25, 8, 0), sniffer.parse("25/03/2024 08:00:00"));
+    assertEquals(LocalDateTime.of(2024, 3, 25, 8, 0), sniffer.parse("3/25/2024 08:00:00"));
+  }
+
+  @Test
+  void convertsOffsetsToSystemZone() {
+    LocalDateTime expected = ZonedDateTime.of(2024, 3, 5, 10, 0, 0, 0, ZoneId.of("UTC"))
+        .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    assertEquals(expected, DateTimeSniffer.shared().parse("2024-03-05T10:00:00Z"));
+    assertEquals(expected, DateTimeSniffer.shared().parse("2024-03-05T12:00:00+02:00"));
+  }
+
+  @Test
+  void rejectsNonDatesWithoutThrowing() {
+    DateTimeSniffer sniffer = DateTimeSniffer.shared();
+    assertNull(sniffer.parse("hello"));
+    assertNull(sniffer.parse("2024-02-30"));
+    assertNull(sniffer.parse("13/13/2024"));
+    assertNull(sniffer.parse("2024-03-05 25:00"));
+  }
+
+  @Test
+  void learnsDayMonthOrderPerColumn() {
+    DateTimeSniffer sniffer = DateTimeSniffer.learning();
+    assertEquals(LocalDate.of(2024, 4, 3), sniffer.parse("03/04/2024").toLocalDate());
+    assertEquals(LocalDate.of(2024, 12, 25), sniffer.parse("12/25/2024").toLocalDate());
+    assertEquals(DateTimeSniffer.FieldOrder.MDY, sniffer.learnedOrder());
+    assertEquals(LocalDate.of(2024, 3, 4), sniffer.parse("03/04/2024").toLocalDate());
+    assertNull(DateTimeSniffer.shared().learnedOrder());
+  }
+
+  @Test
+  void convertsExcelSerials() {
+    DateTimeSniffer sniffer = DateTimeSniffer.shared();
+    assertEquals(LocalDateTime.of(1900, 1, 1, 0, 0), sniffer.parse("1"));
+    assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0), sniffer.parse("45292.5"));
+  }
+}
@@ -0,0 +1,211 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Opt-in timing harness ({@code mvn test -Pbenchmark}) for the per-row cost of template import conversion: the
+ * per-cell type switch that imports used before compiled converters, kept verbatim below, against
+ * {@link RowConverter}. Prints the best of several rounds; nothing is asserted about the timings.
+ */
+@Tag("benchmark")
+class RowConversionBenchmarkTest {
+
+  private static final int ROWS = 50_000;
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int ROUNDS = 5;
+  /** Logical column types the import analysis produced for {@link RowConverterTest#ORDERS}. */
+  private static final String[] LOGICAL_TYPES = {"STRING", "STRING", "INTEGER", "DECIMAL", "BOOLEAN", "DATE"};
+
+  @Test
+  void perRowConversionBeforeAndAfterCompiledConverters() {
+    List<String> columns = RowConverterTest.ORDERS.columns().stream().map(ColumnDefinition::name).toList();
+    List<Object[]> rows = RowConverterTest.sampleRows(ROWS);
+    RowConverter.FailureHandler rethrow = (index, raw, error) -> {
+      throw error;
+    };
+
+    long legacyNanos = Long.MAX_VALUE;
+    long compiledNanos = Long.MAX_VALUE;
+    long checksum = 0;
+    for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+      long started = System.nanoTime();
+      for (Object[] raw : rows) {
+        Object[] converted = new Object[columns.size()];
+        for (int c = 0; c < converted.length; c++) {
+          converted[c] = LegacyImportConversion.convertCellValue(raw[c], LOGICAL_TYPES[c]);
+        }
+        checksum += converted.length;
+      }
+      long legacy = System.nanoTime() - started;
+
+      started = System.nanoTime();
+      RowConverter converter = RowConverterTest.ORDERS.rowConverter(columns);
+      for (Object[] raw : rows) {
+        checksum += converter.convertRow(raw, rethrow).length;
+      }
+      long compiled = System.nanoTime() - started;
+      if (round >= WARMUP_ROUNDS) {
+        legacyNanos = Math.min(legacyNanos, legacy);
+        compiledNanos = Math.min(compiledNanos, compiled);
+      }
+    }
+
+    assertEquals(2L * (WARMUP_ROUNDS + ROUNDS) * ROWS * columns.size(), checksum);
+    System.out.printf(Locale.ROOT, "Import conversion, %d rows x %d columns: legacy %.0f ns/row, compiled %.0f ns/row%n",
+        ROWS, columns.size(), legacyNanos / (double) ROWS, compiledNanos / (double) ROWS);
+    System.out.printf(Locale.ROOT, "  best round: legacy %d ms, compiled %d ms%n",
+        TimeUnit.NANOSECONDS.toMillis(legacyNanos), TimeUnit.NANOSECONDS.toMillis(compiledNanos));
+  }
+
+  /**
+   * {@code ExcelTemplateService.convertCellValue} and its helpers as they were before conversion moved to
+   * {@link ColumnValueConverters}, minus warning collection.
+   */
+  private static final class LegacyImportConversion {
+
+    private static final DateTimeFormatter FLEXIBLE_MDY_SLASH = new DateTimeFormatterBuilder()
+        .parseCaseInsensitive()
+        .parseLenient()
+        .appendPattern("M/d/uuuu HH:mm:ss")
+        .toFormatter(Locale.US);
+    private static final DateTimeFormatter FLEXIBLE_MDY_DASH = new DateTimeFormatterBuilder()
+        .parseCaseInsensitive()
+        .parseLenient()
+        .appendPattern("M-d-uuuu HH:mm:ss")
+        .toFormatter(Locale.US);
+    private static final DateTimeFormatter[] FLEXIBLE_DATE_TIME_FORMATS = new DateTimeFormatter[]{
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
+        DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"),
+        DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"),
+        DateTimeFormatter.ofPattern("dd-MM/yyyy HH:mm:ss"),
+        DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss"),
+        DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss"),
+        FLEXIBLE_MDY_SLASH,
+        FLEXIBLE_MDY_DASH
+    };
+
+    static Object convertCellValue(Object rawValue, String logicalType) {
+      if (rawValue == null) {
+        return null;
+      }
+      Object value = rawValue;
+      if (value instanceof String s) {
+        String trimmed = s.trim();
+        if (trimmed.isEmpty()) {
+          return null;
+        }
+        value = trimmed;
+      }
+
+      String type = logicalType == null ? "STRING" : logicalType.toUpperCase(Locale.ROOT);
+      try {
+        return switch (type) {
+          case "INTEGER" -> toLong(value);
+          case "DECIMAL" -> toBigDecimal(value);
+          case "BOOLEAN" -> toBoolean(value);
+          case "DATE" -> convertToDate(value);
+          case "MINIO_IMAGE" -> value.toString();
+          default -> value instanceof String ? value : value.toString();
+        };
+      } catch (Exception ex) {
+        return value instanceof String ? value : value.toString();
+      }
+    }
+
+    private static Long toLong(Object value) {
+      if (value instanceof Number num) {
+        return num.longValue();
+      }
+      return Long.parseLong(value.toString());
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+      if (value instanceof BigDecimal bd) {
+        return bd;
+      }
+      if (value instanceof Number num) {
+        return new BigDecimal(num.toString());
+      }
+      String str = value.toString().trim();
+      if (str.isEmpty()) {
+        return null;
+      }
+      if (str.indexOf(',') >= 0 && str.indexOf('.') < 0) {
+        str = str.replace(',', '.');
+      }
+      str = str.replace("\u00A0", "").replace(" ", "");
+      return new BigDecimal(str);
+    }
+
+    private static Boolean toBoolean(Object value) {
+      if (value instanceof Boolean b) {
+        return b;
+      }
+      if (value instanceof Number num) {
+        return num.intValue() != 0;
+      }
+      String s = value.toString().trim().toLowerCase(Locale.ROOT);
+      if (s.isEmpty()) {
+        return null;
+      }
+      if (Set.of("true", "t", "yes", "y", "1").contains(s)) {
+        return Boolean.TRUE;
+      }
+      if (Set.of("false", "f", "no", "n", "0").contains(s)) {
+        return Boolean.FALSE;
+      }
+      return Boolean.parseBoolean(s);
+    }
+
+    private static Object convertToDate(Object value) {
+      if (value instanceof LocalDateTime ldt) {
+        return ldt;
+      }
+      if (value instanceof LocalDate ld) {
+        return ld.atStartOfDay();
+      }
+      if (value instanceof Number num) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(num.longValue()), ZoneId.systemDefault());
+      }
+      String s = value.toString().trim();
+      if (s.isEmpty()) {
+        return null;
+      }
+      try {
+        return LocalDateTime.parse(s);
+      } catch (DateTimeParseException ignored) {}
+      try {
+        return OffsetDateTime.parse(s).toLocalDateTime();
+      } catch (DateTimeParseException ignored) {}
+      try {
+        return Instant.parse(s).atZone(ZoneId.systemDefault()).toLocalDateTime();
+      } catch (DateTimeParseException ignored) {}
+      try {
+        return LocalDate.parse(s).atStartOfDay();
+      } catch (DateTimeParseException ignored) {}
+      for (DateTimeFormatter formatter : FLEXIBLE_DATE_TIME_FORMATS) {
+        try {
+          return LocalDateTime.parse(s, formatter);
+        } catch (DateTimeParseException ignored) {}
+      }
+      return s;
+    }
+  }
+}
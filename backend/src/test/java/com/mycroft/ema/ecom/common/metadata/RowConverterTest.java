@@ -0,0 +1,73 @@
+package com.mycroft.ema.ecom.common.metadata;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RowConverterTest {
+
+  static final TableSchema ORDERS = new TableSchema("orders_config", 1, 0, List.of(
+      new ColumnDefinition("id", "uuid", false),
+      new ColumnDefinition("order_reference", "character varying", true),
+      new ColumnDefinition("quantity", "integer", true),
+      new ColumnDefinition("amount", "numeric", true),
+      new ColumnDefinition("paid", "boolean", true),
+      new ColumnDefinition("created_at", "timestamp without time zone", true)));
+
+  @Test
+  void compiledRowConverterMatchesPerValueConverters() {
+    List<String> columns = ORDERS.columns().stream().map(ColumnDefinition::name).toList();
+    RowConverter converter = ORDERS.rowConverter(columns);
+
+    List<Object[]> rows = sampleRows(100);
+    for (Object[] raw : rows) {
+      Object[] expected = new Object[columns.size()];
+      for (int c = 0; c < columns.size(); c++) {
+        expected[c] = ORDERS.converter(columns.get(c)).convert(raw[c]);
+      }
+      assertArrayEquals(expected, converter.convertRow(raw, (index, value, error) -> {
+        throw error;
+      }));
+    }
+    assertEquals(new BigDecimal("1234.50"), converter.convert(3, rows.get(0)[3]));
+  }
+
+  @Test
+  void cachesABoundedNumberOfColumnLists() {
+    TableSchema schema = new TableSchema("orders_config", 1, 0, ORDERS.columns());
+    List<String> columns = List.of("id", "amount");
+    assertSame(schema.rowConverter(columns), schema.rowConverter(columns));
+
+    for (int i = 0; i < TableSchema.MAX_CACHED_ROW_CONVERTERS * 2; i++) {
+      schema.rowConverter(List.of("id", "extra_" + i));
+    }
+    List<String> overflow = List.of("amount", "paid");
+    assertNotSame(schema.rowConverter(overflow), schema.rowConverter(overflow));
+  }
+
+  /**
+   * Sheet-like text cells for {@link #ORDERS}, including a decimal with a non-breaking grouping space.
+   */
+  static List<Object[]> sampleRows(int count) {
+    List<Object[]> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      rows.add(new Object[] {
+          String.format(Locale.ROOT, "00000000-0000-0000-0000-%012d", i),
+          "ORD-" + i,
+          String.valueOf(i % 7),
+          "1\u00A0234," + (50 + i % 50),
+          i % 2 == 0 ? "true" : "false",
+          "2024-03-" + String.format(Locale.ROOT, "%02d", 1 + i % 28) + " 10:15:00"
+      });
+    }
+    return rows;
+  }
+}
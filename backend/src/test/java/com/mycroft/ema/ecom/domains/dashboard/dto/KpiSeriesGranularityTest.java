@@ -0,0 +1,30 @@
+package com.mycroft.ema.ecom.domains.dashboard.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KpiSeriesGranularityTest {
+
+  @Test
+  void countsPartialBucketsAtBothEndsOfTheRange() {
+    LocalDate from = LocalDate.of(2026, 1, 28);
+    LocalDate to = LocalDate.of(2026, 3, 3);
+
+    assertEquals(35, KpiSeriesGranularity.DAY.bucketsBetween(from, to));
+    assertEquals(LocalDate.of(2026, 1, 26), KpiSeriesGranularity.WEEK.truncate(from));
+    assertEquals(6, KpiSeriesGranularity.WEEK.bucketsBetween(from, to));
+    assertEquals(3, KpiSeriesGranularity.MONTH.bucketsBetween(from, to));
+    assertEquals(LocalDate.of(2025, 4, 3), KpiSeriesGranularity.MONTH.defaultFrom(to));
+  }
+
+  @Test
+  void resolvesTheRequestParameter() {
+    assertEquals(KpiSeriesGranularity.DAY, KpiSeriesGranularity.resolve(null));
+    assertEquals(KpiSeriesGranularity.WEEK, KpiSeriesGranularity.resolve(" Week "));
+    assertThrows(IllegalArgumentException.class, () -> KpiSeriesGranularity.resolve("hour"));
+  }
+}
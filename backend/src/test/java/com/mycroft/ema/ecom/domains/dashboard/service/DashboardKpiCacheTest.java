@@ -0,0 +1,98 @@
+package com.mycroft.ema.ecom.domains.dashboard.service;
+
+import com.mycroft.ema.ecom.domains.dashboard.config.DashboardKpiCacheProperties;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiFilters;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DashboardKpiCacheTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final DashboardKpiCache cache = new DashboardKpiCache(
+      new DashboardKpiCacheProperties(true, Duration.ofSeconds(30), 10), null, registry, clock::get);
+  private final AtomicInteger computations = new AtomicInteger();
+
+  @Test
+  void sharesOneComputationPerNormalizedFilterUntilTheTtlPasses() {
+    LocalDate day = LocalDate.of(2026, 1, 15);
+    cache.get(new DashboardKpiFilters(day, day, " Sara ", null, ""), this::compute);
+    cache.get(new DashboardKpiFilters(day, day, "sara", null, null), this::compute);
+    assertEquals(1, computations.get());
+
+    clock.addAndGet(Duration.ofSeconds(31).toNanos());
+    cache.get(new DashboardKpiFilters(day, day, "sara", null, null), this::compute);
+
+    assertEquals(2, computations.get());
+    assertEquals(1d / 3d, registry.get("dashboard.kpi.cache.hit.ratio").gauge().value(), 1e-9);
+    assertEquals(2, registry.get("dashboard.kpi.compute").timer().count());
+  }
+
+  @Test
+  void doesNotCacheAResultComputedAcrossAnInvalidation() {
+    DashboardKpiFilters filters = new DashboardKpiFilters(null, null, null, null, null);
+    cache.get(filters, () -> {
+      cache.invalidate();
+      return compute();
+    });
+    cache.get(filters, this::compute);
+
+    assertEquals(2, computations.get());
+  }
+
+  @Test
+  void concurrentMissesShareTheComputationInFlight() throws Exception {
+    DashboardKpiFilters filters = new DashboardKpiFilters(null, null, null, null, null);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<DashboardKpiResponse> first = executor.submit(() -> cache.get(filters, () -> {
+        loading.countDown();
+        await(release);
+        return compute();
+      }));
+      assertTrue(loading.await(5, TimeUnit.SECONDS));
+      Future<DashboardKpiResponse> second = executor.submit(() -> cache.get(filters, this::compute));
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (registry.get("dashboard.kpi.cache.requests").tag("result", "hit").counter().count() < 1
+          && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+      assertEquals(1, computations.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private DashboardKpiResponse compute() {
+    computations.incrementAndGet();
+    return DashboardKpiResponse.empty();
+  }
+}
@@ -0,0 +1,93 @@
+package com.mycroft.ema.ecom.domains.dashboard.service;
+
+import com.mycroft.ema.ecom.common.metadata.ColumnDefinition;
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
+import com.mycroft.ema.ecom.domains.dashboard.config.DashboardKpiCacheProperties;
+import com.mycroft.ema.ecom.domains.dashboard.dto.DashboardKpiFilters;
+import com.mycroft.ema.ecom.domains.imports.service.DomainImportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Invocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+class DashboardMetricsServiceTest {
+
+  private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+  private final TableSchemaCache schemaCache = mock(TableSchemaCache.class);
+  private final DomainImportService domainImportService = mock(DomainImportService.class);
+  private final DashboardMetricsService service = new DashboardMetricsService(domainImportService, jdbc, schemaCache,
+      mock(DashboardRollupService.class),
+      new DashboardKpiCache(new DashboardKpiCacheProperties(false, Duration.ofSeconds(30), 10), domainImportService,
+          new SimpleMeterRegistry()));
+
+  @Test
+  void filtersTimestampColumnsWithAHalfOpenRange() {
+    table("orders", "orders_config", "created_at", "timestamp without time zone");
+    table("ads", "ads_config", "spend_date", "date");
+    LocalDate from = LocalDate.of(2026, 1, 1);
+    LocalDate to = LocalDate.of(2026, 1, 31);
+
+    service.loadKpis(new DashboardKpiFilters(from, to, null, null, null));
+
+    Invocation orders = query("orders_config");
+    assertTrue(sql(orders).endsWith(" where 1=1 and created_at >= ? and created_at < ?"), sql(orders));
+    assertEquals(List.of(from, LocalDate.of(2026, 2, 1)), trailingArgs(orders, 2));
+    Invocation ads = query("ads_config");
+    assertTrue(sql(ads).endsWith(" where 1=1 and spend_date >= ? and spend_date < ?"), sql(ads));
+    assertEquals(List.of(from, LocalDate.of(2026, 2, 1)), trailingArgs(ads, 2));
+  }
+
+  @Test
+  void keepsTheCastForDatesStoredAsText() {
+    table("orders", "orders_config", "created_at", "text");
+    when(schemaCache.get("ads_config")).thenReturn(mock(TableSchema.class));
+    when(domainImportService.tableForDomain("ads")).thenReturn("ads_config");
+
+    service.loadKpis(new DashboardKpiFilters(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 31), null, null, null));
+
+    assertTrue(sql(query("orders_config")).endsWith(" and created_at::date >= ? and created_at::date < ?"));
+  }
+
+  private void table(String domain, String table, String dateColumn, String dateType) {
+    TableSchema schema = mock(TableSchema.class);
+    when(schema.exists()).thenReturn(true);
+    when(schema.table()).thenReturn(table);
+    when(schema.hasColumn(anyString())).thenAnswer(call -> List.of(dateColumn, "status", "ad_spend")
+        .contains(call.getArgument(0, String.class)));
+    when(schema.column(dateColumn)).thenReturn(Optional.of(new ColumnDefinition(dateColumn, dateType, true)));
+    when(schemaCache.get(table)).thenReturn(schema);
+    when(domainImportService.tableForDomain(domain)).thenReturn(table);
+  }
+
+  private Invocation query(String table) {
+    return mockingDetails(jdbc).getInvocations().stream()
+        .filter(invocation -> invocation.getMethod().getName().equals("queryForObject"))
+        .filter(invocation -> sql(invocation).contains(" from " + table + " "))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static String sql(Invocation invocation) {
+    return invocation.getArgument(0);
+  }
+
+  private static List<Object> trailingArgs(Invocation invocation, int count) {
+    Object[] raw = invocation.getRawArguments();
+    Object[] args = (Object[]) raw[raw.length - 1];
+    return Arrays.asList(args).subList(args.length - count, args.length);
+  }
+}
@@ -0,0 +1,84 @@
+package com.mycroft.ema.ecom.domains.hybrid.service.impl;
+
+import com.mycroft.ema.ecom.auth.service.CurrentUserService;
+import com.mycroft.ema.ecom.auth.service.PermissionService;
+import com.mycroft.ema.ecom.common.files.MinioProperties;
+import com.mycroft.ema.ecom.common.metadata.ColumnDefinition;
+import com.mycroft.ema.ecom.common.metadata.ColumnSemanticsService;
+import com.mycroft.ema.ecom.common.metadata.TableSchema;
+import com.mycroft.ema.ecom.common.metadata.TableSchemaCache;
+import com.mycroft.ema.ecom.domains.imports.service.DomainImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HybridEntityServiceImplTest {
+
+  private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+  private HybridEntityServiceImpl service;
+
+  @BeforeEach
+  void setUp() {
+    DomainImportService domainImportService = mock(DomainImportService.class);
+    when(domainImportService.tableForDomain("product")).thenReturn("product_config");
+    TableSchema schema = mock(TableSchema.class);
+    when(schema.columns()).thenReturn(List.of(
+        new ColumnDefinition("id", "uuid", false),
+        new ColumnDefinition("created_at", "timestamp without time zone", true)));
+    TableSchemaCache schemaCache = mock(TableSchemaCache.class);
+    when(schemaCache.get("product_config")).thenReturn(schema);
+    when(jdbc.queryForObject(anyString(), eq(Boolean.class), any(Object[].class))).thenReturn(true);
+    when(jdbc.queryForObject(anyString(), any(Object[].class), eq(Long.class))).thenReturn(0L);
+    service = new HybridEntityServiceImpl(jdbc, domainImportService, mock(ColumnSemanticsService.class), null,
+        mock(MinioProperties.class), mock(CurrentUserService.class), mock(PermissionService.class), schemaCache,
+        mock(ApplicationEventPublisher.class));
+  }
+
+  @Test
+  void filtersOnADateWithTheHalfOpenDayRange() {
+    assertCountQuery("{\"value\":\"2026-01-15\",\"matchMode\":\"on\",\"type\":\"date\"}",
+        " where created_at >= ? and created_at < ?",
+        at(2026, 1, 15), at(2026, 1, 16));
+  }
+
+  @Test
+  void betweenDatesIncludesTheWholeEndDay() {
+    assertCountQuery("{\"value\":[\"2026-01-01\",\"2026-01-31\"],\"matchMode\":\"between\",\"type\":\"date\"}",
+        " where created_at >= ? and created_at < ?",
+        at(2026, 1, 1), at(2026, 2, 1));
+  }
+
+  private void assertCountQuery(String filter, String expectedWhere, Object... expectedArgs) {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("filter.created_at", filter);
+    service.search("product", null, filters, PageRequest.of(0, 10), null);
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+    verify(jdbc).queryForObject(sql.capture(), args.capture(), eq(Long.class));
+    assertEquals("select count(*) from product_config" + expectedWhere, sql.getValue());
+    assertArrayEquals(expectedArgs, args.getValue());
+  }
+
+  private static Timestamp at(int year, int month, int day) {
+    return Timestamp.valueOf(LocalDateTime.of(year, month, day, 0, 0));
+  }
+}
@@ -0,0 +1,41 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnTypeInferenceTest {
+
+  @Test
+  void seesValuesPastTheSampleSize() {
+    ColumnTypeInference inference = new ColumnTypeInference(2, 10);
+    for (int r = 0; r < 5_000; r++) {
+      inference.accept(r + 2, new Object[]{String.valueOf(r), r % 2 == 0 ? "1" : "2.5"});
+    }
+    inference.accept(5_002, new Object[]{"N/A", null});
+
+    assertEquals("STRING", inference.type(0));
+    assertEquals("looked INTEGER until row 5002 ('N/A')", inference.widening(0));
+    assertFalse(inference.nullable(0));
+    assertEquals("DECIMAL", inference.type(1));
+    assertNull(inference.widening(1));
+    assertTrue(inference.nullable(1));
+  }
+
+  @Test
+  void samplesAcrossTheWholeFile() {
+    ColumnTypeInference inference = new ColumnTypeInference(1, 5);
+    for (int r = 0; r < 10_000; r++) {
+      inference.accept(r + 2, new Object[]{(long) r});
+    }
+
+    assertEquals("INTEGER", inference.type(0));
+    // the reservoir starts with the first five values and is almost surely replaced by later ones
+    assertTrue(Long.parseLong(inference.sample(0)) >= 5);
+    assertNull(new ColumnTypeInference(1, 5).sample(0));
+    assertEquals(ColumnTypeInference.UNKNOWN, new ColumnTypeInference(1, 5).type(0));
+  }
+}
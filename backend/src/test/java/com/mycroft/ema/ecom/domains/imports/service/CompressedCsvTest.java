@@ -0,0 +1,65 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompressedCsvTest {
+
+  @Test
+  void streamsGzipUploadIntoCsvReader() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write("name,price\nPhone,10\n".getBytes(StandardCharsets.UTF_8));
+    }
+    MockMultipartFile file = new MockMultipartFile("file", "orders.csv.gz", "application/gzip", bytes.toByteArray());
+
+    assertEquals(CompressedCsv.Format.GZIP, CompressedCsv.detect(file));
+    List<List<Object>> rows = readAll(TabularSource.of(file));
+
+    assertEquals(Arrays.asList("name", "price"), rows.get(0));
+    assertEquals(Arrays.asList("Phone", "10"), rows.get(1));
+  }
+
+  @Test
+  void readsEachCsvEntryOfZipUpload() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+      zip.putNextEntry(new ZipEntry("__MACOSX/._orders.csv"));
+      zip.write(new byte[]{0, 1, 2});
+      zip.putNextEntry(new ZipEntry("export/Orders.csv"));
+      zip.write("reference\nA-1\nA-2\n".getBytes(StandardCharsets.UTF_8));
+      zip.putNextEntry(new ZipEntry("export/products.csv"));
+      zip.write("sku\nP-1\n".getBytes(StandardCharsets.UTF_8));
+    }
+    MockMultipartFile file = new MockMultipartFile("file", "export.zip", "application/zip", bytes.toByteArray());
+
+    List<String> entries = CompressedCsv.csvEntries(file);
+    assertEquals(List.of("export/Orders.csv", "export/products.csv"), entries);
+    assertEquals("orders", CompressedCsv.baseName(entries.get(0)));
+
+    List<List<Object>> products = readAll(CompressedCsv.source(file, CompressedCsv.Format.ZIP, entries.get(1)));
+    assertEquals(List.of(List.of("sku"), List.of("P-1")), products);
+    assertThrows(IllegalArgumentException.class, () -> TabularSource.of(file));
+  }
+
+  private static List<List<Object>> readAll(TabularSource source) throws Exception {
+    List<List<Object>> rows = new ArrayList<>();
+    source.read((rowIndex, cells) -> {
+      rows.add(Arrays.asList(cells));
+      return true;
+    });
+    return rows;
+  }
+}
@@ -0,0 +1,54 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvRowReaderTest {
+
+  @Test
+  void keepsLineBreaksInsideQuotedFields() throws Exception {
+    String csv = "name,product_name,price\r\n"
+        + "\"Bundle\",\"Phone\nCase\r\nCharger\",\"1,5\"\r\n"
+        + "\r\n"
+        + "Single,\"Say \"\"hi\"\"\",2\n";
+    List<List<String>> rows = readAll(csv.getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(3, rows.size());
+    assertEquals(Arrays.asList("name", "product_name", "price"), rows.get(0));
+    assertEquals(Arrays.asList("Bundle", "Phone\nCase\r\nCharger", "1,5"), rows.get(1));
+    assertEquals(Arrays.asList("Single", "Say \"hi\"", "2"), rows.get(2));
+  }
+
+  @Test
+  void skipsBomAndDetectsSemicolonDelimiter() throws Exception {
+    byte[] body = "nom;prix;\"note; longue\"\nCafé;2,5;ok\n".getBytes(StandardCharsets.UTF_8);
+    byte[] withBom = new byte[body.length + 3];
+    withBom[0] = (byte) 0xEF;
+    withBom[1] = (byte) 0xBB;
+    withBom[2] = (byte) 0xBF;
+    System.arraycopy(body, 0, withBom, 3, body.length);
+
+    List<List<String>> rows = readAll(withBom);
+
+    assertEquals(Arrays.asList("nom", "prix", "note; longue"), rows.get(0));
+    assertEquals(Arrays.asList("Café", "2,5", "ok"), rows.get(1));
+  }
+
+  private static List<List<String>> readAll(byte[] content) throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "data.csv", "text/csv", content);
+    List<List<String>> rows = new ArrayList<>();
+    CsvRowReader.read(file, (rowIndex, cells) -> {
+      assertEquals(rows.size(), rowIndex);
+      rows.add(Arrays.asList(cells));
+      return true;
+    });
+    return rows;
+  }
+}
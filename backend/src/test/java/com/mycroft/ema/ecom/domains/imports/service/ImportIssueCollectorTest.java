@@ -0,0 +1,38 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.domains.imports.dto.ImportIssueSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImportIssueCollectorTest {
+
+  @Test
+  void countsEveryIssueButKeepsOnlyTheFirstExamples() {
+    ImportIssueCollector issues = new ImportIssueCollector(2);
+    for (int row = 2; row < 100_002; row++) {
+      issues.record("created_at", "INVALID_DATE", "Row " + row + ": bad date");
+    }
+    issues.record("sku", "MISSING_MERGE_KEY", "3 row(s) without a value for merge key 'sku' were skipped.", 3);
+
+    assertEquals(100_003, issues.total());
+    assertEquals(List.of("Row 2: bad date", "Row 3: bad date"), issues.examples());
+    assertEquals(100_001, issues.omitted());
+    assertEquals(List.of(
+        new ImportIssueSummary("created_at", "INVALID_DATE", 100_000, "Row 2: bad date"),
+        new ImportIssueSummary("sku", "MISSING_MERGE_KEY", 3,
+            "3 row(s) without a value for merge key 'sku' were skipped.")), issues.summaries());
+  }
+
+  @Test
+  void ignoresEmptyCounts() {
+    ImportIssueCollector issues = new ImportIssueCollector(10);
+    issues.record("sku", "DUPLICATE_MERGE_KEY", "0 row(s) repeat a merge key", 0);
+
+    assertEquals(0, issues.total());
+    assertEquals(List.of(), issues.examples());
+    assertEquals(List.of(), issues.summaries());
+  }
+}
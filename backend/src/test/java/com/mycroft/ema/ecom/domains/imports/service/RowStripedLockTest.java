@@ -0,0 +1,47 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.integration.google.config.GoogleSheetsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowStripedLockTest {
+
+  private final RowStripedLock lock = new RowStripedLock(
+      new GoogleSheetsProperties("", "test", "A:ZZ", "secret", 1, null, Duration.ofSeconds(5), 8),
+      new SimpleMeterRegistry());
+
+  @Test
+  void heldRowsHoldBackRowEditsUntilReleased() throws Exception {
+    UUID row = UUID.randomUUID();
+    CompletableFuture<String> edit;
+    try (RowStripedLock.HeldRows held = lock.lockRows("orders_config", List.of(row, UUID.randomUUID(), row))) {
+      edit = CompletableFuture.supplyAsync(() -> lock.withRowLock("orders_config", row, () -> "applied"));
+      assertThrows(TimeoutException.class, () -> edit.get(100, TimeUnit.MILLISECONDS));
+    }
+    assertEquals("applied", edit.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void reportsRowsEditedAfterASnapshot() {
+    UUID row = UUID.randomUUID();
+    long[] snapshot = lock.versions();
+    assertFalse(lock.editedSince(snapshot, "orders_config", row));
+
+    lock.runWithRowLock("orders_config", row, () -> {});
+
+    assertTrue(lock.editedSince(snapshot, "orders_config", row));
+    assertFalse(lock.editedSince(lock.versions(), "orders_config", row));
+  }
+}
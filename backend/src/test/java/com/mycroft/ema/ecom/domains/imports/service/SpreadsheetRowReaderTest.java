@@ -0,0 +1,98 @@
+package com.mycroft.ema.ecom.domains.imports.service;
+
+import com.mycroft.ema.ecom.domains.imports.util.TempFileMultipartFile;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpreadsheetRowReaderTest {
+
+  @Test
+  void streamsXlsxWithSameValuesAsWorkbookModel() throws Exception {
+    List<List<Object>> xlsx = readAll(new XSSFWorkbook(), "template.xlsx");
+    List<List<Object>> xls = readAll(new HSSFWorkbook(), "template.xls");
+
+    assertEquals(xls, xlsx);
+    assertEquals(Arrays.asList("name", "qty", "price", "active", "ordered", "total"), xlsx.get(0));
+    assertEquals(Arrays.asList("Phone", 2L, new BigDecimal("9.5"), true, LocalDate.of(2024, 3, 25), 19L), xlsx.get(1));
+    assertEquals(Arrays.asList(null, 3L), xlsx.get(2));
+  }
+
+  @Test
+  void stopsWhenCallbackReturnsFalse() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "template.xlsx", null, write(new XSSFWorkbook()));
+    List<Integer> seen = new ArrayList<>();
+    SpreadsheetRowReader.read(file, (rowIndex, cells) -> {
+      seen.add(rowIndex);
+      return seen.size() < 2;
+    });
+    assertEquals(List.of(0, 1), seen);
+  }
+
+  @Test
+  void readsFileBackedUploadsInPlace() throws Exception {
+    Path path = Files.createTempFile("import-upload-", ".upload");
+    try {
+      Files.write(path, write(new XSSFWorkbook()));
+      TempFileMultipartFile upload = TempFileMultipartFile.of(path, "template.xlsx", null);
+      List<List<Object>> rows = new ArrayList<>();
+      SpreadsheetRowReader.read(upload, (rowIndex, cells) -> rows.add(Arrays.asList(cells)));
+
+      assertEquals(readAll(new XSSFWorkbook(), "template.xlsx"), rows);
+      assertTrue(Files.exists(path));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  private List<List<Object>> readAll(Workbook workbook, String filename) throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", filename, null, write(workbook));
+    List<List<Object>> rows = new ArrayList<>();
+    SpreadsheetRowReader.read(file, (rowIndex, cells) -> rows.add(Arrays.asList(cells)));
+    return rows;
+  }
+
+  private byte[] write(Workbook workbook) throws Exception {
+    try (workbook; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      Sheet sheet = workbook.createSheet("Orders");
+      Row header = sheet.createRow(0);
+      String[] names = {"name", "qty", "price", "active", "ordered", "total"};
+      for (int i = 0; i < names.length; i++) {
+        header.createCell(i).setCellValue(names[i]);
+      }
+      CellStyle dateStyle = workbook.createCellStyle();
+      dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+      Row data = sheet.createRow(1);
+      data.createCell(0).setCellValue("Phone");
+      data.createCell(1).setCellValue(2);
+      data.createCell(2).setCellValue(9.5);
+      data.createCell(3).setCellValue(true);
+      data.createCell(4).setCellValue(LocalDateTime.of(2024, 3, 25, 0, 0));
+      data.getCell(4).setCellStyle(dateStyle);
+      data.createCell(5).setCellFormula("B2*C2");
+      workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+      Row sparse = sheet.createRow(2);
+      sparse.createCell(1).setCellValue(3);
+      workbook.write(out);
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.mycroft.ema.ecom.integration.google.service;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.mycroft.ema.ecom.common.error.RetryLaterException;
+import com.mycroft.ema.ecom.integration.google.config.GoogleSheetsQuotaProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GoogleSheetsQuotaGuardTest {
+
+  private static final String VALUES_BODY = "{\"range\":\"Orders!A1:B2\",\"values\":[[\"id\",\"name\"],[\"1\",\"Ali\"]]}";
+
+  private HttpServer server;
+  private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger requests = new AtomicInteger();
+  private Sheets sheets;
+  private SimpleMeterRegistry registry;
+
+  @BeforeEach
+  void startStub() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      Integer status = statuses.poll();
+      int code = status == null ? 200 : status;
+      byte[] body = (code == 200 ? VALUES_BODY : "{\"error\":{\"code\":" + code + ",\"message\":\"stub\"}}")
+          .getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(code, body.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(body);
+      }
+    });
+    server.start();
+    sheets = new Sheets.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance(), null)
+        .setRootUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/")
+        .setApplicationName("quota-test")
+        .build();
+    registry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  void stopStub() {
+    server.stop(0);
+  }
+
+  @Test
+  void retriesThrottledAndServerErrorsUntilSuccess() throws IOException {
+    statuses.addAll(List.of(429, 503));
+    GoogleSheetsQuotaGuard guard = new GoogleSheetsQuotaGuard(properties(5, 3), registry);
+
+    ValueRange response = guard.execute("values.get", "sheet-1", "svc@test", () ->
+        sheets.spreadsheets().values().get("sheet-1", "Orders!A:B").execute());
+
+    assertEquals(2, response.getValues().size());
+    assertEquals(3, requests.get());
+    assertEquals(1.0, registry.get("google.sheets.calls").tag("outcome", "throttled").counter().count());
+    assertEquals(1.0, registry.get("google.sheets.calls").tag("outcome", "server_error").counter().count());
+    assertEquals(1.0, registry.get("google.sheets.calls").tag("outcome", "success").counter().count());
+  }
+
+  @Test
+  void doesNotRetryClientErrors() {
+    statuses.add(404);
+    GoogleSheetsQuotaGuard guard = new GoogleSheetsQuotaGuard(properties(5, 3), registry);
+
+    HttpResponseException ex = assertThrows(HttpResponseException.class, () -> guard.execute("values.get", "sheet-1", "svc@test",
+        () -> sheets.spreadsheets().values().get("sheet-1", "Missing!A:B").execute()));
+
+    assertEquals(404, ex.getStatusCode());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  void opensCircuitAfterRepeatedFailures() {
+    statuses.addAll(List.of(500, 500, 500, 500));
+    GoogleSheetsQuotaGuard guard = new GoogleSheetsQuotaGuard(properties(2, 2), registry);
+
+    for (int i = 0; i < 2; i++) {
+      assertThrows(HttpResponseException.class, () -> guard.execute("values.get", "sheet-1", "svc@test",
+          () -> sheets.spreadsheets().values().get("sheet-1", "Orders!A:B").execute()));
+    }
+    RetryLaterException rejected = assertThrows(RetryLaterException.class, () -> guard.execute("values.get", "sheet-1",
+        "svc@test", () -> sheets.spreadsheets().values().get("sheet-1", "Orders!A:B").execute()));
+
+    assertEquals(4, requests.get());
+    assertEquals(1.0, registry.get("google.sheets.circuit.open").gauge().value());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+    assertTrue(rejected.getRetryAfter().compareTo(Duration.ofSeconds(30)) > 0);
+  }
+
+  @Test
+  void rejectedReservationHandsBackTheCredentialToken() throws IOException {
+    long[] now = {0};
+    GoogleSheetsQuotaProperties properties = new GoogleSheetsQuotaProperties(2, 1, Duration.ZERO, 1,
+        Duration.ofMillis(5), Duration.ofMillis(20), 5, Duration.ofMinutes(1));
+    GoogleSheetsQuotaGuard guard = new GoogleSheetsQuotaGuard(properties, registry, () -> now[0]);
+
+    assertEquals("a", guard.execute("values.get", "sheet-a", "svc@test", () -> "a"));
+    RetryLaterException throttled = assertThrows(RetryLaterException.class,
+        () -> guard.execute("values.get", "sheet-a", "svc@test", () -> "a"));
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, throttled.getStatus());
+    assertEquals(Duration.ofMinutes(1), throttled.getRetryAfter());
+
+    assertEquals("b", guard.execute("values.get", "sheet-b", "svc@test", () -> "b"));
+  }
+
+  @Test
+  void halfOpenCircuitAdmitsASingleProbe() throws IOException {
+    long[] now = {0};
+    GoogleSheetsQuotaGuard guard = new GoogleSheetsQuotaGuard(properties(1, 1), registry, () -> now[0]);
+    assertThrows(IOException.class, () -> guard.execute("values.get", "sheet-1", "svc@test", () -> {
+      throw new IOException("down");
+    }));
+    assertThrows(RetryLaterException.class, () -> guard.execute("values.get", "sheet-1", "svc@test", () -> "x"));
+
+    now[0] = Duration.ofMinutes(2).toNanos();
+    String probed = guard.execute("values.get", "sheet-1", "svc@test", () -> {
+      assertThrows(RetryLaterException.class, () -> guard.execute("values.get", "sheet-1", "svc@test", () -> "y"));
+      return "probe";
+    });
+
+    assertEquals("probe", probed);
+    assertEquals("z", guard.execute("values.get", "sheet-1", "svc@test", () -> "z"));
+    assertEquals(0.0, registry.get("google.sheets.circuit.open").gauge().value());
+  }
+
+  @Test
+  void tokenBucketDelaysOnceBurstIsSpent() {
+    long[] now = {0};
+    TokenBucket bucket = new TokenBucket(60, () -> now[0]);
+    for (int i = 0; i < 60; i++) {
+      assertEquals(0, bucket.reserve(0));
+    }
+    assertEquals(-1, bucket.reserve(Duration.ofMillis(500).toNanos()));
+    assertEquals(Duration.ofSeconds(1).toNanos(), bucket.reserve(Duration.ofSeconds(2).toNanos()));
+    now[0] = Duration.ofSeconds(2).toNanos();
+    assertEquals(0, bucket.reserve(0));
+  }
+
+  private GoogleSheetsQuotaProperties properties(int circuitThreshold, int maxAttempts) {
+    return new GoogleSheetsQuotaProperties(600, 600, Duration.ofSeconds(1), maxAttempts,
+        Duration.ofMillis(5), Duration.ofMillis(20), circuitThreshold, Duration.ofMinutes(1));
+  }
+}